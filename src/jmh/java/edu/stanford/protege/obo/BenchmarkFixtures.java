@@ -0,0 +1,60 @@
+package edu.stanford.protege.obo;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * The OBO files that the benchmarks run against.  "sample" is a small checked-in file that resembles a real
+ * ontology, and "synthetic" is a 16MB file that is generated by {@link SyntheticOboCorpus} from a fixed seed,
+ * so both are the same on every run.
+ */
+final class BenchmarkFixtures {
+
+    static final String SAMPLE = "sample";
+
+    static final String SYNTHETIC = "synthetic";
+
+    private static final long SYNTHETIC_SIZE = 16 * 1024 * 1024;
+
+    private static final long SEED = 20261018L;
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Writes the named fixture to a temporary file, which is deleted when the JVM exits.
+     */
+    @Nonnull
+    static Path createFile(@Nonnull String name) throws IOException {
+        var file = Files.createTempFile("obo-benchmark-" + name, ".obo");
+        file.toFile().deleteOnExit();
+        switch (name) {
+            case SAMPLE:
+                try (var in = BenchmarkFixtures.class.getResourceAsStream("/fixtures/sample.obo")) {
+                    if (in == null) {
+                        throw new IOException("The sample fixture is not on the classpath");
+                    }
+                    Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+                break;
+            case SYNTHETIC:
+                SyntheticOboCorpus.withSeed(SEED).write(file, SYNTHETIC_SIZE);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown fixture: " + name);
+        }
+        return file;
+    }
+
+    /**
+     * Gets the number of bytes that have been allocated by the current thread.
+     */
+    static long getAllocatedBytes() {
+        var threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
@@ -0,0 +1,88 @@
+package edu.stanford.protege.obo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLDeclarationAxiom;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of de-duplicating declarations with each kind of declaration tracking.  Each invocation
+ * adds a fixed sequence of declarations, in which each entity is declared four times, to a new filter.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DeclarationFilterBenchmark {
+
+    private static final int ENTITIES_COUNT = 1 << 16;
+
+    private static final int DECLARATIONS_COUNT = 4 * ENTITIES_COUNT;
+
+    @Param({"none", "exact", "probabilistic"})
+    public String tracking;
+
+    private DeclarationTracking declarationTracking;
+
+    private OWLDeclarationAxiom[] declarations;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        switch (tracking) {
+            case "none":
+                declarationTracking = DeclarationTracking.none();
+                break;
+            case "exact":
+                declarationTracking = DeclarationTracking.exact();
+                break;
+            case "probabilistic":
+                declarationTracking = DeclarationTracking.probabilistic(ENTITIES_COUNT, 0.0001);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown tracking: " + tracking);
+        }
+        var dataFactory = OWLManager.getOWLDataFactory();
+        var random = new Random(20261018L);
+        declarations = new OWLDeclarationAxiom[DECLARATIONS_COUNT];
+        for (int i = 0; i < DECLARATIONS_COUNT; i++) {
+            var iri = IRI.create(String.format("http://purl.obolibrary.org/obo/GO_%07d", i % ENTITIES_COUNT));
+            declarations[i] = dataFactory.getOWLDeclarationAxiom(dataFactory.getOWLClass(iri));
+        }
+        for (int i = DECLARATIONS_COUNT - 1; i > 0; i--) {
+            var j = random.nextInt(i + 1);
+            var declaration = declarations[i];
+            declarations[i] = declarations[j];
+            declarations[j] = declaration;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DECLARATIONS_COUNT)
+    public long addDeclarations() {
+        var filter = declarationTracking.createFilter();
+        var deliveredCount = 0L;
+        for (var declaration : declarations) {
+            if (filter.add(declaration)) {
+                deliveredCount++;
+            }
+        }
+        return deliveredCount;
+    }
+}
@@ -0,0 +1,68 @@
+package edu.stanford.protege.obo;
+
+import org.obolibrary.oboformat.model.Frame;
+import org.obolibrary.oboformat.model.OBODoc;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.semanticweb.owlapi.model.IRI;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of translating an OBO id to an IRI, with and without the IRI cache, for a working set
+ * of ids that fits in the cache and for one that does not.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IriBenchmark {
+
+    private static final int IDS_COUNT = 1 << 20;
+
+    @Param({"0", "100000"})
+    public int iriCacheSize;
+
+    @Param({"10000", "1000000"})
+    public int distinctIdsCount;
+
+    private MinimalObo2Owl translator;
+
+    private String[] ids;
+
+    private int nextId = 0;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        var context = new TranslationContext(DeclarationFilter.NONE, new IriCache(iriCacheSize), ProgressTracker.NONE);
+        translator = new MinimalObo2Owl(axioms -> {}, 1, context);
+        var obodoc = new OBODoc();
+        obodoc.setHeaderFrame(new Frame(Frame.FrameType.HEADER));
+        translator.setObodoc(obodoc);
+        var random = new Random(20261018L);
+        ids = new String[IDS_COUNT];
+        for (int i = 0; i < IDS_COUNT; i++) {
+            ids[i] = String.format("GO:%07d", random.nextInt(distinctIdsCount));
+        }
+    }
+
+    @Benchmark
+    public IRI oboIdToIRI() {
+        var id = ids[nextId];
+        nextId = (nextId + 1) & (IDS_COUNT - 1);
+        return translator.oboIdToIRI(id);
+    }
+}
@@ -0,0 +1,79 @@
+package edu.stanford.protege.obo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how fast the stanza lexer splits input into stanzas and clauses, without building frames or
+ * translating them, from a mapped file and from a stream.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LexerBenchmark {
+
+    @Param({BenchmarkFixtures.SYNTHETIC, BenchmarkFixtures.SAMPLE})
+    public String fixture;
+
+    private Path file;
+
+    private long fileSize;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = BenchmarkFixtures.createFile(fixture);
+        fileSize = Files.size(file);
+    }
+
+    @Benchmark
+    public long lexMappedFile(ThroughputCounters counters) throws IOException {
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ);
+             var lexer = new OboStanzaLexer(new MappedFileLineSource(channel, 0, fileSize, MappedFileLineSource.DEFAULT_WINDOW_SIZE))) {
+            var clausesCount = lex(lexer);
+            counters.addInput(fileSize);
+            return clausesCount;
+        }
+    }
+
+    @Benchmark
+    public long lexStream(ThroughputCounters counters) throws IOException {
+        try (var lexer = new OboStanzaLexer(Files.newInputStream(file))) {
+            var clausesCount = lex(lexer);
+            counters.addInput(fileSize);
+            return clausesCount;
+        }
+    }
+
+    /**
+     * Reads all of the stanzas.
+     * @return The number of clauses that were read.
+     */
+    private static long lex(OboStanzaLexer lexer) throws IOException {
+        var stanza = new OboStanza();
+        var clausesCount = 0L;
+        while (lexer.next(stanza)) {
+            clausesCount += stanza.getClauseCount();
+        }
+        return clausesCount;
+    }
+}
@@ -0,0 +1,86 @@
+package edu.stanford.protege.obo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures a full parse, from bytes on disk to axioms delivered to a consumer that does nothing with them,
+ * with sequential and pipelined translation.
+ *
+ * Allocation per axiom is printed at the end of each iteration for sequential translation, where all of the
+ * work happens on the benchmark thread.  For pipelined translation run with {@code -prof gc} and divide
+ * {@code gc.alloc.rate} by the axioms rate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParseBenchmark {
+
+    @Param({BenchmarkFixtures.SYNTHETIC, BenchmarkFixtures.SAMPLE})
+    public String fixture;
+
+    @Param({"0", "3"})
+    public int translatorThreads;
+
+    private Path file;
+
+    private long fileSize;
+
+    private long allocatedBytesAtStart;
+
+    private long axiomsCount;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = BenchmarkFixtures.createFile(fixture);
+        fileSize = Files.size(file);
+    }
+
+    @Setup(Level.Iteration)
+    public void startIteration() {
+        allocatedBytesAtStart = BenchmarkFixtures.getAllocatedBytes();
+        axiomsCount = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void finishIteration() {
+        if (translatorThreads == 0 && axiomsCount > 0) {
+            var allocatedBytes = BenchmarkFixtures.getAllocatedBytes() - allocatedBytesAtStart;
+            System.out.printf("%n%,d bytes allocated per axiom%n", allocatedBytes / axiomsCount);
+        }
+    }
+
+    @Benchmark
+    public long parse(ThroughputCounters counters) throws IOException {
+        var delivered = new LongAdder();
+        var parser = new MinimalOboParser(axioms -> delivered.add(axioms.size()), 1000);
+        parser.setProgressListener(ProgressListener.none());
+        parser.setPipelineTranslatorThreads(translatorThreads);
+        parser.parse(file);
+        var parseAxiomsCount = delivered.sum();
+        axiomsCount += parseAxiomsCount;
+        counters.addInput(fileSize);
+        counters.axioms += parseAxiomsCount;
+        return parseAxiomsCount;
+    }
+}
@@ -0,0 +1,85 @@
+package edu.stanford.protege.obo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the overhead of each way of receiving axioms: one at a time from the parser, in batches from the
+ * parser, and from a stream.  Every axiom is consumed, so the differences are down to delivery.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SinkBenchmark {
+
+    @Param({"axiom", "batch", "stream"})
+    public String sink;
+
+    private Path file;
+
+    private long fileSize;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = BenchmarkFixtures.createFile(BenchmarkFixtures.SYNTHETIC);
+        fileSize = Files.size(file);
+    }
+
+    @Benchmark
+    public void parse(ThroughputCounters counters, Blackhole blackhole) throws IOException {
+        var axiomsCount = new long[1];
+        switch (sink) {
+            case "axiom": {
+                var parser = new MinimalOboParser(axiom -> {
+                    blackhole.consume(axiom);
+                    axiomsCount[0]++;
+                });
+                parser.setProgressListener(ProgressListener.none());
+                parser.parse(file);
+                break;
+            }
+            case "batch": {
+                var parser = new MinimalOboParser(axioms -> {
+                    for (var axiom : axioms) {
+                        blackhole.consume(axiom);
+                    }
+                    axiomsCount[0] += axioms.size();
+                }, 1000);
+                parser.setProgressListener(ProgressListener.none());
+                parser.parse(file);
+                break;
+            }
+            case "stream":
+                try (var axioms = OboAxiomStreams.axioms(file)) {
+                    axioms.forEach(axiom -> {
+                        blackhole.consume(axiom);
+                        axiomsCount[0]++;
+                    });
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown sink: " + sink);
+        }
+        counters.addInput(fileSize);
+        counters.axioms += axiomsCount[0];
+    }
+}
@@ -0,0 +1,30 @@
+package edu.stanford.protege.obo;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Counts the megabytes of input and the axioms that a benchmark processes, which JMH reports as MB/s and
+ * axioms/s alongside the score.
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class ThroughputCounters {
+
+    public double megabytes;
+
+    public long axioms;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        megabytes = 0;
+        axioms = 0;
+    }
+
+    void addInput(long bytes) {
+        megabytes += bytes / (1024.0 * 1024.0);
+    }
+}
@@ -0,0 +1,21 @@
+package edu.stanford.protege.obo;
+
+import org.semanticweb.owlapi.model.OWLAxiom;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+
+/**
+ * Receives the axioms that are produced by a {@link MinimalOboParser} in batches.  A batch only ever contains
+ * the axioms of whole frames.
+ */
+@FunctionalInterface
+public interface AxiomBatchConsumer {
+
+    /**
+     * Accepts a batch of axioms.  The list is reused once this method returns, so implementations must copy
+     * any axioms that they want to hold on to.
+     * @param axioms The batch of axioms.  This is never empty.
+     */
+    void accept(@Nonnull List<OWLAxiom> axioms);
+}
@@ -0,0 +1,25 @@
+package edu.stanford.protege.obo;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * A Flight Recorder event for a batch of axioms that the axiom consumer was slow to accept, which is where a
+ * slow sink, or a subscriber that is not requesting more axioms, holds up the parse.  The stanza is the last
+ * one whose axioms are in the batch.
+ */
+@Name("edu.stanford.protege.obo.AxiomBatch")
+@Label("Slow OBO Axiom Consumer")
+@Category("OBO Parser")
+@Description("A batch of axioms that the axiom consumer took longer than the threshold to accept")
+@Threshold("10 ms")
+@StackTrace(false)
+final class AxiomBatchEvent extends ParseEvent {
+
+    @Label("Axioms Count")
+    int axiomsCount;
+}
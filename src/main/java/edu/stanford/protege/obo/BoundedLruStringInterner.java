@@ -0,0 +1,113 @@
+package edu.stanford.protege.obo;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Interns strings in a map that holds at most a fixed number of strings, discarding the least recently used
+ * string when it is full.  Lookups go through a reusable key that refers to the chars directly, so a string
+ * is only created when it is not already in the map.
+ */
+final class BoundedLruStringInterner implements StringInterner {
+
+    private final Map<Key, String> strings;
+
+    private final Key lookupKey = new Key();
+
+    BoundedLruStringInterner(int maximumSize) {
+        checkArgument(maximumSize > 0, "maximumSize must be greater than zero");
+        this.strings = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, String> eldest) {
+                return size() > maximumSize;
+            }
+        };
+    }
+
+    @Nonnull
+    @Override
+    public String intern(@Nonnull char[] chars, int start, int length) {
+        lookupKey.set(chars, start, length);
+        var string = strings.get(lookupKey);
+        lookupKey.clear();
+        if (string == null) {
+            string = new String(chars, start, length);
+            strings.put(new Key(string), string);
+        }
+        return string;
+    }
+
+    int size() {
+        return strings.size();
+    }
+
+    /**
+     * A key that is either backed by a string, for keys in the map, or by a range of chars, for lookups.
+     * Both kinds hash and compare by their chars.
+     */
+    private static final class Key {
+
+        @Nullable
+        private String string;
+
+        @Nullable
+        private char[] chars;
+
+        private int start;
+
+        private int length;
+
+        private int hash;
+
+        Key() {
+        }
+
+        Key(@Nonnull String string) {
+            this.string = string;
+            this.length = string.length();
+            this.hash = string.hashCode();
+        }
+
+        void set(@Nonnull char[] chars, int start, int length) {
+            this.chars = chars;
+            this.start = start;
+            this.length = length;
+            this.hash = StringInterner.hashCode(chars, start, length);
+        }
+
+        void clear() {
+            // Don't hold on to the stanza text
+            this.chars = null;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            var other = (Key) obj;
+            if (other.hash != hash || other.length != length) {
+                return false;
+            }
+            if (string != null && other.string != null) {
+                return string.equals(other.string);
+            }
+            if (string != null) {
+                return StringInterner.contentEquals(string, other.chars, other.start, other.length);
+            }
+            return other.string != null
+                    ? StringInterner.contentEquals(other.string, chars, start, length)
+                    : Arrays.equals(chars, start, start + length, other.chars, other.start, other.start + length);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package edu.stanford.protege.obo;
+
+import com.google.common.base.Objects;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A half open range of byte offsets, [start, end), in a file.
+ */
+final class ByteRange {
+
+    private final long start;
+
+    private final long end;
+
+    ByteRange(long start, long end) {
+        checkArgument(0 <= start && start <= end, "Invalid range [%s, %s)", start, end);
+        this.start = start;
+        this.end = end;
+    }
+
+    long getStart() {
+        return start;
+    }
+
+    long getEnd() {
+        return end;
+    }
+
+    long getLength() {
+        return end - start;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ByteRange)) {
+            return false;
+        }
+        var other = (ByteRange) o;
+        return start == other.start && end == other.end;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(start, end);
+    }
+
+    @Override
+    public String toString() {
+        return "[" + start + ", " + end + ")";
+    }
+}
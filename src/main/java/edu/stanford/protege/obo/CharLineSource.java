@@ -0,0 +1,90 @@
+package edu.stanford.protege.obo;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.Reader;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Reads lines from a {@link Reader}.  Byte offsets are not tracked.
+ */
+final class CharLineSource implements OboLineSource {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Reader reader;
+
+    private final char[] buffer = new char[BUFFER_SIZE];
+
+    private int bufferPosition = 0;
+
+    private int bufferLimit = 0;
+
+    private boolean skipLineFeed = false;
+
+    CharLineSource(@Nonnull Reader reader) {
+        this.reader = checkNotNull(reader);
+    }
+
+    @Override
+    public int readLine(@Nonnull OboStanza stanza) throws IOException {
+        var end = stanza.getLength();
+        var lineExists = false;
+        while (true) {
+            if (bufferPosition == bufferLimit && !fill()) {
+                return lineExists ? end : -1;
+            }
+            if (skipLineFeed) {
+                skipLineFeed = false;
+                if (buffer[bufferPosition] == '\n') {
+                    bufferPosition++;
+                    continue;
+                }
+            }
+            lineExists = true;
+            var start = bufferPosition;
+            var i = start;
+            var c = '\0';
+            while (i < bufferLimit && (c = buffer[i]) != '\n' && c != '\r') {
+                i++;
+            }
+            var count = i - start;
+            if (count > 0) {
+                var text = stanza.ensureTextCapacity(end - stanza.getLength() + count);
+                System.arraycopy(buffer, start, text, end, count);
+                end += count;
+            }
+            if (i < bufferLimit) {
+                bufferPosition = i + 1;
+                skipLineFeed = c == '\r';
+                return end;
+            }
+            bufferPosition = bufferLimit;
+        }
+    }
+
+    private boolean fill() throws IOException {
+        var read = reader.read(buffer, 0, buffer.length);
+        while (read == 0) {
+            read = reader.read(buffer, 0, buffer.length);
+        }
+        bufferPosition = 0;
+        if (read == -1) {
+            bufferLimit = 0;
+            return false;
+        }
+        bufferLimit = read;
+        return true;
+    }
+
+    @Override
+    public long getLineStartByteOffset() {
+        return -1;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,307 @@
+package edu.stanford.protege.obo;
+
+import org.semanticweb.owlapi.model.EntityType;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLDeclarationAxiom;
+
+import javax.annotation.Nonnull;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An exact set of declared entities that is much more compact than a set of {@link OWLDeclarationAxiom}s.
+ * Each entity is keyed on its entity type and IRI, which are encoded into byte arrays that are shared by
+ * many entries.  An open-addressing table of primitive hashes and addresses points into these arrays, so
+ * there are no per-entry objects.  ASCII chars, which make up almost all OBO IRIs, take one byte each.
+ * Annotations on declarations are ignored, since the declarations that are produced by translation do not
+ * have any.
+ *
+ * The set is divided into segments, each with its own lock, so that translator threads rarely contend.
+ */
+final class CompactDeclarationSet implements DeclarationFilter {
+
+    private static final int SEGMENT_COUNT = 16;
+
+    private static final int STATE_FORMAT = 0x45584354;
+
+    private static final List<EntityType<?>> ENTITY_TYPES = List.copyOf(EntityType.values());
+
+    private final Segment[] segments = new Segment[SEGMENT_COUNT];
+
+    private final LongAdder suppressedCount = new LongAdder();
+
+    CompactDeclarationSet() {
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    @Override
+    public boolean add(@Nonnull OWLDeclarationAxiom declaration) {
+        var entity = declaration.getEntity();
+        var typeCode = typeCode(entity.getEntityType());
+        var iri = entity.getIRI();
+        var hash = hash(typeCode, iri);
+        var segment = segments[(int) (hash >>> 60)];
+        boolean added;
+        synchronized (segment) {
+            added = segment.add(hash, typeCode, iri);
+        }
+        if (!added) {
+            suppressedCount.increment();
+        }
+        return added;
+    }
+
+    @Override
+    public long getSuppressedCount() {
+        return suppressedCount.sum();
+    }
+
+    @Override
+    public void writeState(@Nonnull DataOutput out) throws IOException {
+        out.writeInt(STATE_FORMAT);
+        out.writeInt(SEGMENT_COUNT);
+        out.writeLong(suppressedCount.sum());
+        for (var segment : segments) {
+            synchronized (segment) {
+                segment.writeState(out);
+            }
+        }
+    }
+
+    @Override
+    public void readState(@Nonnull DataInput in) throws IOException {
+        if (in.readInt() != STATE_FORMAT || in.readInt() != SEGMENT_COUNT) {
+            throw new IOException("State was not written by an exact declaration filter");
+        }
+        suppressedCount.add(in.readLong());
+        for (var segment : segments) {
+            synchronized (segment) {
+                segment.readState(in);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of distinct entities in the set.
+     */
+    long size() {
+        var size = 0L;
+        for (var segment : segments) {
+            synchronized (segment) {
+                size += segment.size;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Gets a small non-zero code for an entity type.
+     */
+    static int typeCode(@Nonnull EntityType<?> entityType) {
+        return ENTITY_TYPES.indexOf(entityType) + 1;
+    }
+
+    /**
+     * Hashes an entity type code and IRI to 64 well mixed bits.
+     */
+    static long hash(int typeCode, @Nonnull IRI iri) {
+        // FNV-1a followed by a final avalanche so that the top bits, which select the segment, are well mixed
+        var h = 0xcbf29ce484222325L ^ typeCode;
+        for (int i = 0, length = iri.length(); i < length; i++) {
+            h = (h ^ iri.charAt(i)) * 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * Gets the number of bytes that the IRI occupies once it has been encoded.  ASCII chars are encoded as
+     * one byte with the top bit clear, and other chars as three bytes with the top bit set.
+     */
+    private static int encodedLength(@Nonnull IRI iri) {
+        var length = 0;
+        for (int i = 0, n = iri.length(); i < n; i++) {
+            length += iri.charAt(i) < 0x80 ? 1 : 3;
+        }
+        return length;
+    }
+
+    private static final class Segment {
+
+        private static final int PAGE_SIZE = 1 << 20;
+
+        private static final int INITIAL_CAPACITY = 1024;
+
+        private int[] hashes = new int[INITIAL_CAPACITY];
+
+        /**
+         * The address of each entry plus one, or zero for an empty slot.  An address holds the page index
+         * in the upper 32 bits and the offset in the page in the lower 32 bits.
+         */
+        private long[] addresses = new long[INITIAL_CAPACITY];
+
+        private int size = 0;
+
+        private byte[][] pages = new byte[0][];
+
+        private byte[] currentPage;
+
+        private int currentPageOffset = 0;
+
+        boolean add(long hash, int typeCode, @Nonnull IRI iri) {
+            var encodedLength = encodedLength(iri);
+            var mask = addresses.length - 1;
+            var hash32 = (int) hash;
+            var slot = hash32 & mask;
+            while (addresses[slot] != 0) {
+                if (hashes[slot] == hash32 && matches(addresses[slot] - 1, typeCode, iri, encodedLength)) {
+                    return false;
+                }
+                slot = (slot + 1) & mask;
+            }
+            hashes[slot] = hash32;
+            addresses[slot] = append(typeCode, iri, encodedLength) + 1;
+            size++;
+            if (size * 2 > addresses.length) {
+                resize();
+            }
+            return true;
+        }
+
+        private boolean matches(long address, int typeCode, @Nonnull IRI iri, int encodedLength) {
+            var page = pages[(int) (address >>> 32)];
+            var offset = (int) address;
+            if (page[offset] != typeCode) {
+                return false;
+            }
+            offset++;
+            var storedLength = 0;
+            var shift = 0;
+            byte b;
+            do {
+                b = page[offset++];
+                storedLength |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            if (storedLength != encodedLength) {
+                return false;
+            }
+            for (int i = 0, n = iri.length(); i < n; i++) {
+                var c = iri.charAt(i);
+                if (c < 0x80) {
+                    if (page[offset++] != c) {
+                        return false;
+                    }
+                }
+                else if (page[offset++] != (byte) (0x80 | (c >>> 14))
+                        || page[offset++] != (byte) (0x80 | ((c >>> 7) & 0x7F))
+                        || page[offset++] != (byte) (0x80 | (c & 0x7F))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Writes an entry, consisting of the type code, the varint encoded length and the encoded IRI.
+         * @return The address of the entry.
+         */
+        private long append(int typeCode, @Nonnull IRI iri, int encodedLength) {
+            var entryLength = 1 + 5 + encodedLength;
+            if (currentPage == null || currentPageOffset + entryLength > currentPage.length) {
+                currentPage = new byte[Math.max(PAGE_SIZE, entryLength)];
+                currentPageOffset = 0;
+                pages = Arrays.copyOf(pages, pages.length + 1);
+                pages[pages.length - 1] = currentPage;
+            }
+            var address = ((long) (pages.length - 1) << 32) | currentPageOffset;
+            var page = currentPage;
+            var offset = currentPageOffset;
+            page[offset++] = (byte) typeCode;
+            var remaining = encodedLength;
+            while (remaining >= 0x80) {
+                page[offset++] = (byte) (0x80 | (remaining & 0x7F));
+                remaining >>>= 7;
+            }
+            page[offset++] = (byte) remaining;
+            for (int i = 0, n = iri.length(); i < n; i++) {
+                var c = iri.charAt(i);
+                if (c < 0x80) {
+                    page[offset++] = (byte) c;
+                }
+                else {
+                    page[offset++] = (byte) (0x80 | (c >>> 14));
+                    page[offset++] = (byte) (0x80 | ((c >>> 7) & 0x7F));
+                    page[offset++] = (byte) (0x80 | (c & 0x7F));
+                }
+            }
+            currentPageOffset = offset;
+            return address;
+        }
+
+        void writeState(@Nonnull DataOutput out) throws IOException {
+            out.writeInt(size);
+            out.writeInt(addresses.length);
+            for (int i = 0; i < addresses.length; i++) {
+                out.writeInt(hashes[i]);
+                out.writeLong(addresses[i]);
+            }
+            out.writeInt(pages.length);
+            for (var page : pages) {
+                var used = page == currentPage ? currentPageOffset : page.length;
+                out.writeInt(page.length);
+                out.writeInt(used);
+                out.write(page, 0, used);
+            }
+        }
+
+        void readState(@Nonnull DataInput in) throws IOException {
+            size = in.readInt();
+            var capacity = in.readInt();
+            if (capacity < INITIAL_CAPACITY || Integer.bitCount(capacity) != 1 || size > capacity / 2) {
+                throw new IOException("Invalid declaration set segment");
+            }
+            hashes = new int[capacity];
+            addresses = new long[capacity];
+            for (int i = 0; i < capacity; i++) {
+                hashes[i] = in.readInt();
+                addresses[i] = in.readLong();
+            }
+            pages = new byte[in.readInt()][];
+            for (int i = 0; i < pages.length; i++) {
+                pages[i] = new byte[in.readInt()];
+                currentPageOffset = in.readInt();
+                in.readFully(pages[i], 0, currentPageOffset);
+            }
+            currentPage = pages.length == 0 ? null : pages[pages.length - 1];
+        }
+
+        private void resize() {
+            var oldHashes = hashes;
+            var oldAddresses = addresses;
+            hashes = new int[oldHashes.length * 2];
+            addresses = new long[oldAddresses.length * 2];
+            var mask = addresses.length - 1;
+            for (int i = 0; i < oldAddresses.length; i++) {
+                if (oldAddresses[i] != 0) {
+                    var slot = oldHashes[i] & mask;
+                    while (addresses[slot] != 0) {
+                        slot = (slot + 1) & mask;
+                    }
+                    hashes[slot] = oldHashes[i];
+                    addresses[slot] = oldAddresses[i];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package edu.stanford.protege.obo;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
+import org.apache.commons.compress.compressors.zstandard.ZstdCompressorInputStream;
+import org.tukaani.xz.XZInputStream;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadFactory;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * The compression formats that OBO input is detected in, by the magic bytes at the start of the input.
+ * Gzip and xz are decompressed with the JDK and the xz library that the OWL API depends on.  Bzip2 and
+ * zstd need Apache Commons Compress (and zstd-jni for zstd) on the class path.
+ */
+enum Compression {
+
+    NONE(new byte[0]),
+
+    GZIP(new byte[]{0x1f, (byte) 0x8b}),
+
+    BZIP2(new byte[]{'B', 'Z', 'h'}),
+
+    XZ(new byte[]{(byte) 0xfd, '7', 'z', 'X', 'Z', 0x00}),
+
+    ZSTD(new byte[]{0x28, (byte) 0xb5, 0x2f, (byte) 0xfd});
+
+    /**
+     * The number of bytes that are examined at the start of the input, which covers the magic bytes of all
+     * formats and the extra field of gzip members that record their size.
+     */
+    private static final int HEADER_LENGTH = 64;
+
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+    private static final int READ_AHEAD_BUFFER_SIZE = 4 * 1024 * 1024;
+
+    static final int DEFAULT_THREADS = Runtime.getRuntime().availableProcessors();
+
+    private final byte[] magic;
+
+    Compression(@Nonnull byte[] magic) {
+        this.magic = magic;
+    }
+
+    /**
+     * Detects the compression of the specified bytes, which are the first bytes of some input.
+     */
+    @Nonnull
+    static Compression detect(@Nonnull byte[] header, int length) {
+        for (var compression : values()) {
+            if (compression != NONE && compression.matches(header, length)) {
+                return compression;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * Detects the compression of a file.
+     */
+    @Nonnull
+    static Compression detect(@Nonnull Path path) throws IOException {
+        try (var in = Files.newInputStream(path)) {
+            var header = new byte[HEADER_LENGTH];
+            return detect(header, readHeader(in, header));
+        }
+    }
+
+    /**
+     * Determines whether a file is gzip compressed with members that start and end on stanza boundaries, as
+     * written by {@link StanzaAlignedGzipWriter}.
+     */
+    static boolean isStanzaAlignedGzip(@Nonnull Path path) throws IOException {
+        try (var in = Files.newInputStream(path)) {
+            var header = new byte[HEADER_LENGTH];
+            return GzipMembers.isStanzaAligned(header, readHeader(in, header));
+        }
+    }
+
+    /**
+     * Wraps a stream so that it is decompressed, if it is compressed, using the default number of threads.
+     * @see #decompressing(InputStream, int)
+     */
+    @Nonnull
+    static InputStream decompressing(@Nonnull InputStream in) throws IOException {
+        return decompressing(in, DEFAULT_THREADS);
+    }
+
+    /**
+     * Wraps a stream so that it is decompressed, if it is compressed.  Compressed input is decompressed on a
+     * dedicated daemon thread, which reads up to 4MB ahead.  Multi-member gzip input whose members record
+     * their size, such as BGZF, is decompressed one member per task on a pool of the specified number of
+     * threads.
+     * @return A stream of the uncompressed bytes.  Closing it closes the specified stream.
+     */
+    @Nonnull
+    static InputStream decompressing(@Nonnull InputStream in, int threads) throws IOException {
+        var threadFactory = new ThreadFactoryBuilder().setNameFormat("obo-parser-decompressor-%d")
+                                                      .setDaemon(true)
+                                                      .build();
+        return decompressing(in, threads, READ_AHEAD_BUFFER_SIZE, threadFactory);
+    }
+
+    /**
+     * Wraps a stream so that it is decompressed, if it is compressed.
+     * @param threads The number of threads that decompress members of multi-member gzip input.
+     * @param readAheadBufferSize The size of the ring buffer that other compressed input is decompressed
+     *                            into.
+     * @return A stream of the uncompressed bytes.  Closing it closes the specified stream.
+     */
+    @Nonnull
+    static InputStream decompressing(@Nonnull InputStream in,
+                                     int threads,
+                                     int readAheadBufferSize,
+                                     @Nonnull ThreadFactory threadFactory) throws IOException {
+        var pushbackIn = new PushbackInputStream(in, HEADER_LENGTH);
+        var header = new byte[HEADER_LENGTH];
+        var headerLength = readHeader(pushbackIn, header);
+        pushbackIn.unread(header, 0, headerLength);
+        var compression = detect(header, headerLength);
+        if (compression == NONE) {
+            return pushbackIn;
+        }
+        if (compression == GZIP && GzipMembers.getMemberSize(header, headerLength) != -1) {
+            return new ParallelGzipInputStream(pushbackIn, threads, threadFactory);
+        }
+        return new ReadAheadInputStream(compression.decompress(pushbackIn), readAheadBufferSize, threadFactory);
+    }
+
+    private static int readHeader(@Nonnull InputStream in, @Nonnull byte[] header) throws IOException {
+        var length = 0;
+        while (length < header.length) {
+            var read = in.read(header, length, header.length - length);
+            if (read == -1) {
+                break;
+            }
+            length += read;
+        }
+        return length;
+    }
+
+    private boolean matches(@Nonnull byte[] header, int length) {
+        if (length < magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if (header[i] != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Wraps a stream of compressed bytes in a stream that decompresses them.  Concatenated gzip members and
+     * xz streams are decompressed as one stream.
+     */
+    @Nonnull
+    InputStream decompress(@Nonnull InputStream in) throws IOException {
+        switch (this) {
+            case GZIP:
+                return new GZIPInputStream(in, GZIP_BUFFER_SIZE);
+            case XZ:
+                return new XZInputStream(in);
+            case BZIP2:
+            case ZSTD:
+                try {
+                    return this == BZIP2
+                            ? CommonsCompressStreams.newBZip2Stream(in)
+                            : CommonsCompressStreams.newZstdStream(in);
+                } catch (LinkageError e) {
+                    throw newMissingDependencyException(e);
+                }
+            default:
+                return in;
+        }
+    }
+
+    @Nonnull
+    private IOException newMissingDependencyException(@Nonnull Throwable cause) {
+        return new IOException("The input is " + this + " compressed, which requires Apache Commons Compress"
+                                       + (this == ZSTD ? " and zstd-jni" : "") + " on the class path", cause);
+    }
+
+    /**
+     * Creates the decompressing streams of Commons Compress, which is an optional dependency.  The classes
+     * of Commons Compress are only referred to from here, so that they are only loaded when bzip2 or zstd
+     * input is decompressed.
+     */
+    private static final class CommonsCompressStreams {
+
+        @Nonnull
+        static InputStream newBZip2Stream(@Nonnull InputStream in) throws IOException {
+            // Concatenated streams, as written by pbzip2, are decompressed as one stream
+            return new BZip2CompressorInputStream(in, true);
+        }
+
+        @Nonnull
+        static InputStream newZstdStream(@Nonnull InputStream in) throws IOException {
+            return new ZstdCompressorInputStream(in);
+        }
+    }
+}
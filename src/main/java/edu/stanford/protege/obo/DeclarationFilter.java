@@ -0,0 +1,75 @@
+package edu.stanford.protege.obo;
+
+import org.semanticweb.owlapi.model.OWLDeclarationAxiom;
+
+import javax.annotation.Nonnull;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Decides which declaration axioms are delivered.  A filter is shared by all of the translators of a
+ * parse, so implementations must be thread-safe.
+ */
+interface DeclarationFilter {
+
+    /**
+     * A filter that delivers every declaration.
+     */
+    DeclarationFilter NONE = new DeclarationFilter() {
+        @Override
+        public boolean add(@Nonnull OWLDeclarationAxiom declaration) {
+            return true;
+        }
+
+        @Override
+        public long getSuppressedCount() {
+            return 0;
+        }
+
+        @Override
+        public void writeState(@Nonnull DataOutput out) {
+            // No state
+        }
+
+        @Override
+        public void readState(@Nonnull DataInput in) {
+            // No state
+        }
+    };
+
+    /**
+     * Records a declaration.
+     * @return true if the declaration should be delivered, or false if it is a duplicate of a declaration
+     * that has already been delivered.
+     */
+    boolean add(@Nonnull OWLDeclarationAxiom declaration);
+
+    /**
+     * Gets the number of duplicate declarations that have been suppressed.
+     */
+    long getSuppressedCount();
+
+    /**
+     * Gets the number of duplicate declarations that have been delivered.  This is zero for exact filters and
+     * may be an estimate for filters that trade accuracy for memory.
+     */
+    default long getDeliveredDuplicateCount() {
+        return 0;
+    }
+
+    /**
+     * Writes the declarations that have been recorded, and the counts, so that a parse that is resumed from a
+     * checkpoint suppresses the same declarations as an uninterrupted parse.  Declarations must not be added
+     * while the state is being written.
+     */
+    void writeState(@Nonnull DataOutput out) throws IOException;
+
+    /**
+     * Replaces the state of this filter, which must be empty, with state that was written by
+     * {@link #writeState(DataOutput)} from a filter with the same configuration.
+     * @throws IOException if the state cannot be read or was written by a filter with a different
+     * configuration.
+     */
+    void readState(@Nonnull DataInput in) throws IOException;
+}
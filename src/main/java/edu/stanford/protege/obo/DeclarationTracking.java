@@ -0,0 +1,77 @@
+package edu.stanford.protege.obo;
+
+import javax.annotation.Nonnull;
+import java.util.function.Supplier;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Specifies how a {@link MinimalOboParser} de-duplicates declaration axioms.  Translating a frame declares
+ * the entity that the frame describes as well as every entity that the frame refers to, so without tracking
+ * the same declaration is delivered many times.
+ */
+public final class DeclarationTracking {
+
+    private static final DeclarationTracking NONE = new DeclarationTracking("None", () -> DeclarationFilter.NONE);
+
+    private static final DeclarationTracking EXACT = new DeclarationTracking("Exact", CompactDeclarationSet::new);
+
+    private final String name;
+
+    private final Supplier<DeclarationFilter> filterFactory;
+
+    private DeclarationTracking(@Nonnull String name,
+                                @Nonnull Supplier<DeclarationFilter> filterFactory) {
+        this.name = checkNotNull(name);
+        this.filterFactory = checkNotNull(filterFactory);
+    }
+
+    /**
+     * Every declaration is delivered.  This is the default.
+     */
+    @Nonnull
+    public static DeclarationTracking none() {
+        return NONE;
+    }
+
+    /**
+     * Each distinct declaration is delivered exactly once.  Declared entities are kept in a compact set that
+     * is keyed on entity type and IRI, which grows linearly with the number of distinct entities.
+     */
+    @Nonnull
+    public static DeclarationTracking exact() {
+        return EXACT;
+    }
+
+    /**
+     * Most duplicate declarations are suppressed, using a filter whose memory is fixed up front.  The filter
+     * takes about {@code log2(8 / falsePositiveRate) / 0.95} bits per expected entity, rounded up to a power of
+     * two, so for example 100 million entities at a rate of 0.0001 take about 300MB.  A new entity is mistaken
+     * for a declared one, and its declaration is not delivered, with about the false-positive rate.  If there
+     * are more entities than expected then the filter forgets some of them and duplicates of their declarations
+     * are delivered; the parser logs an estimate of how many.
+     * @param expectedEntities The expected number of distinct declared entities.
+     * @param falsePositiveRate The rate at which new entities are mistaken for declared ones, in (0, 1).
+     */
+    @Nonnull
+    public static DeclarationTracking probabilistic(long expectedEntities, double falsePositiveRate) {
+        checkArgument(expectedEntities > 0, "expectedEntities must be positive");
+        checkArgument(falsePositiveRate > 0 && falsePositiveRate < 1, "falsePositiveRate must be in (0, 1)");
+        return new DeclarationTracking(String.format("Probabilistic, %,d entities, fpp %s", expectedEntities, falsePositiveRate),
+                                       () -> new ProbabilisticDeclarationFilter(expectedEntities, falsePositiveRate));
+    }
+
+    /**
+     * Creates a filter for one parse.
+     */
+    @Nonnull
+    DeclarationFilter createFilter() {
+        return filterFactory.get();
+    }
+
+    @Override
+    public String toString() {
+        return "DeclarationTracking(" + name + ")";
+    }
+}
@@ -0,0 +1,27 @@
+package edu.stanford.protege.obo;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * A Flight Recorder event for a stanza that was slow to read and build into a frame.  Only stanzas that take
+ * longer than the threshold are recorded.
+ */
+@Name("edu.stanford.protege.obo.FrameParse")
+@Label("Slow OBO Frame Parse")
+@Category("OBO Parser")
+@Description("A stanza that took longer than the threshold to read and build into a frame")
+@Threshold("20 ms")
+@StackTrace(false)
+final class FrameParseEvent extends ParseEvent {
+
+    @Label("Frame Type")
+    String frameType;
+
+    @Label("Line Number")
+    long lineNumber;
+}
@@ -0,0 +1,24 @@
+package edu.stanford.protege.obo;
+
+/**
+ * The parser that {@link MinimalOboParser} uses to turn OBO text into frames.
+ */
+public enum FrameParser {
+
+    /**
+     * Parse frames with the OWL API {@link org.obolibrary.oboformat.parser.OBOFormatParser}.
+     */
+    OBO_FORMAT_PARSER,
+
+    /**
+     * Split the input into stanzas with a hand-written lexer and build frames directly from the stanza text.
+     * This creates far fewer intermediate objects than {@link #OBO_FORMAT_PARSER}.  Unless the input is
+     * decoded on a separate thread, the lexer scans the raw UTF-8 bytes of the input and only runs a
+     * charset decoder over lines that contain non-ASCII chars.  Stanzas that use
+     * deprecated or malformed syntax are reparsed with {@link org.obolibrary.oboformat.parser.OBOFormatParser},
+     * so the frames, and any errors, are the same as for {@link #OBO_FORMAT_PARSER}.  The one difference is
+     * that {@link #OBO_FORMAT_PARSER} stops at the first Instance stanza, whereas Instance stanzas are skipped
+     * and parsing continues after them.
+     */
+    STANZA_LEXER
+}
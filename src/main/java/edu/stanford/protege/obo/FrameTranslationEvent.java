@@ -0,0 +1,24 @@
+package edu.stanford.protege.obo;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * A Flight Recorder event for a term frame that was slow to translate into axioms.  Only frames that take
+ * longer than the threshold are recorded.
+ */
+@Name("edu.stanford.protege.obo.FrameTranslation")
+@Label("Slow OBO Frame Translation")
+@Category("OBO Parser")
+@Description("A term frame that took longer than the threshold to translate into axioms")
+@Threshold("20 ms")
+@StackTrace(false)
+final class FrameTranslationEvent extends ParseEvent {
+
+    @Label("Axioms Count")
+    int axiomsCount;
+}
@@ -0,0 +1,246 @@
+package edu.stanford.protege.obo;
+
+import org.obolibrary.oboformat.model.Frame;
+import org.obolibrary.oboformat.model.OBODoc;
+
+import javax.annotation.Nonnull;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Translates term frames into axioms on a set of worker threads.  Frames are handed to the workers in
+ * batches through a bounded queue, so the parser blocks rather than buffering an unbounded number of
+ * frames when translation falls behind.  Each worker has its own translator because
+ * {@link org.obolibrary.obo2owl.OWLAPIObo2Owl} is not thread-safe.
+ */
+final class FrameTranslationPipeline implements AutoCloseable {
+
+    private static final int BATCH_SIZE = 256;
+
+    private static final int QUEUED_BATCHES_PER_WORKER = 4;
+
+    private static final FrameBatch END_OF_FRAMES = new FrameBatch(0);
+
+    private final BlockingQueue<FrameBatch> queue;
+
+    private final List<MinimalObo2Owl> translators = new ArrayList<>();
+
+    private final List<Thread> workers = new ArrayList<>();
+
+    private final Object lock = new Object();
+
+    private FrameBatch batch = new FrameBatch(BATCH_SIZE);
+
+    private long submittedBatches = 0;
+
+    private long translatedBatches = 0;
+
+    private volatile Throwable failure;
+
+    private boolean finished = false;
+
+    FrameTranslationPipeline(@Nonnull OBODoc obodoc,
+                             int translatorThreads,
+                             @Nonnull Supplier<MinimalObo2Owl> translatorFactory,
+                             @Nonnull ThreadFactory threadFactory) {
+        checkNotNull(obodoc);
+        checkArgument(translatorThreads > 0, "translatorThreads must be greater than zero");
+        this.queue = new ArrayBlockingQueue<>(translatorThreads * QUEUED_BATCHES_PER_WORKER);
+        for (int i = 0; i < translatorThreads; i++) {
+            var translator = translatorFactory.get();
+            translator.setObodoc(obodoc);
+            translators.add(translator);
+            workers.add(threadFactory.newThread(() -> translate(translator)));
+        }
+        workers.forEach(Thread::start);
+    }
+
+    /**
+     * Hands a term frame off to be translated by one of the workers.
+     * @param byteOffset The byte offset of the frame's stanza, or -1 if this is not known.
+     */
+    public void translate(@Nonnull Frame termFrame, long byteOffset) {
+        checkFailure();
+        batch.add(termFrame, byteOffset);
+        if (batch.size == BATCH_SIZE) {
+            flush();
+        }
+    }
+
+    /**
+     * Blocks until all frames that have been handed off have been translated.
+     */
+    public void awaitTranslations() {
+        flush();
+        synchronized (lock) {
+            while (translatedBatches < submittedBatches && failure == null) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    throw interrupted();
+                }
+            }
+        }
+        checkFailure();
+    }
+
+    /**
+     * Blocks until all frames that have been handed off have been translated and then delivers any axioms
+     * that the translators are holding on to.  The workers are idle, waiting for more frames, while their
+     * translators are flushed.
+     */
+    public void flushTranslations() {
+        awaitTranslations();
+        translators.forEach(MinimalObo2Owl::flush);
+    }
+
+    /**
+     * Gets the number of axioms that have been delivered by the translators.  This is only exact once the
+     * pipeline has been flushed or finished.
+     */
+    public int getAxiomsCount() {
+        return translators.stream().mapToInt(MinimalObo2Owl::getAxiomsCount).sum();
+    }
+
+    /**
+     * Waits for all frames to be translated and stops the workers.
+     * @return The number of axioms that were generated by the workers.
+     */
+    public int finish() {
+        flush();
+        for (int i = 0; i < workers.size(); i++) {
+            put(END_OF_FRAMES);
+        }
+        for (var worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                throw interrupted();
+            }
+        }
+        finished = true;
+        checkFailure();
+        return getAxiomsCount();
+    }
+
+    private void flush() {
+        if (batch.size == 0) {
+            return;
+        }
+        synchronized (lock) {
+            submittedBatches++;
+        }
+        put(batch);
+        batch = new FrameBatch(BATCH_SIZE);
+    }
+
+    private void put(@Nonnull FrameBatch frames) {
+        var event = new TranslationBackPressureEvent();
+        event.begin();
+        try {
+            // Poll for failures, otherwise we could wait forever on a queue that no worker is taking from
+            while (!queue.offer(frames, 100, TimeUnit.MILLISECONDS)) {
+                checkFailure();
+            }
+        } catch (InterruptedException e) {
+            throw interrupted();
+        }
+        event.end();
+        if (frames.size > 0 && event.shouldCommit()) {
+            event.stanzaId = frames.frames[frames.size - 1].getId();
+            event.byteOffset = frames.byteOffsets[frames.size - 1];
+            event.framesCount = frames.size;
+            event.commit();
+        }
+    }
+
+    private void translate(@Nonnull MinimalObo2Owl translator) {
+        try {
+            while (true) {
+                var frames = queue.take();
+                if (frames == END_OF_FRAMES) {
+                    translator.flush();
+                    return;
+                }
+                for (int i = 0; i < frames.size; i++) {
+                    translator.trTermFrame(frames.frames[i], frames.byteOffsets[i]);
+                }
+                synchronized (lock) {
+                    translatedBatches++;
+                    lock.notifyAll();
+                }
+            }
+        } catch (InterruptedException e) {
+            // Closed before all frames were translated
+        } catch (Throwable t) {
+            synchronized (lock) {
+                if (failure == null) {
+                    failure = t;
+                }
+                lock.notifyAll();
+            }
+        }
+    }
+
+    private void checkFailure() {
+        var t = failure;
+        if (t instanceof RuntimeException) {
+            throw (RuntimeException) t;
+        }
+        if (t instanceof Error) {
+            throw (Error) t;
+        }
+        if (t != null) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    @Nonnull
+    private static UncheckedIOException interrupted() {
+        Thread.currentThread().interrupt();
+        return new UncheckedIOException(new InterruptedIOException("Interrupted while translating frames"));
+    }
+
+    /**
+     * Stops the workers.  Any frames that have not been translated yet are discarded.
+     */
+    @Override
+    public void close() {
+        if (!finished) {
+            workers.forEach(Thread::interrupt);
+        }
+    }
+
+    /**
+     * Term frames, with the byte offsets of their stanzas, that are handed to a worker together.
+     */
+    private static final class FrameBatch {
+
+        private final Frame[] frames;
+
+        private final long[] byteOffsets;
+
+        private int size = 0;
+
+        FrameBatch(int capacity) {
+            this.frames = new Frame[capacity];
+            this.byteOffsets = new long[capacity];
+        }
+
+        void add(@Nonnull Frame frame, long byteOffset) {
+            frames[size] = frame;
+            byteOffsets[size] = byteOffset;
+            size++;
+        }
+    }
+}
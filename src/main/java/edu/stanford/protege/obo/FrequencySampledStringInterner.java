@@ -0,0 +1,77 @@
+package edu.stanford.protege.obo;
+
+import javax.annotation.Nonnull;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Interns strings that occur frequently.  Occurrences are counted in a small sketch of saturating counters
+ * that is indexed by hash code and halved periodically, so strings that are only seen once, such as most
+ * ids of the frames themselves, never take up a place.  Interned strings are held in a direct mapped table,
+ * where a newly frequent string replaces whatever string shared its slot.  Memory use is fixed by the
+ * capacity.
+ */
+final class FrequencySampledStringInterner implements StringInterner {
+
+    private static final int MIN_OCCURRENCES = 2;
+
+    private static final int COUNTERS_PER_SLOT = 4;
+
+    private final String[] table;
+
+    private final byte[] counters;
+
+    private final int agingInterval;
+
+    private int countsSinceAging = 0;
+
+    FrequencySampledStringInterner(int capacity) {
+        checkArgument(capacity > 0, "capacity must be greater than zero");
+        var tableSize = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        this.table = new String[tableSize];
+        this.counters = new byte[tableSize * COUNTERS_PER_SLOT];
+        this.agingInterval = counters.length * 8;
+    }
+
+    @Nonnull
+    @Override
+    public String intern(@Nonnull char[] chars, int start, int length) {
+        var hash = spread(StringInterner.hashCode(chars, start, length));
+        var slot = hash & (table.length - 1);
+        var string = table[slot];
+        if (string != null && StringInterner.contentEquals(string, chars, start, length)) {
+            return string;
+        }
+        string = new String(chars, start, length);
+        if (count(hash) >= MIN_OCCURRENCES) {
+            table[slot] = string;
+        }
+        return string;
+    }
+
+    /**
+     * Counts an occurrence of the string with the specified hash and returns its estimated number of
+     * occurrences.
+     */
+    private int count(int hash) {
+        var index = (hash >>> 7) & (counters.length - 1);
+        var count = counters[index];
+        if (count < Byte.MAX_VALUE) {
+            counters[index] = ++count;
+        }
+        if (++countsSinceAging == agingInterval) {
+            countsSinceAging = 0;
+            for (int i = 0; i < counters.length; i++) {
+                counters[i] >>>= 1;
+            }
+        }
+        return count;
+    }
+
+    private static int spread(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        return h;
+    }
+}
@@ -0,0 +1,229 @@
+package edu.stanford.protege.obo;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Reads the members of multi-member gzip files whose members record their own compressed size in an extra
+ * header field, so that member boundaries can be found without decompressing anything.  Two extra fields
+ * are recognised: the "BC" field of BGZF blocks, and the "OB" field that {@link StanzaAlignedGzipWriter}
+ * writes.  Members with an "OB" field start and end on stanza boundaries, so they can be parsed
+ * independently of each other.
+ */
+final class GzipMembers {
+
+    /**
+     * The length of the fixed part of a member header, up to and including XLEN.
+     */
+    static final int FIXED_HEADER_LENGTH = 12;
+
+    static final byte BGZF_SUBFIELD_ID1 = 'B';
+
+    static final byte BGZF_SUBFIELD_ID2 = 'C';
+
+    static final byte STANZA_ALIGNED_SUBFIELD_ID1 = 'O';
+
+    static final byte STANZA_ALIGNED_SUBFIELD_ID2 = 'B';
+
+    private static final int FHCRC = 2;
+
+    private static final int FEXTRA = 4;
+
+    private static final int FNAME = 8;
+
+    private static final int FCOMMENT = 16;
+
+    private static final int TRAILER_LENGTH = 8;
+
+    /**
+     * The most that deflate can expand compressed data by, which is a 258 byte match for every two bits.
+     */
+    private static final long MAX_DEFLATE_RATIO = 1032;
+
+    private GzipMembers() {
+    }
+
+    /**
+     * Gets the total size of the member whose header is at the start of the specified bytes, from the
+     * "BC" or "OB" extra field.
+     * @return The size, or -1 if the header does not have a size field or is not complete.
+     */
+    static long getMemberSize(@Nonnull byte[] header, int length) {
+        if (length < FIXED_HEADER_LENGTH || header[0] != 0x1f || header[1] != (byte) 0x8b || header[2] != 8
+                || (header[3] & FEXTRA) == 0) {
+            return -1;
+        }
+        var extraEnd = FIXED_HEADER_LENGTH + readUInt16(header, 10);
+        if (extraEnd > length) {
+            return -1;
+        }
+        var pos = FIXED_HEADER_LENGTH;
+        while (pos + 4 <= extraEnd) {
+            var id1 = header[pos];
+            var id2 = header[pos + 1];
+            var subfieldLength = readUInt16(header, pos + 2);
+            var data = pos + 4;
+            if (id1 == BGZF_SUBFIELD_ID1 && id2 == BGZF_SUBFIELD_ID2 && subfieldLength == 2) {
+                return readUInt16(header, data) + 1;
+            }
+            if (id1 == STANZA_ALIGNED_SUBFIELD_ID1 && id2 == STANZA_ALIGNED_SUBFIELD_ID2 && subfieldLength == 4) {
+                return readUInt32(header, data);
+            }
+            pos = data + subfieldLength;
+        }
+        return -1;
+    }
+
+    /**
+     * Determines whether the member whose header is at the start of the specified bytes was written by
+     * {@link StanzaAlignedGzipWriter}.
+     */
+    static boolean isStanzaAligned(@Nonnull byte[] header, int length) {
+        if (getMemberSize(header, length) == -1) {
+            return false;
+        }
+        var extraEnd = FIXED_HEADER_LENGTH + readUInt16(header, 10);
+        for (int pos = FIXED_HEADER_LENGTH; pos + 4 <= extraEnd; pos += 4 + readUInt16(header, pos + 2)) {
+            if (header[pos] == STANZA_ALIGNED_SUBFIELD_ID1 && header[pos + 1] == STANZA_ALIGNED_SUBFIELD_ID2) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Decompresses a complete member, checking its CRC and length.
+     */
+    @Nonnull
+    static byte[] inflate(@Nonnull byte[] member, long memberOffset) throws IOException {
+        var pos = skipHeader(member, memberOffset);
+        var trailer = member.length - TRAILER_LENGTH;
+        if (trailer < pos) {
+            throw new ZipException("Truncated gzip member at offset " + memberOffset);
+        }
+        var expectedCrc = readUInt32(member, trailer);
+        // ISIZE is the size modulo 2^32, which is exact for any member that fits in an array.  It is checked
+        // before it is used to allocate, so that a corrupt trailer cannot ask for more than the member holds.
+        var uncompressedSize = readUInt32(member, trailer + 4);
+        if (uncompressedSize > Integer.MAX_VALUE - 8 || uncompressedSize > (trailer - pos + 1L) * MAX_DEFLATE_RATIO) {
+            throw new ZipException("Corrupt gzip member at offset " + memberOffset + ": invalid size " + uncompressedSize);
+        }
+        var uncompressed = new byte[(int) uncompressedSize];
+        var inflater = new Inflater(true);
+        try {
+            inflater.setInput(member, pos, trailer - pos);
+            var total = 0;
+            while (total < uncompressed.length) {
+                var inflated = inflater.inflate(uncompressed, total, uncompressed.length - total);
+                if (inflated == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                total += inflated;
+            }
+            // The end of the deflate stream may only be seen once all of the output has been produced
+            if (total == uncompressed.length && !inflater.finished() && inflater.inflate(new byte[1]) != 0) {
+                total++;
+            }
+            if (total != uncompressed.length || !inflater.finished()) {
+                throw new ZipException("Corrupt gzip member at offset " + memberOffset + ": size mismatch");
+            }
+        } catch (DataFormatException e) {
+            throw new ZipException("Corrupt gzip member at offset " + memberOffset + ": " + e.getMessage());
+        } finally {
+            inflater.end();
+        }
+        var crc = new CRC32();
+        crc.update(uncompressed, 0, uncompressed.length);
+        if (crc.getValue() != expectedCrc) {
+            throw new ZipException("Corrupt gzip member at offset " + memberOffset + ": CRC mismatch");
+        }
+        return uncompressed;
+    }
+
+    private static int skipHeader(@Nonnull byte[] member, long memberOffset) throws IOException {
+        if (member.length < FIXED_HEADER_LENGTH || member[0] != 0x1f || member[1] != (byte) 0x8b || member[2] != 8) {
+            throw new ZipException("Not a gzip member at offset " + memberOffset);
+        }
+        var flags = member[3];
+        var pos = 10;
+        if ((flags & FEXTRA) != 0) {
+            pos += 2 + readUInt16(member, pos);
+        }
+        if ((flags & FNAME) != 0) {
+            pos = skipZeroTerminated(member, pos);
+        }
+        if ((flags & FCOMMENT) != 0) {
+            pos = skipZeroTerminated(member, pos);
+        }
+        if ((flags & FHCRC) != 0) {
+            pos += 2;
+        }
+        return pos;
+    }
+
+    private static int skipZeroTerminated(@Nonnull byte[] bytes, int pos) {
+        while (pos < bytes.length && bytes[pos] != 0) {
+            pos++;
+        }
+        return pos + 1;
+    }
+
+    /**
+     * Splits a stanza aligned gzip file into at most {@code count} ranges of whole members, with roughly
+     * equal compressed sizes.
+     */
+    @Nonnull
+    static List<ByteRange> split(@Nonnull FileChannel channel, int count) throws IOException {
+        checkArgument(count > 0, "count must be greater than zero");
+        var size = channel.size();
+        var ranges = new ArrayList<ByteRange>(count);
+        var header = ByteBuffer.allocate(64);
+        var start = 0L;
+        var position = 0L;
+        while (position < size) {
+            header.clear();
+            var read = readFully(channel, header, position);
+            var memberSize = getMemberSize(header.array(), read);
+            if (memberSize <= 0) {
+                throw new ZipException("gzip member at offset " + position + " does not record its size");
+            }
+            position += memberSize;
+            if (ranges.size() < count - 1 && position < size && position - start >= (size - start) / (count - ranges.size())) {
+                ranges.add(new ByteRange(start, position));
+                start = position;
+            }
+        }
+        ranges.add(new ByteRange(start, size));
+        return ranges;
+    }
+
+    private static int readFully(@Nonnull FileChannel channel, @Nonnull ByteBuffer buffer, long position) throws IOException {
+        var total = 0;
+        while (buffer.hasRemaining()) {
+            var read = channel.read(buffer, position + total);
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+
+    static int readUInt16(@Nonnull byte[] bytes, int pos) {
+        return (bytes[pos] & 0xFF) | (bytes[pos + 1] & 0xFF) << 8;
+    }
+
+    static long readUInt32(@Nonnull byte[] bytes, int pos) {
+        return (readUInt16(bytes, pos) | (long) readUInt16(bytes, pos + 2) << 16) & 0xFFFFFFFFL;
+    }
+}
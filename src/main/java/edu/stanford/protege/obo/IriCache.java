@@ -0,0 +1,86 @@
+package edu.stanford.protege.obo;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.semanticweb.owlapi.model.IRI;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.function.Function;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A bounded cache of the IRIs that OBO ids translate to.  A handful of ids, such as the parents in is_a
+ * clauses and the targets of relationships, recur throughout a document, and caching them avoids
+ * rebuilding the same IRI string and IRI over and over.  The cache is shared by all of the translators of a
+ * parse, so it is thread-safe.  Eviction is handled by Caffeine, which approximates LRU while favouring
+ * frequently used ids.
+ */
+final class IriCache {
+
+    static final int DEFAULT_MAXIMUM_SIZE = 100_000;
+
+    @Nullable
+    private final Cache<String, IRI> cache;
+
+    /**
+     * @param maximumSize The maximum number of IRIs that are held, or zero to disable caching.
+     */
+    IriCache(int maximumSize) {
+        checkArgument(maximumSize >= 0, "maximumSize must not be negative");
+        if (maximumSize == 0) {
+            cache = null;
+        }
+        else {
+            cache = Caffeine.newBuilder()
+                            .maximumSize(maximumSize)
+                            .executor(Runnable::run)
+                            .recordStats()
+                            .build();
+        }
+    }
+
+    /**
+     * Gets the IRI for an OBO id, translating the id with the specified function if the IRI is not cached.
+     * Two threads may both translate an id that is not cached, in which case one of the equal IRIs is kept.
+     */
+    @Nonnull
+    IRI get(@Nonnull String id, @Nonnull Function<String, IRI> translator) {
+        if (cache == null) {
+            return translator.apply(id);
+        }
+        // Not Cache.get, since translating a relation id can translate the id of its xref, and a nested
+        // computation is not allowed to update the underlying map
+        var iri = cache.getIfPresent(id);
+        if (iri == null) {
+            iri = translator.apply(id);
+            cache.put(id, iri);
+        }
+        return iri;
+    }
+
+    boolean isEnabled() {
+        return cache != null;
+    }
+
+    long getHitCount() {
+        return cache == null ? 0 : cache.stats().hitCount();
+    }
+
+    long getMissCount() {
+        return cache == null ? 0 : cache.stats().missCount();
+    }
+
+    long getEvictionCount() {
+        return cache == null ? 0 : cache.stats().evictionCount();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("IriCache(hits: %,d, misses: %,d, evictions: %,d)",
+                             getHitCount(),
+                             getMissCount(),
+                             getEvictionCount());
+    }
+}
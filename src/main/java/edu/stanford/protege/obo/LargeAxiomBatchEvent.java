@@ -0,0 +1,31 @@
+package edu.stanford.protege.obo;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event for a batch of axioms that is large enough to put pressure on the garbage
+ * collector, usually because a single frame translated into a great many axioms.  The stanza is the last one
+ * whose axioms are in the batch.
+ */
+@Name("edu.stanford.protege.obo.LargeAxiomBatch")
+@Label("Large OBO Axiom Batch")
+@Category("OBO Parser")
+@Description("A batch of axioms that is large enough to put pressure on the garbage collector")
+@StackTrace(false)
+final class LargeAxiomBatchEvent extends ParseEvent {
+
+    /**
+     * Batches that hold this many axioms are recorded, whatever the batch size.
+     */
+    static final int MINIMUM_AXIOMS_COUNT = 100_000;
+
+    @Label("Axioms Count")
+    int axiomsCount;
+
+    @Label("Batch Size")
+    int batchSize;
+}
@@ -0,0 +1,59 @@
+package edu.stanford.protege.obo;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logs progress reports, and the final statistics of a parse, with SLF4J.
+ */
+final class LoggingProgressListener implements ProgressListener {
+
+    static final LoggingProgressListener INSTANCE = new LoggingProgressListener();
+
+    private static final Logger logger = LoggerFactory.getLogger(LoggingProgressListener.class);
+
+    private LoggingProgressListener() {
+    }
+
+    @Override
+    public void onProgress(@Nonnull ParseProgress progress) {
+        if (!logger.isInfoEnabled()) {
+            return;
+        }
+        var runtime = Runtime.getRuntime();
+        var usedMemory = (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024);
+        var percentage = progress.getTotalBytes() > 0 ? (int) (progress.getBytesRead() * 100 / progress.getTotalBytes()) : 0;
+        logger.info(String.format("%,12d axioms  %,11d frames  (Read %,6d MB [%3d%%])  %,9.0f axioms/s  (CPU: %,8d ms)  (Used memory: %,7d MB)",
+                                  progress.getAxiomsCount(),
+                                  progress.getFramesCount(),
+                                  progress.getBytesRead() / (1024 * 1024),
+                                  percentage,
+                                  progress.getAxiomsPerSecond(),
+                                  progress.getCpuTimeMillis(),
+                                  usedMemory));
+    }
+
+    @Override
+    public void onFinished(@Nonnull ParseStatisticsReport report) {
+        if (!logger.isInfoEnabled()) {
+            return;
+        }
+        logger.info(String.format("Parsed %,d frames into %,d axioms in %,d ms",
+                                  report.getFramesCount(),
+                                  report.getAxiomsCount(),
+                                  TimeUnit.NANOSECONDS.toMillis(report.getElapsedNanos())));
+        if (!report.isDetailed()) {
+            return;
+        }
+        logger.info(String.format("Time in frame parsing: %,d ms  translation: %,d ms  consumer: %,d ms",
+                                  TimeUnit.NANOSECONDS.toMillis(report.getParseNanos()),
+                                  TimeUnit.NANOSECONDS.toMillis(report.getTranslationNanos()),
+                                  TimeUnit.NANOSECONDS.toMillis(report.getConsumerNanos())));
+        logger.info("Frames by type: {}", report.getFramesCountByType());
+        logger.info("Axioms by type: {}", report.getAxiomsCountByType());
+        logger.info("Clauses by tag: {}", report.getClausesCountByTag());
+    }
+}
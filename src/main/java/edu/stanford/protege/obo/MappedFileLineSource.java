@@ -0,0 +1,207 @@
+package edu.stanford.protege.obo;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Reads lines of UTF-8 encoded text from a range of a memory-mapped file.  The file is mapped in windows
+ * because a single {@link MappedByteBuffer} cannot be larger than 2GB.  When a line runs off the end of a
+ * window the next window is mapped starting at the beginning of that line, so lines are always contiguous.
+ * Lines are decoded straight from the mapped pages into the stanza text, in the same way as
+ * {@link Utf8LineSource}; there are no intermediate stream buffers.
+ *
+ * The channel is not closed by this source.
+ */
+final class MappedFileLineSource implements OboLineSource {
+
+    static final int DEFAULT_WINDOW_SIZE = 256 * 1024 * 1024;
+
+    private final FileChannel channel;
+
+    private final long start;
+
+    private long end;
+
+    private final int windowSize;
+
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                                                                 .onMalformedInput(CodingErrorAction.REPLACE)
+                                                                 .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    private MappedByteBuffer window;
+
+    /**
+     * The offset in the file of the first byte in the window
+     */
+    private long windowStart;
+
+    private int position = 0;
+
+    private boolean skipLineFeed = false;
+
+    private long lineStartByteOffset = -1;
+
+    /**
+     * Creates a line source for the bytes of the file from {@code start} (inclusive) to {@code end}
+     * (exclusive).
+     */
+    MappedFileLineSource(@Nonnull FileChannel channel,
+                         long start,
+                         long end,
+                         int windowSize) throws IOException {
+        checkArgument(start >= 0 && start <= end, "Invalid range [%s, %s)", start, end);
+        checkArgument(windowSize > 0, "windowSize must be greater than zero");
+        this.channel = checkNotNull(channel);
+        this.start = start;
+        this.end = end;
+        this.windowSize = windowSize;
+        this.windowStart = start;
+        this.window = map(start, (int) Math.min(windowSize, end - start));
+    }
+
+    @Override
+    public int readLine(@Nonnull OboStanza stanza) throws IOException {
+        if (skipLineFeed) {
+            skipLineFeed = false;
+            if ((position < window.limit() || nextWindow()) && window.get(position) == '\n') {
+                position++;
+            }
+        }
+        var scanned = 0;
+        int lineEnd;
+        while (true) {
+            var limit = window.limit();
+            var i = position + scanned;
+            while (i < limit) {
+                var b = window.get(i);
+                if (b == '\n' || b == '\r') {
+                    break;
+                }
+                i++;
+            }
+            scanned = i - position;
+            if (i < limit) {
+                lineEnd = i;
+                break;
+            }
+            if (!nextWindow()) {
+                if (scanned == 0) {
+                    return -1;
+                }
+                lineEnd = limit;
+                break;
+            }
+        }
+        lineStartByteOffset = windowStart + position;
+        var lineTextEnd = decode(position, lineEnd, stanza);
+        if (lineEnd < window.limit()) {
+            skipLineFeed = window.get(lineEnd) == '\r';
+            position = lineEnd + 1;
+        }
+        else {
+            position = lineEnd;
+        }
+        return lineTextEnd;
+    }
+
+    private int decode(int from, int to, @Nonnull OboStanza stanza) {
+        // UTF-8 never decodes to more chars than bytes
+        var text = stanza.ensureTextCapacity(to - from);
+        var out = stanza.getLength();
+        var i = from;
+        byte b;
+        while (i < to && (b = window.get(i)) >= 0) {
+            text[out++] = (char) b;
+            i++;
+        }
+        if (i < to) {
+            var bytes = window.duplicate();
+            bytes.position(i).limit(to);
+            var chars = CharBuffer.wrap(text, out, text.length - out);
+            decoder.reset();
+            decoder.decode(bytes, chars, true);
+            decoder.flush(chars);
+            out = chars.position();
+        }
+        return out;
+    }
+
+    /**
+     * Maps the next window, starting at the current position.  If the unread part of the current window
+     * is as large as a window then the new window is made larger so that progress is made on very long
+     * lines.
+     * @return false if the current window already extends to the end of the range.
+     */
+    private boolean nextWindow() throws IOException {
+        var newStart = windowStart + position;
+        var unread = window.limit() - position;
+        if (newStart + unread >= end) {
+            return false;
+        }
+        var newSize = Math.min(end - newStart, Math.max((long) windowSize, unread * 2L));
+        if (newSize > Integer.MAX_VALUE) {
+            throw new IOException("Line at byte offset " + newStart + " is too long to be mapped");
+        }
+        window = map(newStart, (int) newSize);
+        windowStart = newStart;
+        position = 0;
+        return true;
+    }
+
+    @Nonnull
+    private MappedByteBuffer map(long offset, int size) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, offset, size);
+    }
+
+    /**
+     * Gets the offset in the file of the next byte to be read.
+     */
+    long getPosition() {
+        return windowStart + position;
+    }
+
+    /**
+     * Gets the offset in the file of the end (exclusive) of the range.
+     */
+    long getEnd() {
+        return end;
+    }
+
+    /**
+     * Moves the end of the range back so that the bytes after the new end are not read.
+     * @param newEnd The new end.  This must not be before the current position or after the current end.
+     */
+    void truncate(long newEnd) {
+        checkArgument(newEnd >= getPosition() && newEnd <= end, "Invalid new end %s", newEnd);
+        end = newEnd;
+        if (windowStart + window.limit() > newEnd) {
+            window.limit((int) (newEnd - windowStart));
+        }
+    }
+
+    /**
+     * Gets the number of bytes of the range that have been read.
+     */
+    long getBytesRead() {
+        return windowStart + position - start;
+    }
+
+    @Override
+    public long getLineStartByteOffset() {
+        return lineStartByteOffset;
+    }
+
+    @Override
+    public void close() {
+        // The channel belongs to the caller
+    }
+}
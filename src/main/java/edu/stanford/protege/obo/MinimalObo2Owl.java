@@ -0,0 +1,191 @@
+package edu.stanford.protege.obo;
+
+import org.obolibrary.obo2owl.OWLAPIObo2Owl;
+import org.obolibrary.oboformat.model.Frame;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLClassExpression;
+import org.semanticweb.owlapi.model.OWLDeclarationAxiom;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Matthew Horridge
+ * Stanford Center for Biomedical Informatics Research
+ * 2020-11-03
+ * @noinspection UnstableApiUsage
+ */
+class MinimalObo2Owl extends OWLAPIObo2Owl {
+
+    private int counter = 0;
+
+    private final AxiomBatchConsumer csvExporter;
+
+    private final int batchSize;
+
+    private final List<OWLAxiom> batch;
+
+    private final DeclarationFilter declarationFilter;
+
+    private final IriCache iriCache;
+
+    private final ProgressTracker progressTracker;
+
+    private final boolean detailedStatistics;
+
+    /**
+     * Time spent translating frames that has not been added to the tracker yet.
+     */
+    private long translationNanos = 0;
+
+    /**
+     * The last frame that was translated, and the byte offset of its stanza, which tag Flight Recorder events
+     * for batches.
+     */
+    private Frame lastFrame;
+
+    private long lastByteOffset = -1;
+
+    private final Function<String, IRI> iriTranslator = this::oboIdToIRI_load;
+
+    public MinimalObo2Owl(@Nonnull AxiomBatchConsumer csvExporter,
+                          int batchSize,
+                          @Nonnull TranslationContext context) {
+        super(OWLManager.createOWLOntologyManager());
+        this.csvExporter = csvExporter;
+        this.batchSize = batchSize;
+        this.batch = new ArrayList<>(Math.min(batchSize, 1024) + 16);
+        this.declarationFilter = context.getDeclarationFilter();
+        this.iriCache = context.getIriCache();
+        this.progressTracker = context.getProgressTracker();
+        this.detailedStatistics = progressTracker.isDetailed();
+    }
+
+    @Override
+    protected void add(Set<OWLAxiom> axioms) {
+        if (axioms != null) {
+            axioms.forEach(this::add);
+        }
+    }
+
+    @Override
+    protected void add(OWLAxiom axiom) {
+        if (axiom instanceof OWLDeclarationAxiom) {
+            if (declarationFilter.add((OWLDeclarationAxiom) axiom)) {
+                addAxiom(axiom);
+            }
+        }
+        else {
+            addAxiom(axiom);
+        }
+    }
+
+    private void addAxiom(OWLAxiom axiom) {
+        batch.add(axiom);
+    }
+
+    @Override
+    public OWLClassExpression trTermFrame(Frame termFrame) {
+        return trTermFrame(termFrame, -1);
+    }
+
+    /**
+     * Translates a term frame whose stanza starts at the specified byte offset, which tags the Flight Recorder
+     * events for the frame.
+     * @param byteOffset The byte offset, or -1 if this is not known.
+     */
+    public OWLClassExpression trTermFrame(Frame termFrame, long byteOffset) {
+        var event = new FrameTranslationEvent();
+        var axiomsCount = batch.size();
+        event.begin();
+        OWLClassExpression cls;
+        if (detailedStatistics) {
+            var start = System.nanoTime();
+            cls = super.trTermFrame(termFrame);
+            translationNanos += System.nanoTime() - start;
+        }
+        else {
+            cls = super.trTermFrame(termFrame);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.stanzaId = termFrame.getId();
+            event.byteOffset = byteOffset;
+            event.axiomsCount = batch.size() - axiomsCount;
+            event.commit();
+        }
+        lastFrame = termFrame;
+        lastByteOffset = byteOffset;
+        if (batch.size() >= batchSize) {
+            flush();
+        }
+        return cls;
+    }
+
+    /**
+     * Delivers any axioms that have not been delivered yet.  This must be called once the last frame has
+     * been translated.
+     */
+    public void flush() {
+        if (batch.isEmpty()) {
+            if (translationNanos != 0) {
+                progressTracker.addTranslationNanos(translationNanos, 0);
+                translationNanos = 0;
+            }
+            return;
+        }
+        counter += batch.size();
+        var event = new AxiomBatchEvent();
+        event.begin();
+        if (detailedStatistics) {
+            var start = System.nanoTime();
+            csvExporter.accept(batch);
+            progressTracker.addTranslationNanos(translationNanos, System.nanoTime() - start);
+            translationNanos = 0;
+        }
+        else {
+            csvExporter.accept(batch);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.stanzaId = lastFrame != null ? lastFrame.getId() : null;
+            event.byteOffset = lastByteOffset;
+            event.axiomsCount = batch.size();
+            event.commit();
+        }
+        if (batch.size() >= LargeAxiomBatchEvent.MINIMUM_AXIOMS_COUNT) {
+            commitLargeBatchEvent();
+        }
+        progressTracker.delivered(batch);
+        batch.clear();
+    }
+
+    private void commitLargeBatchEvent() {
+        var event = new LargeAxiomBatchEvent();
+        if (event.isEnabled()) {
+            event.stanzaId = lastFrame != null ? lastFrame.getId() : null;
+            event.byteOffset = lastByteOffset;
+            event.axiomsCount = batch.size();
+            event.batchSize = batchSize;
+            event.commit();
+        }
+    }
+
+    /**
+     * Gets the number of axioms that have been delivered.
+     */
+    public int getAxiomsCount() {
+        return counter;
+    }
+
+    @Nonnull
+    @Override
+    public IRI oboIdToIRI(@Nonnull String id) {
+        return iriCache.get(id, iriTranslator);
+    }
+}
@@ -0,0 +1,169 @@
+package edu.stanford.protege.obo;
+
+import org.obolibrary.oboformat.model.Frame;
+import org.obolibrary.oboformat.model.FrameMergeException;
+import org.obolibrary.oboformat.model.OBODoc;
+
+import javax.annotation.Nonnull;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.ObjLongConsumer;
+import java.util.function.IntSupplier;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Matthew Horridge
+ * Stanford Center for Biomedical Informatics Research
+ * 2020-11-03
+ */
+class MinimalOboDoc extends OBODoc {
+
+    /**
+     * The number of frames between additions of clause counts to the tracker.
+     */
+    private static final int CLAUSE_COUNTS_INTERVAL = 4096;
+
+    private final ProgressTracker progressTracker;
+
+    private final boolean detailedStatistics;
+
+    /**
+     * Clause counts, by tag, that have not been added to the tracker yet.
+     */
+    private final Map<String, long[]> clausesCountByTag = new HashMap<>();
+
+    private int framesSinceClauseCounts = 0;
+
+    private long addFrameNanos = 0;
+
+    private boolean countingFrames = true;
+
+    private ObjLongConsumer<Frame> termFrameTranslator = (frame, byteOffset) -> {};
+
+    private Runnable typedefFrameBarrier = () -> {};
+
+    private Runnable translationFlush = () -> {};
+
+    private IntSupplier axiomsCount = () -> 0;
+
+    public MinimalOboDoc() {
+        this(ProgressTracker.NONE);
+    }
+
+    /**
+     * Creates a document that counts the frames that are added to it with the specified tracker.
+     */
+    public MinimalOboDoc(@Nonnull ProgressTracker progressTracker) {
+        this.progressTracker = checkNotNull(progressTracker);
+        this.detailedStatistics = progressTracker.isDetailed();
+    }
+
+    public void setTranslator(MinimalObo2Owl translator) {
+        this.termFrameTranslator = translator::trTermFrame;
+        this.typedefFrameBarrier = () -> {};
+        this.translationFlush = translator::flush;
+        this.axiomsCount = translator::getAxiomsCount;
+    }
+
+    /**
+     * Hands term frames off to the specified pipeline for translation.  The translation of a term frame
+     * may look up Typedef frames in this document, so the pipeline is drained before a Typedef frame is
+     * added.  This means that each term frame is translated against the same Typedef frames as it would
+     * be if it was translated as soon as it was parsed.
+     */
+    public void setTranslationPipeline(FrameTranslationPipeline pipeline) {
+        this.termFrameTranslator = pipeline::translate;
+        this.typedefFrameBarrier = pipeline::awaitTranslations;
+        this.translationFlush = pipeline::flushTranslations;
+        this.axiomsCount = pipeline::getAxiomsCount;
+    }
+
+    /**
+     * Sets whether the frames that are added are counted by the progress tracker.  Frames that precede the
+     * part of a file that is being parsed, and that are only read so that translation can look them up, are
+     * not counted, so that the counts of parses of the parts of a file add up to the counts for the file.
+     */
+    public void setCountingFrames(boolean countingFrames) {
+        this.countingFrames = countingFrames;
+    }
+
+    /**
+     * Translates all of the term frames that have been added so far and delivers their axioms.
+     */
+    public void flushTranslations() {
+        translationFlush.run();
+    }
+
+    /**
+     * Gets the number of axioms that have been delivered.  This only includes all of the axioms of the frames
+     * that have been added so far once {@link #flushTranslations()} has been called.
+     */
+    public int getAxiomsCount() {
+        return axiomsCount.getAsInt();
+    }
+
+    /**
+     * Records the statistics of the frames that have been added, once they have all been read.
+     * @param readNanos The time that was spent reading and adding the frames.  The time that was spent in
+     * {@link #addFrame(Frame)}, handing frames off for translation, is subtracted to give the parse time.
+     */
+    public void finishReading(long readNanos) {
+        if (detailedStatistics) {
+            progressTracker.addClauseCounts(clausesCountByTag);
+            progressTracker.addParseNanos(Math.max(0, readNanos - addFrameNanos));
+            framesSinceClauseCounts = 0;
+            addFrameNanos = 0;
+        }
+    }
+
+    @Override
+    public void addFrame(@Nonnull Frame f) throws FrameMergeException {
+        addFrame(f, -1);
+    }
+
+    /**
+     * Adds a frame whose stanza starts at the specified byte offset, which tags the Flight Recorder events for
+     * the frame's translation.
+     * @param byteOffset The byte offset, or -1 if this is not known.
+     */
+    public void addFrame(@Nonnull Frame f, long byteOffset) throws FrameMergeException {
+        if (!countingFrames) {
+            addFrameToTranslation(f, byteOffset);
+            return;
+        }
+        progressTracker.frameAdded(f.getType());
+        if (detailedStatistics) {
+            countClauses(f);
+            var start = System.nanoTime();
+            addFrameToTranslation(f, byteOffset);
+            addFrameNanos += System.nanoTime() - start;
+        }
+        else {
+            addFrameToTranslation(f, byteOffset);
+        }
+    }
+
+    private void countClauses(@Nonnull Frame f) {
+        for (var clause : f.getClauses()) {
+            var tag = clause.getTag();
+            if (tag != null) {
+                clausesCountByTag.computeIfAbsent(tag, t -> new long[1])[0]++;
+            }
+        }
+        if (++framesSinceClauseCounts == CLAUSE_COUNTS_INTERVAL) {
+            progressTracker.addClauseCounts(clausesCountByTag);
+            framesSinceClauseCounts = 0;
+        }
+    }
+
+    private void addFrameToTranslation(@Nonnull Frame f, long byteOffset) throws FrameMergeException {
+        if (f.getType().equals(Frame.FrameType.TYPEDEF)) {
+            typedefFrameBarrier.run();
+            super.addFrame(f);
+        }
+        if (f.getType().equals(Frame.FrameType.TERM)) {
+            termFrameTranslator.accept(f, byteOffset);
+        }
+    }
+}
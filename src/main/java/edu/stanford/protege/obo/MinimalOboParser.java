@@ -1,36 +1,43 @@
 package edu.stanford.protege.obo;
 
-import com.github.benmanes.caffeine.cache.LoadingCache;
-import com.github.benmanes.caffeine.cache.Policy;
-import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import com.google.common.base.Stopwatch;
-import com.google.common.collect.Sets;
+import com.google.common.base.Throwables;
+import com.google.common.io.ByteStreams;
 import com.google.common.io.CountingInputStream;
-import org.obolibrary.obo2owl.OWLAPIObo2Owl;
-import org.obolibrary.oboformat.model.Frame;
-import org.obolibrary.oboformat.model.FrameMergeException;
-import org.obolibrary.oboformat.model.OBODoc;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.obolibrary.oboformat.parser.OBOFormatParser;
-import org.semanticweb.owlapi.apibinding.OWLManager;
-import org.semanticweb.owlapi.model.IRI;
 import org.semanticweb.owlapi.model.OWLAxiom;
-import org.semanticweb.owlapi.model.OWLDeclarationAxiom;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
 import java.io.*;
 import java.lang.management.ManagementFactory;
-import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.ConcurrentMap;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
-import java.util.function.Function;
-import java.util.stream.Stream;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
@@ -43,254 +50,812 @@ public class MinimalOboParser {
 
     private final static Logger logger = LoggerFactory.getLogger(MinimalOboParser.class);
 
-    private final Consumer<OWLAxiom> axiomConsumer;
+    private static final int READ_AHEAD_CHUNK_SIZE = 64 * 1024;
 
+    private static final int READ_AHEAD_CHUNKS = 16;
+
+    private static final long DEFAULT_CHECKPOINT_INTERVAL = 1024L * 1024 * 1024;
+
+    private static final String JMX_DOMAIN = "edu.stanford.protege.obo";
+
+    private static final AtomicInteger parseCounter = new AtomicInteger();
+
+    private final AxiomBatchConsumer axiomBatchConsumer;
+
+    private final int batchSize;
+
+    private int pipelineTranslatorThreads = 0;
+
+    private FrameParser frameParser = FrameParser.STANZA_LEXER;
+
+    private DeclarationTracking declarationTracking = DeclarationTracking.none();
+
+    private int iriCacheSize = IriCache.DEFAULT_MAXIMUM_SIZE;
+
+    private StringInterning stringInterning = StringInterning.none();
+
+    private int decompressionThreads = Compression.DEFAULT_THREADS;
+
+    @Nullable
+    private Path checkpointFile = null;
+
+    private long checkpointInterval = DEFAULT_CHECKPOINT_INTERVAL;
+
+    private ProgressListener progressListener = ProgressListener.logging();
+
+    private ProgressInterval progressInterval = ProgressInterval.everyAxioms(1_000_000);
+
+    private boolean jmxEnabled = false;
+
+    private boolean detailedStatistics = false;
 
     public MinimalOboParser(Consumer<OWLAxiom> axiomConsumer) {
-        this.axiomConsumer = checkNotNull(axiomConsumer);
+        checkNotNull(axiomConsumer);
+        this.axiomBatchConsumer = axioms -> axioms.forEach(axiomConsumer);
+        this.batchSize = 1;
     }
 
-    public void parse(@Nonnull InputStream inputStream) throws IOException {
-        parse(inputStream, -1);
+    /**
+     * Creates a parser that delivers axioms in batches.  Batches only contain the axioms of whole frames: a
+     * batch is delivered as soon as it holds at least {@code batchSize} axioms, so batches may be slightly
+     * larger than the batch size, and a batch size of one delivers the axioms of each frame as one batch.
+     * @param axiomBatchConsumer The consumer that receives the batches.
+     * @param batchSize The minimum number of axioms in each batch, apart from the last one.
+     */
+    public MinimalOboParser(@Nonnull AxiomBatchConsumer axiomBatchConsumer, int batchSize) {
+        checkArgument(batchSize > 0, "batchSize must be greater than zero");
+        this.axiomBatchConsumer = checkNotNull(axiomBatchConsumer);
+        this.batchSize = batchSize;
     }
 
-    public void parse(@Nonnull InputStream inputStream,
-                      long streamLength) throws IOException {
-        var in = inputStream instanceof CountingInputStream ? (CountingInputStream) inputStream : new CountingInputStream(inputStream);
-
-        var csvTranslator = new MinimalObo2Owl(in, axiomConsumer, streamLength, false);
+    /**
+     * Enables or disables pipelined parsing.  In pipelined mode characters are decoded on one thread,
+     * frames are parsed on the calling thread and frames are translated into axioms on a pool of translator
+     * threads, with bounded hand-off queues between each stage.  The axiom consumer is called from the
+     * translator threads, so it must be thread-safe if more than one translator thread is used.  With more
+     * than one translator thread axioms from different frames may be delivered out of document order.
+     * @param translatorThreads The number of translator threads, or zero to decode, parse and translate on the
+     *                          calling thread (the default).
+     */
+    public void setPipelineTranslatorThreads(int translatorThreads) {
+        checkArgument(translatorThreads >= 0, "translatorThreads must not be negative");
+        this.pipelineTranslatorThreads = translatorThreads;
+    }
 
-        var sw = Stopwatch.createStarted();
+    /**
+     * Sets the parser that is used to turn OBO text into frames.  The default is
+     * {@link FrameParser#STANZA_LEXER}.
+     */
+    public void setFrameParser(@Nonnull FrameParser frameParser) {
+        this.frameParser = checkNotNull(frameParser);
+    }
 
-        var oboParser = new OBOFormatParser();
-        replaceStringCacheWithNoOpCache(oboParser);
-        var bufferedReader = new BufferedReader(new InputStreamReader(in));
-        oboParser.setReader(bufferedReader);
+    /**
+     * Sets how declaration axioms are de-duplicated.  The default is {@link DeclarationTracking#none()}.
+     */
+    public void setDeclarationTracking(@Nonnull DeclarationTracking declarationTracking) {
+        this.declarationTracking = checkNotNull(declarationTracking);
+    }
 
-        var obodoc = new MinimalOboDoc();
-        obodoc.setTranslator(csvTranslator);
-        csvTranslator.setObodoc(obodoc);
-        oboParser.parseOBODoc(obodoc);
+    /**
+     * Sets the maximum number of OBO id to IRI translations that are cached during a parse.  Ids that recur,
+     * such as is_a parents, then resolve to the same IRI without rebuilding it.  The default is 100,000.
+     * @param iriCacheSize The maximum number of cached IRIs, or zero to disable the cache.
+     */
+    public void setIriCacheSize(int iriCacheSize) {
+        checkArgument(iriCacheSize >= 0, "iriCacheSize must not be negative");
+        this.iriCacheSize = iriCacheSize;
+    }
 
-        logger.info("Time: %,dms\n", sw.elapsed(TimeUnit.MILLISECONDS));
-        logger.info("Axioms: %,d\n", +csvTranslator.getAxiomsCount());
+    /**
+     * Sets how the tag names and ids that are read by the {@link FrameParser#STANZA_LEXER} are interned.  The
+     * default is {@link StringInterning#none()}.  The {@link FrameParser#OBO_FORMAT_PARSER} always uses the
+     * OWL API's own string cache.
+     */
+    public void setStringInterning(@Nonnull StringInterning stringInterning) {
+        this.stringInterning = checkNotNull(stringInterning);
+    }
 
-        bufferedReader.close();
+    /**
+     * Sets the number of threads that decompress multi-member gzip input whose members record their size,
+     * such as BGZF files and the files that {@link StanzaAlignedGzipWriter} writes.  Members are decompressed
+     * in parallel but parsed in order.  The default is the number of available processors.
+     */
+    public void setDecompressionThreads(int decompressionThreads) {
+        checkArgument(decompressionThreads > 0, "decompressionThreads must be greater than zero");
+        this.decompressionThreads = decompressionThreads;
     }
 
-    private void replaceStringCacheWithNoOpCache(OBOFormatParser parser) {
-        try {
-            var parserClass = parser.getClass();
-            var stringCache = Stream.of(parserClass.getDeclaredFields())
-                                    .filter(field -> field.getName().equals("stringCache"))
-                                    .findFirst()
-                                    .orElseThrow();
-            stringCache.setAccessible(true);
-            stringCache.set(parser, new NoOpLoadingCache());
-        } catch (IllegalAccessException e) {
-            logger.warn(
-                    "WARN: Unable to replace LoadingCache with No-op Cache. This will cause the loading to be slower.");
-        }
+    /**
+     * Sets the file that {@link #parse(Path)} writes checkpoints to, so that a parse that is interrupted can be
+     * resumed.  If the checkpoint file exists when a parse starts then the parse resumes from the stanza after
+     * the checkpoint: axioms for the stanzas before it are not delivered again and, with declaration
+     * tracking, nor are the declarations that were delivered before it.  Axioms that were delivered after the
+     * last checkpoint are delivered again, so the axiom consumer should be idempotent.  The checkpoint file is
+     * deleted once the parse has finished.
+     *
+     * Checkpoints are only written for uncompressed files that are parsed with the
+     * {@link FrameParser#STANZA_LEXER}, since the parse must be able to seek to a stanza.  They are not
+     * written by {@link #parse(Path, int)}.
+     * @param checkpointFile The checkpoint file, or null to disable checkpoints (the default).
+     */
+    public void setCheckpointFile(@Nullable Path checkpointFile) {
+        this.checkpointFile = checkpointFile;
     }
 
-    private static class MinimalObo2Owl extends OWLAPIObo2Owl {
+    /**
+     * Sets the number of bytes of input that are parsed between checkpoints.  Each checkpoint waits for
+     * translation to catch up and writes out the state of the declaration tracking, which may be large, so
+     * checkpoints should not be too frequent.  The default is 1GB.
+     */
+    public void setCheckpointInterval(long checkpointInterval) {
+        checkArgument(checkpointInterval > 0, "checkpointInterval must be greater than zero");
+        this.checkpointInterval = checkpointInterval;
+    }
 
-        private final AtomicInteger counter = new AtomicInteger();
+    /**
+     * Sets the listener that progress is reported to.  The default is {@link ProgressListener#logging()}.  Use
+     * {@link ProgressListener#none()} to turn off progress tracking altogether.
+     */
+    public void setProgressListener(@Nonnull ProgressListener progressListener) {
+        this.progressListener = checkNotNull(progressListener);
+    }
 
-        private final CountingInputStream countingInputStream;
+    /**
+     * Sets how often progress is reported.  The default is {@link ProgressInterval#everyAxioms(long)} with
+     * 1,000,000 axioms.
+     */
+    public void setProgressInterval(@Nonnull ProgressInterval progressInterval) {
+        this.progressInterval = checkNotNull(progressInterval);
+    }
 
-        private final long fileSize;
+    /**
+     * Enables or disables live statistics over JMX.  When enabled, each parse registers a
+     * {@link ParseStatisticsMXBean} with the platform MBean server and unregisters it once the parse has
+     * finished.  Counting axioms by type costs a little for every axiom, so this is disabled by default.
+     */
+    public void setJmxEnabled(boolean jmxEnabled) {
+        this.jmxEnabled = jmxEnabled;
+    }
 
-        private final Consumer<OWLAxiom> csvExporter;
+    /**
+     * Enables or disables detailed statistics: counts of axioms by type and clauses by tag, and the time that
+     * is spent parsing frames, translating them and in the axiom consumer.  These are reported to the progress
+     * listener with {@link ProgressListener#onFinished(ParseStatisticsReport)} once a parse has finished, and
+     * are also kept when JMX is enabled.  Counts and times are accumulated per thread, so the cost is small
+     * even with parallel translation, but it is not free, so this is disabled by default.
+     */
+    public void setDetailedStatistics(boolean detailedStatistics) {
+        this.detailedStatistics = detailedStatistics;
+    }
 
-        private final boolean isTrackingDeclaration;
+    public void parse(@Nonnull InputStream inputStream) throws IOException {
+        parse(inputStream, -1);
+    }
 
-        private final Set<OWLDeclarationAxiom> declarationCache = Sets.newHashSet();
+    /**
+     * Parses a stream of OBO text.  Input that is gzip, bzip2, xz or zstd compressed is detected by its magic
+     * bytes and decompressed on a separate thread.
+     * @param inputStream The stream, which is closed once it has been parsed.
+     * @param streamLength The length of the stream, before any decompression, or -1 if this is not known.  It
+     *                     is only used to log progress.
+     */
+    public void parse(@Nonnull InputStream inputStream,
+                      long streamLength) throws IOException {
+        var in = inputStream instanceof CountingInputStream ? (CountingInputStream) inputStream : new CountingInputStream(inputStream);
 
-        private long ts = ManagementFactory.getThreadMXBean().getCurrentThreadUserTime();
+        var sw = Stopwatch.createStarted();
 
-        public MinimalObo2Owl(@Nonnull CountingInputStream countingInputStream,
-                              @Nonnull Consumer<OWLAxiom> csvExporter,
-                              long fileSize,
-                              boolean isTrackingDeclaration) {
-            super(OWLManager.createOWLOntologyManager());
-            this.countingInputStream = countingInputStream;
-            this.csvExporter = csvExporter;
-            this.fileSize = fileSize;
-            this.isTrackingDeclaration = isTrackingDeclaration;
+        var context = newTranslationContext();
+        int axiomsCount;
+        var registration = registerStatistics("stream", context);
+        try {
+            axiomsCount = parseFrames(in, streamLength, decompressionThreads, context);
+        } finally {
+            registration.close();
         }
 
-        @Override
-        protected void add(Set<OWLAxiom> axioms) {
-            if (axioms != null) {
-                axioms.forEach(this::add);
+        logger.info("Time: %,dms\n", sw.elapsed(TimeUnit.MILLISECONDS));
+        logger.info("Axioms: %,d\n", +axiomsCount);
+        finishParse(context);
+    }
+
+    /**
+     * Parses a file.  With {@link FrameParser#STANZA_LEXER} the file is memory-mapped and stanzas are read
+     * directly from the mapped pages, without going through any streams.  Compressed files are instead
+     * streamed as in {@link #parse(InputStream, long)}.  The length of the file is used to log progress.
+     * @param path The path to the OBO file.
+     */
+    public void parse(@Nonnull Path path) throws IOException {
+        checkNotNull(path);
+        if (frameParser != FrameParser.STANZA_LEXER || Compression.detect(path) != Compression.NONE) {
+            if (checkpointFile != null) {
+                logger.warn("Checkpoints are not written for {} because it cannot be parsed from an arbitrary stanza", path);
             }
+            parse(new BufferedInputStream(Files.newInputStream(path)), Files.size(path));
+            return;
         }
-
-        @Override
-        protected void add(OWLAxiom axiom) {
-            if (axiom instanceof OWLDeclarationAxiom) {
-                if (isTrackingDeclaration) {
-                    if (declarationCache.add((OWLDeclarationAxiom) axiom)) {
-                        addAxiom(axiom);
-                    }
-                }
-                else {
-                    addAxiom(axiom);
-                }
+        var sw = Stopwatch.createStarted();
+        var context = newTranslationContext();
+        long axiomsCount;
+        var registration = registerStatistics(path, context);
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (checkpointFile == null) {
+                axiomsCount = parseMappedRange(channel, 0, channel.size(), context);
             }
             else {
-                addAxiom(axiom);
+                axiomsCount = parseWithCheckpoints(path, channel, checkpointFile, context);
             }
+        } finally {
+            registration.close();
         }
+        logger.info("Time: {} ms", sw.elapsed(TimeUnit.MILLISECONDS));
+        logger.info("Axioms: {}", axiomsCount);
+        finishParse(context);
+    }
 
-        private void addAxiom(OWLAxiom axiom) {
-            counter.incrementAndGet();
-            printLog();
-            csvExporter.accept(axiom);
+    /**
+     * Parses a file from its last checkpoint, or from the start if there isn't one, writing checkpoints as it
+     * goes.
+     * @return The number of axioms that were delivered, including those delivered before the checkpoint.
+     */
+    private long parseWithCheckpoints(@Nonnull Path path,
+                                      @Nonnull FileChannel channel,
+                                      @Nonnull Path checkpointFile,
+                                      @Nonnull TranslationContext context) throws IOException {
+        var checkpoints = ParseCheckpoints.open(checkpointFile, checkpointInterval, path, context.getDeclarationFilter());
+        var start = checkpoints.getResumeOffset();
+        var end = channel.size();
+        if (start > 0) {
+            logger.info("Resuming parse of {} from byte {} after {} axioms", path, start, checkpoints.getResumedAxiomsCount());
         }
+        var lineSource = new MappedFileLineSource(channel, start, end, MappedFileLineSource.DEFAULT_WINDOW_SIZE);
+        var axiomsCount = translateFrames(obodoc -> {
+                                              if (start > 0) {
+                                                  readFrames(channel, checkpoints.getResumedRanges(), obodoc);
+                                              }
+                                              readFrames(new OboStanzaLexer(lineSource), obodoc, checkpoints);
+                                          },
+                                          () -> start + lineSource.getBytesRead(),
+                                          end,
+                                          context);
+        checkpoints.finish();
+        return checkpoints.getResumedAxiomsCount() + axiomsCount;
+    }
 
-        private void printLog() {
-            var c = counter.get();
-            if (c % 1_000_000 == 0) {
-                //                    var csvWriter = csvExporter.getCsvWriter();
-                long read = countingInputStream.getCount() / (1024 * 1024);
-                long ts1 = ManagementFactory.getThreadMXBean().getCurrentThreadUserTime();
-                long delta = (ts1 - ts) / 1000_000;
-                ts = ts1;
-                double percentage = (countingInputStream.getCount() * 100.0) / fileSize;
-                var runtime = Runtime.getRuntime();
-                var totalMemory = runtime.totalMemory();
-                var freeMemory = runtime.freeMemory();
-                var consumedMemory = (totalMemory - freeMemory) / (1024 * 1024);
-                var percentageRead = fileSize == -1 ? 0 : percentage;
-                System.out.printf("%,9d axioms (Read %,4d Mb [%3d%%]  Delta: %,5d ms) (Used memory: %,8d MB)\n",
-                                  c,
-                                  read,
-                                  (int) percentageRead,
-                                  delta,
-                                  consumedMemory);
+    /**
+     * Parses a file by splitting it into byte ranges on stanza boundaries and parsing each range on its own
+     * thread with its own frame reader and translator.  Axioms from different ranges are delivered to the
+     * axiom consumer concurrently, so the consumer must be thread-safe.  Translating a stanza looks up the
+     * Typedef stanzas that precede it, so the Typedef stanzas that precede each range are read, without
+     * being translated, before the range's own stanzas.  For an uncompressed file these are found with one
+     * scan of the file for Typedef headers.  For a gzip file written by {@link StanzaAlignedGzipWriter}, which
+     * is split into ranges of whole members, each range but the last is first decompressed to collect its
+     * Typedef stanzas.  Only the first range contains the header, which is not needed by the other ranges since
+     * translating a stanza only looks up Typedef frames.  Other compressed files cannot be split, so they are
+     * parsed as in {@link #parse(Path)}.
+     * @param path The path to the OBO file.
+     * @param parallelism The maximum number of ranges to parse concurrently.
+     */
+    public void parse(@Nonnull Path path, int parallelism) throws IOException {
+        checkNotNull(path);
+        checkArgument(parallelism > 0, "parallelism must be greater than zero");
+        var compression = Compression.detect(path);
+        var stanzaAlignedGzip = compression == Compression.GZIP && Compression.isStanzaAlignedGzip(path);
+        if (compression != Compression.NONE && !stanzaAlignedGzip) {
+            parse(path);
+            return;
+        }
+        List<ByteRange> ranges;
+        List<ByteRange> typedefRanges = List.of();
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ranges = stanzaAlignedGzip
+                    ? GzipMembers.split(channel, parallelism)
+                    : OboStanzaBoundaries.split(channel, parallelism);
+            if (ranges.size() > 1 && !stanzaAlignedGzip) {
+                var lastRangeStart = ranges.get(ranges.size() - 1).getStart();
+                typedefRanges = OboStanzaBoundaries.findTypedefRanges(channel, 0, lastRangeStart);
             }
         }
-
-        public int getAxiomsCount() {
-            return counter.get();
+        if (ranges.size() == 1) {
+            parse(path);
+            return;
         }
-
-        @Nonnull
-        @Override
-        public IRI oboIdToIRI(@Nonnull String id) {
-            return oboIdToIRI_load(id);
+        logger.info("Parsing {} in {} ranges", path, ranges.size());
+        var sw = Stopwatch.createStarted();
+        var threadFactory = new ThreadFactoryBuilder().setNameFormat("obo-parser-range-%d").setDaemon(true).build();
+        var executor = Executors.newFixedThreadPool(ranges.size(), threadFactory);
+        var context = newTranslationContext();
+        var registration = registerStatistics(path, context);
+        try {
+            var precedingTypedefs = stanzaAlignedGzip
+                    ? readPrecedingTypedefStanzas(path, ranges, executor)
+                    : getPrecedingTypedefRanges(path, ranges, typedefRanges);
+            var futures = new ArrayList<Future<Integer>>(ranges.size());
+            for (int i = 0; i < ranges.size(); i++) {
+                var range = ranges.get(i);
+                var typedefReader = precedingTypedefs.get(i);
+                futures.add(executor.submit(() -> parseRange(path, range, stanzaAlignedGzip, typedefReader, context)));
+            }
+            var axiomsCount = 0L;
+            for (var future : futures) {
+                axiomsCount += getRangeResult(future);
+            }
+            logger.info("Time: {} ms", sw.elapsed(TimeUnit.MILLISECONDS));
+            logger.info("Axioms: {}", axiomsCount);
+            finishParse(context);
+        } finally {
+            registration.close();
+            executor.shutdownNow();
         }
     }
 
-    private static class MinimalOboDoc extends OBODoc {
-
-        private OWLAPIObo2Owl translator;
+    /**
+     * Parses a slice of a file, so that a file can be divided between independent workers.  The slice is
+     * snapped to stanza boundaries: it starts at the first stanza that starts at or after {@code startOffset}
+     * (or at the start of the file if {@code startOffset} is zero) and it includes the stanza that straddles
+     * {@code endOffset}.  Slices that cover a file without gaps or overlaps, such as [0, a), [a, b) and
+     * [b, size), therefore parse each stanza exactly once and together deliver the same axioms as a parse of
+     * the whole file.  The one exception is that each slice declares the built-in annotation properties that
+     * it uses, so these declarations are repeated.  Translating a stanza looks up the Typedef stanzas that
+     * precede it, so a slice that does not start at zero first scans the bytes before it for Typedef stanzas
+     * and reads them, without translating them.  It does not read the header of the file, which translation
+     * does not look up.  Slices are always read with the {@link FrameParser#STANZA_LEXER}.
+     * @param path The path to the OBO file, which must not be compressed.
+     * @param startOffset The byte offset that the slice starts at or after.
+     * @param endOffset The byte offset that the slice extends to, or past if a stanza straddles it.
+     * @throws IOException if the file is compressed.
+     */
+    public void parse(@Nonnull Path path, long startOffset, long endOffset) throws IOException {
+        checkNotNull(path);
+        checkArgument(0 <= startOffset && startOffset <= endOffset, "Invalid range [%s, %s)", startOffset, endOffset);
+        if (Compression.detect(path) != Compression.NONE) {
+            throw new IOException("Cannot parse a byte range of the compressed file " + path);
+        }
+        var sw = Stopwatch.createStarted();
+        var context = newTranslationContext();
+        int axiomsCount;
+        long start;
+        long end;
+        var registration = registerStatistics(path, context);
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            var size = channel.size();
+            start = startOffset == 0 ? 0 : OboStanzaBoundaries.nextStanzaStart(channel, Math.min(startOffset, size));
+            end = endOffset >= size ? size : OboStanzaBoundaries.nextStanzaStart(channel, endOffset);
+            var typedefRanges = OboStanzaBoundaries.findTypedefRanges(channel, 0, start);
+            var lineSource = new MappedFileLineSource(channel, start, end, MappedFileLineSource.DEFAULT_WINDOW_SIZE);
+            axiomsCount = translateFrames(obodoc -> {
+                                              readPrecedingFrames(preceding -> readFrames(channel, typedefRanges, preceding),
+                                                                  obodoc);
+                                              readFrames(new OboStanzaLexer(lineSource), obodoc);
+                                          },
+                                          lineSource::getBytesRead,
+                                          end - start,
+                                          context);
+        } finally {
+            registration.close();
+        }
+        logger.info("Parsed bytes [{}, {}) of {} in {} ms", start, end, path, sw.elapsed(TimeUnit.MILLISECONDS));
+        logger.info("Axioms: {}", axiomsCount);
+        finishParse(context);
+    }
 
-        public void setTranslator(OWLAPIObo2Owl translator) {
-            this.translator = translator;
+    /**
+     * Parses just the stanzas with the specified ids, using an index of the file to find them without
+     * reading the rest of the file.  The header frame is parsed first, and the stanzas are then parsed in the
+     * order in which they occur in the file, together with the Typedef stanzas that precede them, so each
+     * stanza gives the same axioms as in a parse of the whole file.
+     * @param path The path to the OBO file.
+     * @param index An index of the file, built with {@link OboStanzaIndex#build(Path, Path)}.
+     * @param ids The ids of the stanzas to parse.  Ids that are not in the index are ignored.
+     * @throws IOException if the file has changed since the index was built.
+     */
+    public void parse(@Nonnull Path path,
+                      @Nonnull OboStanzaIndex index,
+                      @Nonnull Collection<String> ids) throws IOException {
+        checkNotNull(path);
+        checkNotNull(index);
+        checkNotNull(ids);
+        index.checkSource(path);
+        var ranges = new ArrayList<ByteRange>();
+        ranges.add(index.getHeaderRange());
+        ranges.addAll(index.getStanzaRanges(ids));
+        var sw = Stopwatch.createStarted();
+        var context = newTranslationContext();
+        int axiomsCount;
+        var registration = registerStatistics(path, context);
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            axiomsCount = translateFrames(obodoc -> readFrames(channel, ranges, obodoc), () -> 0, -1, context);
+        } finally {
+            registration.close();
         }
+        logger.info("Parsed {} stanzas for {} ids in {} ms", ranges.size() - 1, ids.size(), sw.elapsed(TimeUnit.MILLISECONDS));
+        logger.info("Axioms: {}", axiomsCount);
+        finishParse(context);
+    }
 
-        @Override
-        public void addFrame(@Nonnull Frame f) throws FrameMergeException {
-            if (f.getType().equals(Frame.FrameType.TYPEDEF)) {
-                super.addFrame(f);
-            }
-            if (f.getType().equals(Frame.FrameType.TERM)) {
-                translator.trTermFrame(f);
+    private void readFrames(@Nonnull FileChannel channel,
+                            @Nonnull List<ByteRange> ranges,
+                            @Nonnull MinimalOboDoc obodoc) throws IOException {
+        for (var range : ranges) {
+            if (range.getLength() > 0) {
+                var lineSource = new MappedFileLineSource(channel,
+                                                          range.getStart(),
+                                                          range.getEnd(),
+                                                          MappedFileLineSource.DEFAULT_WINDOW_SIZE);
+                readFrames(new OboStanzaLexer(lineSource), obodoc);
             }
         }
     }
 
-    private static class NoOpLoadingCache implements LoadingCache<String, String> {
-
-        @Override
-        public String get(@Nonnull String key) {
-            return key;
+    /**
+     * Gets, for each range of an uncompressed file, a frame reader that reads the Typedef stanzas that precede
+     * the range.
+     * @param typedefRanges The ranges of the Typedef stanzas of the file, in file order.
+     */
+    @Nonnull
+    private List<FrameReader> getPrecedingTypedefRanges(@Nonnull Path path,
+                                                        @Nonnull List<ByteRange> ranges,
+                                                        @Nonnull List<ByteRange> typedefRanges) {
+        var typedefReaders = new ArrayList<FrameReader>(ranges.size());
+        for (var range : ranges) {
+            var precedingTypedefRanges = typedefRanges.stream()
+                                                      .filter(typedefRange -> typedefRange.getStart() < range.getStart())
+                                                      .collect(Collectors.toList());
+            typedefReaders.add(obodoc -> {
+                if (!precedingTypedefRanges.isEmpty()) {
+                    try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                        readFrames(channel, precedingTypedefRanges, obodoc);
+                    }
+                }
+            });
         }
+        return typedefReaders;
+    }
 
-        @Nullable
-        @Override
-        public Map<String, String> getAll(@Nonnull Iterable<? extends String> keys) {
-            return null;
+    /**
+     * Gets, for each range of a stanza-aligned gzip file, a frame reader that reads the Typedef stanzas that
+     * precede the range.  Each range but the last is decompressed on the specified executor to collect the
+     * text of its Typedef stanzas.
+     */
+    @Nonnull
+    private List<FrameReader> readPrecedingTypedefStanzas(@Nonnull Path path,
+                                                          @Nonnull List<ByteRange> ranges,
+                                                          @Nonnull ExecutorService executor) throws IOException {
+        var futures = new ArrayList<Future<String>>(ranges.size() - 1);
+        for (var range : ranges.subList(0, ranges.size() - 1)) {
+            futures.add(executor.submit(() -> readTypedefStanzas(path, range)));
         }
-
-        @Override
-        public void refresh(@Nonnull String key) {
-            // NO-OP
+        var typedefReaders = new ArrayList<FrameReader>(ranges.size());
+        var precedingTypedefStanzas = new StringBuilder();
+        for (int i = 0; i < ranges.size(); i++) {
+            var typedefStanzas = precedingTypedefStanzas.toString();
+            typedefReaders.add(obodoc -> {
+                if (!typedefStanzas.isEmpty()) {
+                    readFrames(new OboStanzaLexer(new StringReader(typedefStanzas)), obodoc);
+                }
+            });
+            if (i < futures.size()) {
+                precedingTypedefStanzas.append(getRangeResult(futures.get(i)));
+            }
         }
+        return typedefReaders;
+    }
 
-        @Nullable
-        @Override
-        public String getIfPresent(@Nonnull Object key) {
-            return null;
+    /**
+     * Decompresses a range of a compressed file and gets the text of its Typedef stanzas.
+     */
+    @Nonnull
+    private static String readTypedefStanzas(@Nonnull Path path,
+                                             @Nonnull ByteRange range) throws IOException {
+        var typedefStanzas = new StringBuilder();
+        try (var lexer = new OboStanzaLexer(Compression.decompressing(openRange(path, range), 1))) {
+            var stanza = new OboStanza();
+            while (lexer.next(stanza)) {
+                if (stanza.getType() == OboStanza.Type.TYPEDEF) {
+                    typedefStanzas.append(stanza.getText(), 0, stanza.getLength());
+                }
+            }
         }
+        return typedefStanzas.toString();
+    }
 
-        @Nullable
-        @Override
-        public String get(@Nonnull String key, @Nonnull Function<? super String, ? extends String> mappingFunction) {
-            return null;
+    private int parseRange(@Nonnull Path path,
+                           @Nonnull ByteRange range,
+                           boolean compressed,
+                           @Nonnull FrameReader precedingTypedefReader,
+                           @Nonnull TranslationContext context) throws IOException {
+        if (frameParser == FrameParser.STANZA_LEXER && !compressed) {
+            try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                var lineSource = new MappedFileLineSource(channel,
+                                                          range.getStart(),
+                                                          range.getEnd(),
+                                                          MappedFileLineSource.DEFAULT_WINDOW_SIZE);
+                return translateFrames(obodoc -> {
+                                           readPrecedingFrames(precedingTypedefReader, obodoc);
+                                           readFrames(new OboStanzaLexer(lineSource), obodoc);
+                                       },
+                                       lineSource::getBytesRead,
+                                       range.getLength(),
+                                       context);
+            }
         }
+        var in = new CountingInputStream(openRange(path, range));
+        // Ranges are already parsed in parallel, so each range decompresses its members on a single thread
+        return translateFrames(obodoc -> {
+                                   readPrecedingFrames(precedingTypedefReader, obodoc);
+                                   readFrames(Compression.decompressing(in, 1), obodoc);
+                               },
+                               in::getCount,
+                               range.getLength(),
+                               context);
+    }
 
-        @Nullable
-        @Override
-        public Map<String, String> getAllPresent(@Nonnull Iterable<?> keys) {
-            return null;
+    /**
+     * Reads frames that precede the part of a file that is being parsed, which are only read so that
+     * translation can look them up, without counting them in the progress of the parse.
+     */
+    private static void readPrecedingFrames(@Nonnull FrameReader frameReader,
+                                            @Nonnull MinimalOboDoc obodoc) throws IOException {
+        obodoc.setCountingFrames(false);
+        try {
+            frameReader.readFrames(obodoc);
+        } finally {
+            obodoc.setCountingFrames(true);
         }
+    }
 
-        @Override
-        public void put(@Nonnull String key, @Nonnull String value) {
-            // NO-OP
-        }
+    @Nonnull
+    private static InputStream openRange(@Nonnull Path path,
+                                         @Nonnull ByteRange range) throws IOException {
+        var channel = FileChannel.open(path, StandardOpenOption.READ);
+        channel.position(range.getStart());
+        return ByteStreams.limit(new BufferedInputStream(Channels.newInputStream(channel)), range.getLength());
+    }
 
-        @Override
-        public void putAll(@Nonnull Map<? extends String, ? extends String> map) {
-            // NO-OP
+    private static <T> T getRangeResult(@Nonnull Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for range to be parsed");
+        } catch (ExecutionException e) {
+            var cause = e.getCause();
+            Throwables.propagateIfPossible(cause, IOException.class);
+            throw new RuntimeException(cause);
         }
+    }
 
-        @Override
-        public void invalidate(@Nonnull Object key) {
-            // NO-OP
+    /**
+     * Reads frames with the specified frame reader, translates them and passes the resulting axioms to the
+     * axiom consumer.
+     * @param bytesRead Supplies the number of bytes that have been read so far, for logging progress.
+     * @param length The number of bytes that will be read, or -1 if this is not known.
+     * @param context The state that is shared by all translators of the parse.
+     * @return The number of axioms that were passed to the axiom consumer.
+     */
+    private int translateFrames(@Nonnull FrameReader frameReader,
+                                @Nonnull LongSupplier bytesRead,
+                                long length,
+                                @Nonnull TranslationContext context) throws IOException {
+        context.getProgressTracker().addInput(bytesRead, length);
+        var obodoc = new MinimalOboDoc(context.getProgressTracker());
+        if (pipelineTranslatorThreads == 0) {
+            var csvTranslator = newTranslator(context);
+            obodoc.setTranslator(csvTranslator);
+            csvTranslator.setObodoc(obodoc);
+            readFramesTimed(frameReader, obodoc);
+            csvTranslator.flush();
+            return csvTranslator.getAxiomsCount();
         }
-
-        @Override
-        public void invalidateAll(@Nonnull Iterable<?> keys) {
-            // NO-OP
+        try (var pipeline = new FrameTranslationPipeline(obodoc,
+                                                         pipelineTranslatorThreads,
+                                                         () -> newTranslator(context),
+                                                         newPipelineThreadFactory())) {
+            obodoc.setTranslationPipeline(pipeline);
+            readFramesTimed(frameReader, obodoc);
+            return pipeline.finish();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
         }
+    }
 
-        @Override
-        public void invalidateAll() {
-            // NO-OP
+    private static void readFramesTimed(@Nonnull FrameReader frameReader,
+                                        @Nonnull MinimalOboDoc obodoc) throws IOException {
+        var start = System.nanoTime();
+        frameReader.readFrames(obodoc);
+        obodoc.finishReading(System.nanoTime() - start);
+    }
+
+    @Nonnull
+    private MinimalObo2Owl newTranslator(@Nonnull TranslationContext context) {
+        return new MinimalObo2Owl(axiomBatchConsumer, batchSize, context);
+    }
+
+    /**
+     * Parses frames from a stream, which is decompressed if it is compressed.  Progress is measured against
+     * the bytes that have been read from the stream itself, rather than the decompressed bytes.
+     */
+    private int parseFrames(@Nonnull CountingInputStream in,
+                            long streamLength,
+                            int decompressionThreads,
+                            @Nonnull TranslationContext context) throws IOException {
+        return translateFrames(obodoc -> readFrames(Compression.decompressing(in, decompressionThreads), obodoc),
+                               in::getCount,
+                               streamLength,
+                               context);
+    }
+
+    private int parseMappedRange(@Nonnull FileChannel channel,
+                                 long start,
+                                 long end,
+                                 @Nonnull TranslationContext context) throws IOException {
+        var lineSource = new MappedFileLineSource(channel, start, end, MappedFileLineSource.DEFAULT_WINDOW_SIZE);
+        return translateFrames(obodoc -> readFrames(new OboStanzaLexer(lineSource), obodoc),
+                               lineSource::getBytesRead,
+                               end - start,
+                               context);
+    }
+
+    /**
+     * Parses frames from the specified stream and adds them to the specified document.  In pipelined mode
+     * the stream is decoded on a separate thread.  The stream is closed once parsing has finished.
+     */
+    private void readFrames(@Nonnull InputStream in,
+                            @Nonnull MinimalOboDoc obodoc) throws IOException {
+        if (pipelineTranslatorThreads > 0) {
+            try (var reader = new ReadAheadReader(new InputStreamReader(in, StandardCharsets.UTF_8),
+                                                  READ_AHEAD_CHUNK_SIZE,
+                                                  READ_AHEAD_CHUNKS,
+                                                  newPipelineThreadFactory())) {
+                readFrames(reader, obodoc);
+            }
         }
+        else if (frameParser == FrameParser.STANZA_LEXER) {
+            try (var lexer = new OboStanzaLexer(in)) {
+                readFrames(lexer, obodoc);
+            }
+        }
+        else {
+            try (var reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+                readFrames(reader, obodoc);
+            }
+        }
+    }
 
-        @Override
-        public long estimatedSize() {
-            return 0;
+    @Nonnull
+    private static ThreadFactory newPipelineThreadFactory() {
+        return new ThreadFactoryBuilder().setNameFormat("obo-parser-pipeline-%d").setDaemon(true).build();
+    }
+
+    /**
+     * Parses frames from the specified reader with the configured {@link FrameParser} and adds them to the
+     * specified document.
+     */
+    private void readFrames(@Nonnull Reader reader,
+                            @Nonnull MinimalOboDoc obodoc) throws IOException {
+        if (frameParser == FrameParser.STANZA_LEXER) {
+            readFrames(new OboStanzaLexer(reader), obodoc);
+            return;
         }
+        var oboParser = new OBOFormatParser();
+        oboParser.setReader(new BufferedReader(reader));
+        oboParser.parseOBODoc(obodoc);
+    }
 
-        @Nullable
-        @Override
-        public CacheStats stats() {
-            return null;
+    private void readFrames(@Nonnull OboStanzaLexer lexer,
+                            @Nonnull MinimalOboDoc obodoc) throws IOException {
+        readFrames(lexer, obodoc, null);
+    }
+
+    private void readFrames(@Nonnull OboStanzaLexer lexer,
+                            @Nonnull MinimalOboDoc obodoc,
+                            @Nullable ParseCheckpoints checkpoints) throws IOException {
+        var frameReader = new StanzaFrameReader(lexer, obodoc, stringInterning.createInterner());
+        while (frameReader.readNext()) {
+            // Frames are translated as they are added to the document
+            if (checkpoints != null) {
+                checkpoints.stanzaRead(frameReader, obodoc);
+            }
         }
+        if (frameReader.getFallbackCount() > 0) {
+            logger.debug("Reparsed {} stanzas with the OBO format parser", frameReader.getFallbackCount());
+        }
+    }
 
-        @Nullable
-        @Override
-        public ConcurrentMap<String, String> asMap() {
-            return null;
+    /**
+     * Creates the state for translating a lazily evaluated stream of axioms, with the declaration tracking and
+     * IRI cache size of this parser.  Progress is not reported, since the consumer of the stream rather than
+     * the parser decides how much of the input is read.
+     */
+    @Nonnull
+    TranslationContext newStreamTranslationContext() {
+        return new TranslationContext(declarationTracking.createFilter(),
+                                      new IriCache(iriCacheSize),
+                                      ProgressTracker.NONE);
+    }
+
+    @Nonnull
+    StringInterning getStringInterning() {
+        return stringInterning;
+    }
+
+    int getDecompressionThreads() {
+        return decompressionThreads;
+    }
+
+    @Nonnull
+    private TranslationContext newTranslationContext() {
+        return new TranslationContext(declarationTracking.createFilter(),
+                                      new IriCache(iriCacheSize),
+                                      new ProgressTracker(progressListener,
+                                                          progressInterval,
+                                                          detailedStatistics || jmxEnabled));
+    }
+
+    /**
+     * Registers a {@link ParseStatisticsMXBean} for a parse, if JMX is enabled.  Failing to register does not
+     * fail the parse.
+     * @return The registration, which unregisters the MBean when it is closed.
+     */
+    @Nonnull
+    private StatisticsRegistration registerStatistics(@Nonnull Object input,
+                                                      @Nonnull TranslationContext context) {
+        if (!jmxEnabled) {
+            return () -> {};
+        }
+        var server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            var name = new ObjectName(JMX_DOMAIN + ":type=MinimalOboParser,name=parse-" + parseCounter.incrementAndGet());
+            var mbean = new StandardMBean(new ParseStatistics(input.toString(), context), ParseStatisticsMXBean.class, true);
+            server.registerMBean(mbean, name);
+            return () -> {
+                try {
+                    server.unregisterMBean(name);
+                } catch (JMException e) {
+                    logger.warn("Could not unregister {}: {}", name, e.getMessage());
+                }
+            };
+        } catch (JMException e) {
+            logger.warn("Could not register parse statistics MBean: {}", e.getMessage());
+            return () -> {};
         }
+    }
 
-        @Override
-        public void cleanUp() {
-            // NO-OP
+    /**
+     * Logs the declaration filter and IRI cache statistics of a parse and reports its final statistics to the
+     * progress listener.
+     */
+    private static void finishParse(@Nonnull TranslationContext context) {
+        var declarationFilter = context.getDeclarationFilter();
+        if (declarationFilter != DeclarationFilter.NONE) {
+            logger.info("Duplicate declarations suppressed: {}", declarationFilter.getSuppressedCount());
+            var deliveredDuplicateCount = declarationFilter.getDeliveredDuplicateCount();
+            if (deliveredDuplicateCount > 0) {
+                logger.info("Duplicate declarations delivered (estimated): {}", deliveredDuplicateCount);
+            }
         }
+        var iriCache = context.getIriCache();
+        if (iriCache.isEnabled()) {
+            logger.info("IRI cache hits: {}  misses: {}  evictions: {}",
+                        iriCache.getHitCount(),
+                        iriCache.getMissCount(),
+                        iriCache.getEvictionCount());
+        }
+        context.getProgressTracker().finish();
+    }
+
+    private interface StatisticsRegistration extends AutoCloseable {
 
-        @Nullable
         @Override
-        public Policy<String, String> policy() {
-            return null;
-        }
+        void close();
     }
 
+    /**
+     * Reads frames from some input and adds them to a document.
+     */
+    private interface FrameReader {
+
+        void readFrames(@Nonnull MinimalOboDoc obodoc) throws IOException;
+    }
 }
@@ -0,0 +1,179 @@
+package edu.stanford.protege.obo;
+
+import org.semanticweb.owlapi.model.OWLAxiom;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A {@link Flow.Publisher} of the axioms in an OBO document.  Each subscription runs its own parse on the
+ * supplied executor.  The parse honours subscriber demand: when the subscriber has not requested any more
+ * axioms the parsing thread blocks, so a slow subscriber throttles parsing rather than causing axioms to
+ * be buffered.  Cancelling the subscription stops the parse.  The parse is completed with
+ * {@link Flow.Subscriber#onComplete()}, or with {@link Flow.Subscriber#onError(Throwable)} if it fails.
+ *
+ * Example:
+ * <pre>
+ *     var publisher = new OboAxiomPublisher(parser -> parser.parse(path), executor);
+ *     publisher.subscribe(subscriber);
+ * </pre>
+ */
+public final class OboAxiomPublisher implements Flow.Publisher<OWLAxiom> {
+
+    /**
+     * Runs a parse with a parser that is supplied by the publisher.  The action may configure the parser
+     * before parsing.
+     */
+    @FunctionalInterface
+    public interface ParseAction {
+
+        void parse(@Nonnull MinimalOboParser parser) throws IOException;
+    }
+
+    private final ParseAction parseAction;
+
+    private final Executor executor;
+
+    public OboAxiomPublisher(@Nonnull ParseAction parseAction,
+                             @Nonnull Executor executor) {
+        this.parseAction = checkNotNull(parseAction);
+        this.executor = checkNotNull(executor);
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super OWLAxiom> subscriber) {
+        checkNotNull(subscriber);
+        var subscription = new AxiomSubscription(subscriber);
+        try {
+            executor.execute(subscription::run);
+        } catch (RejectedExecutionException e) {
+            subscriber.onSubscribe(subscription);
+            subscriber.onError(e);
+        }
+    }
+
+    /**
+     * Thrown from the axiom consumer to abandon the parse when the subscription is cancelled.  It is
+     * preallocated and has no stack trace because it is used for control flow.
+     */
+    private static final class SubscriptionCancelledException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        private static final SubscriptionCancelledException INSTANCE = new SubscriptionCancelledException();
+
+        private SubscriptionCancelledException() {
+            super(null, null, false, false);
+        }
+    }
+
+    private final class AxiomSubscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super OWLAxiom> subscriber;
+
+        /**
+         * Guards demand and cancellation
+         */
+        private final Object lock = new Object();
+
+        /**
+         * Serializes calls to onNext when axioms are delivered from more than one translator thread
+         */
+        private final Object deliveryLock = new Object();
+
+        private long demand = 0;
+
+        private boolean cancelled = false;
+
+        private Throwable demandError;
+
+        private AxiomSubscription(@Nonnull Flow.Subscriber<? super OWLAxiom> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            synchronized (lock) {
+                if (n <= 0) {
+                    if (demandError == null) {
+                        demandError = new IllegalArgumentException("Requested " + n + " axioms.  The number of requested axioms must be positive.");
+                    }
+                    cancelled = true;
+                }
+                else {
+                    demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+                }
+                lock.notifyAll();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (lock) {
+                cancelled = true;
+                lock.notifyAll();
+            }
+        }
+
+        private void run() {
+            subscriber.onSubscribe(this);
+            Throwable failure = null;
+            try {
+                parseAction.parse(new MinimalOboParser(this::deliver, 1));
+            } catch (SubscriptionCancelledException e) {
+                // Cancelled or demand error
+            } catch (Throwable t) {
+                failure = t;
+            }
+            synchronized (lock) {
+                if (demandError != null) {
+                    failure = demandError;
+                }
+                else if (cancelled) {
+                    return;
+                }
+                cancelled = true;
+            }
+            if (failure != null) {
+                subscriber.onError(failure);
+            }
+            else {
+                subscriber.onComplete();
+            }
+        }
+
+        private void deliver(@Nonnull List<OWLAxiom> axioms) {
+            synchronized (deliveryLock) {
+                for (var axiom : axioms) {
+                    awaitDemand();
+                    subscriber.onNext(axiom);
+                }
+            }
+        }
+
+        private void awaitDemand() {
+            synchronized (lock) {
+                while (demand == 0 && !cancelled) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException("Interrupted while waiting for demand", e);
+                    }
+                }
+                if (cancelled) {
+                    throw SubscriptionCancelledException.INSTANCE;
+                }
+                if (demand != Long.MAX_VALUE) {
+                    demand--;
+                }
+            }
+        }
+    }
+}
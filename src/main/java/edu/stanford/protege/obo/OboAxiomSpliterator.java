@@ -0,0 +1,210 @@
+package edu.stanford.protege.obo;
+
+import com.google.common.base.Suppliers;
+import org.semanticweb.owlapi.model.OWLAxiom;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A {@link Spliterator} that parses and translates one stanza at a time, as axioms are requested.  A
+ * spliterator over a range of a file can be split: the unread part of the range is divided on a stanza
+ * boundary and the spliterator that is returned covers the second half.  Since the returned spliterator
+ * is a suffix rather than a prefix this spliterator is not {@link Spliterator#ORDERED}, although sequential
+ * traversal yields axioms in document order.  The spliterators that are split from a spliterator share its
+ * {@link TranslationContext}, so declarations are de-duplicated across all of them.  Translating a stanza
+ * looks up the Typedef stanzas that precede it, so the first split scans the range for Typedef stanzas, and
+ * each spliterator that is split off reads the Typedef stanzas that precede it before its own stanzas.
+ */
+final class OboAxiomSpliterator implements Spliterator<OWLAxiom> {
+
+    private static final int MIN_SPLIT_SIZE = 64 * 1024;
+
+    @Nullable
+    private final FileChannel channel;
+
+    @Nullable
+    private final MappedFileLineSource mappedLineSource;
+
+    private final MinimalOboDoc obodoc;
+
+    private final StanzaFrameReader frameReader;
+
+    private final MinimalObo2Owl translator;
+
+    private final TranslationContext context;
+
+    private final StringInterning stringInterning;
+
+    /**
+     * The Typedef stanzas of the range that this spliterator was originally split from, in file order, which
+     * are scanned for when they are first needed
+     */
+    @Nullable
+    private final Supplier<List<ByteRange>> typedefRanges;
+
+    private final List<OWLAxiom> pendingAxioms = new ArrayList<>();
+
+    private int nextPendingAxiom = 0;
+
+    private boolean endOfInput = false;
+
+    private OboAxiomSpliterator(@Nonnull OboLineSource lineSource,
+                                @Nullable FileChannel channel,
+                                @Nullable MappedFileLineSource mappedLineSource,
+                                @Nonnull TranslationContext context,
+                                @Nonnull StringInterning stringInterning,
+                                @Nullable Supplier<List<ByteRange>> typedefRanges) {
+        this.channel = channel;
+        this.mappedLineSource = mappedLineSource;
+        this.context = checkNotNull(context);
+        this.stringInterning = checkNotNull(stringInterning);
+        this.typedefRanges = typedefRanges;
+        this.obodoc = new MinimalOboDoc();
+        this.translator = new MinimalObo2Owl(pendingAxioms::addAll, 1, context);
+        this.translator.setObodoc(obodoc);
+        obodoc.setTranslator(translator);
+        this.frameReader = new StanzaFrameReader(new OboStanzaLexer(lineSource), obodoc, stringInterning.createInterner());
+    }
+
+    /**
+     * Reads the specified Typedef stanzas into the document.  Typedef frames are not translated, so this
+     * does not produce any axioms.
+     */
+    private void readTypedefFrames(@Nonnull List<ByteRange> ranges) throws IOException {
+        var interner = stringInterning.createInterner();
+        for (var range : ranges) {
+            var lineSource = new MappedFileLineSource(checkNotNull(channel),
+                                                      range.getStart(),
+                                                      range.getEnd(),
+                                                      MappedFileLineSource.DEFAULT_WINDOW_SIZE);
+            var typedefReader = new StanzaFrameReader(new OboStanzaLexer(lineSource), obodoc, interner);
+            while (typedefReader.readNext()) {
+                // Typedef frames are added to the document without being translated
+            }
+        }
+    }
+
+    /**
+     * Creates a splittable spliterator over the specified range of a file.  The spliterators that are split
+     * from it read the Typedef stanzas of the range that precede them, but not any Typedef stanzas that
+     * precede the range itself.  The channel is not closed by the spliterator.
+     */
+    @Nonnull
+    static OboAxiomSpliterator forRange(@Nonnull FileChannel channel,
+                                        long start,
+                                        long end,
+                                        @Nonnull TranslationContext context,
+                                        @Nonnull StringInterning stringInterning) throws IOException {
+        var typedefRanges = Suppliers.memoize(() -> {
+            try {
+                return OboStanzaBoundaries.findTypedefRanges(channel, start, end);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return forRange(channel, start, end, context, stringInterning, typedefRanges::get);
+    }
+
+    @Nonnull
+    private static OboAxiomSpliterator forRange(@Nonnull FileChannel channel,
+                                                long start,
+                                                long end,
+                                                @Nonnull TranslationContext context,
+                                                @Nonnull StringInterning stringInterning,
+                                                @Nonnull Supplier<List<ByteRange>> typedefRanges) throws IOException {
+        var lineSource = new MappedFileLineSource(channel, start, end, MappedFileLineSource.DEFAULT_WINDOW_SIZE);
+        return new OboAxiomSpliterator(lineSource, channel, lineSource, context, stringInterning, typedefRanges);
+    }
+
+    /**
+     * Creates a spliterator over a stream of UTF-8 encoded text.  The spliterator cannot be split.
+     */
+    @Nonnull
+    static OboAxiomSpliterator forStream(@Nonnull InputStream inputStream,
+                                         @Nonnull TranslationContext context,
+                                         @Nonnull StringInterning stringInterning) {
+        var lineSource = new Utf8LineSource(inputStream);
+        return new OboAxiomSpliterator(lineSource, null, null, context, stringInterning, null);
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super OWLAxiom> action) {
+        while (nextPendingAxiom == pendingAxioms.size()) {
+            pendingAxioms.clear();
+            nextPendingAxiom = 0;
+            if (endOfInput) {
+                return false;
+            }
+            if (!readNextStanza()) {
+                endOfInput = true;
+                translator.flush();
+            }
+        }
+        action.accept(pendingAxioms.get(nextPendingAxiom++));
+        return true;
+    }
+
+    private boolean readNextStanza() {
+        try {
+            return frameReader.readNext();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    @Nullable
+    public Spliterator<OWLAxiom> trySplit() {
+        if (mappedLineSource == null || channel == null || typedefRanges == null || endOfInput) {
+            return null;
+        }
+        var position = mappedLineSource.getPosition();
+        var end = mappedLineSource.getEnd();
+        if (end - position < 2L * MIN_SPLIT_SIZE) {
+            return null;
+        }
+        try {
+            // The boundary is after the position, so any stanza that the lexer has started stays with us
+            var boundary = OboStanzaBoundaries.nextStanzaStart(channel, position + (end - position) / 2);
+            if (boundary >= end) {
+                return null;
+            }
+            mappedLineSource.truncate(boundary);
+            var spliterator = forRange(channel, boundary, end, context, stringInterning, typedefRanges);
+            spliterator.readTypedefFrames(typedefRanges.get()
+                                                       .stream()
+                                                       .filter(range -> range.getStart() < boundary)
+                                                       .collect(Collectors.toList()));
+            return spliterator;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public long estimateSize() {
+        if (mappedLineSource == null) {
+            return Long.MAX_VALUE;
+        }
+        // Roughly proportional to the number of axioms, which is all that splitting needs
+        return mappedLineSource.getEnd() - mappedLineSource.getPosition();
+    }
+
+    @Override
+    public int characteristics() {
+        return NONNULL;
+    }
+}
@@ -0,0 +1,112 @@
+package edu.stanford.protege.obo;
+
+import org.semanticweb.owlapi.model.OWLAxiom;
+
+import javax.annotation.Nonnull;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Lazily evaluated streams of the axioms in OBO documents.  Stanzas are only read and translated as axioms
+ * are consumed from the stream, so short-circuiting operations such as {@link Stream#limit(long)} and
+ * {@link Stream#findFirst()} only read as much of the input as they need.  The streams hold open files or
+ * streams and should be closed, for example with try-with-resources.
+ *
+ * By default the streams are translated with the default settings of {@link MinimalOboParser}, so they do
+ * not de-duplicate declarations.  To stream the same axioms as a configured parser, pass the parser: its
+ * declaration tracking, IRI cache size, string interning and decompression threads are then used.  Its other
+ * settings, such as its axiom consumer, pipeline threads, frame parser, checkpoints and progress listener,
+ * do not apply to streams, which are always read with the {@link FrameParser#STANZA_LEXER} on the threads
+ * that consume them.
+ */
+public final class OboAxiomStreams {
+
+    private OboAxiomStreams() {
+    }
+
+    /**
+     * Streams the axioms in a file.  The file is memory-mapped, and parallel streams parse different parts
+     * of the file on different threads.  As with {@link MinimalOboParser#parse(Path, int)}, each part first
+     * reads the Typedef stanzas that precede it, so a parallel stream gives the same axioms as a sequential
+     * parse.  The stream is unordered.  Compressed files are streamed as in {@link #axioms(InputStream)}
+     * instead, and cannot be split.
+     */
+    @Nonnull
+    public static Stream<OWLAxiom> axioms(@Nonnull Path path) throws IOException {
+        return axioms(path, newDefaultParser());
+    }
+
+    /**
+     * Streams the axioms in a file, as in {@link #axioms(Path)}, with the settings of the specified parser.
+     * Declarations are de-duplicated across all of the parts of a parallel stream.
+     */
+    @Nonnull
+    public static Stream<OWLAxiom> axioms(@Nonnull Path path, @Nonnull MinimalOboParser parser) throws IOException {
+        checkNotNull(path);
+        checkNotNull(parser);
+        if (Compression.detect(path) != Compression.NONE) {
+            return axioms(Files.newInputStream(path), parser);
+        }
+        var channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            var spliterator = OboAxiomSpliterator.forRange(channel,
+                                                           0,
+                                                           channel.size(),
+                                                           parser.newStreamTranslationContext(),
+                                                           parser.getStringInterning());
+            return StreamSupport.stream(spliterator, false).onClose(() -> close(channel));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Streams the axioms in a stream of UTF-8 encoded OBO text, which may be gzip, bzip2, xz or zstd
+     * compressed.  The input stream is closed when the returned stream is closed.
+     */
+    @Nonnull
+    public static Stream<OWLAxiom> axioms(@Nonnull InputStream inputStream) throws IOException {
+        return axioms(inputStream, newDefaultParser());
+    }
+
+    /**
+     * Streams the axioms in a stream of OBO text, as in {@link #axioms(InputStream)}, with the settings of the
+     * specified parser.
+     */
+    @Nonnull
+    public static Stream<OWLAxiom> axioms(@Nonnull InputStream inputStream,
+                                          @Nonnull MinimalOboParser parser) throws IOException {
+        checkNotNull(inputStream);
+        checkNotNull(parser);
+        var in = Compression.decompressing(inputStream, parser.getDecompressionThreads());
+        var spliterator = OboAxiomSpliterator.forStream(in,
+                                                        parser.newStreamTranslationContext(),
+                                                        parser.getStringInterning());
+        return StreamSupport.stream(spliterator, false).onClose(() -> close(in));
+    }
+
+    @Nonnull
+    private static MinimalOboParser newDefaultParser() {
+        // Only its settings are used
+        return new MinimalOboParser(axiom -> {});
+    }
+
+    private static void close(@Nonnull Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
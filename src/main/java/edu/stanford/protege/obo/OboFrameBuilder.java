@@ -0,0 +1,792 @@
+package edu.stanford.protege.obo;
+
+import org.obolibrary.oboformat.model.Clause;
+import org.obolibrary.oboformat.model.Frame;
+import org.obolibrary.oboformat.model.FrameMergeException;
+import org.obolibrary.oboformat.model.OBODoc;
+import org.obolibrary.oboformat.model.QualifierValue;
+import org.obolibrary.oboformat.model.Xref;
+import org.obolibrary.oboformat.parser.OBOFormatConstants.OboFormatTag;
+import org.obolibrary.oboformat.parser.OBOFormatParser;
+import org.obolibrary.oboformat.parser.OBOFormatParserException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.BufferedReader;
+import java.io.CharArrayReader;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Builds {@link Frame}s from lexed stanzas.  Values are tokenised in place in the stanza text following
+ * the grammar that {@link OBOFormatParser} implements for each tag, so that the frames are equal to the
+ * frames that {@link OBOFormatParser} would produce.  Strings are only created for the values that end up
+ * in the frame.  Instance stanzas are not needed for translation, so they are skipped without being
+ * tokenised at all.  The header stanza occurs once per document, so it is simply parsed with
+ * {@link OBOFormatParser}.
+ *
+ * The builder only handles well formed clauses.  Anything that {@link OBOFormatParser} would reject, warn
+ * about or handle with deprecated syntax (for example, "exact_synonym" tags or unquoted qualifier values)
+ * causes the whole stanza to be reparsed with {@link OBOFormatParser}, so errors and warnings are reported
+ * exactly as before.
+ */
+final class OboFrameBuilder {
+
+    private enum ValueSyntax {
+        BOOLEAN,
+        UNQUOTED_STRING,
+        ID_REF,
+        ID_REF_PAIR,
+        ISO_DATE,
+        QUOTED_STRING_WITH_XREFS,
+        SYNONYM,
+        XREF,
+        PROPERTY_VALUE,
+        TERM_INTERSECTION_OF,
+        RELATIONSHIP,
+        UNSUPPORTED
+    }
+
+    private static final TagTable TAGS = new TagTable();
+
+    private static final Map<OboFormatTag, ValueSyntax> TERM_SYNTAX = new EnumMap<>(OboFormatTag.class);
+
+    private static final Map<OboFormatTag, ValueSyntax> TYPEDEF_SYNTAX = new EnumMap<>(OboFormatTag.class);
+
+    static {
+        put(TERM_SYNTAX, ValueSyntax.BOOLEAN,
+            OboFormatTag.TAG_BUILTIN, OboFormatTag.TAG_IS_OBSELETE, OboFormatTag.TAG_IS_ANONYMOUS);
+        put(TERM_SYNTAX, ValueSyntax.UNQUOTED_STRING,
+            OboFormatTag.TAG_NAME, OboFormatTag.TAG_COMMENT, OboFormatTag.TAG_CREATED_BY, OboFormatTag.TAG_SUBSET);
+        put(TERM_SYNTAX, ValueSyntax.ID_REF,
+            OboFormatTag.TAG_NAMESPACE, OboFormatTag.TAG_ALT_ID, OboFormatTag.TAG_IS_A, OboFormatTag.TAG_UNION_OF,
+            OboFormatTag.TAG_EQUIVALENT_TO, OboFormatTag.TAG_DISJOINT_FROM, OboFormatTag.TAG_REPLACED_BY,
+            OboFormatTag.TAG_CONSIDER);
+        put(TERM_SYNTAX, ValueSyntax.QUOTED_STRING_WITH_XREFS, OboFormatTag.TAG_DEF);
+        put(TERM_SYNTAX, ValueSyntax.SYNONYM, OboFormatTag.TAG_SYNONYM);
+        put(TERM_SYNTAX, ValueSyntax.XREF, OboFormatTag.TAG_XREF);
+        put(TERM_SYNTAX, ValueSyntax.PROPERTY_VALUE, OboFormatTag.TAG_PROPERTY_VALUE);
+        put(TERM_SYNTAX, ValueSyntax.TERM_INTERSECTION_OF, OboFormatTag.TAG_INTERSECTION_OF);
+        put(TERM_SYNTAX, ValueSyntax.RELATIONSHIP, OboFormatTag.TAG_RELATIONSHIP);
+        put(TERM_SYNTAX, ValueSyntax.ISO_DATE, OboFormatTag.TAG_CREATION_DATE);
+
+        put(TYPEDEF_SYNTAX, ValueSyntax.BOOLEAN,
+            OboFormatTag.TAG_BUILTIN, OboFormatTag.TAG_IS_OBSELETE, OboFormatTag.TAG_IS_ANONYMOUS,
+            OboFormatTag.TAG_IS_ANTI_SYMMETRIC, OboFormatTag.TAG_IS_CYCLIC, OboFormatTag.TAG_IS_REFLEXIVE,
+            OboFormatTag.TAG_IS_SYMMETRIC, OboFormatTag.TAG_IS_TRANSITIVE, OboFormatTag.TAG_IS_FUNCTIONAL,
+            OboFormatTag.TAG_IS_INVERSE_FUNCTIONAL, OboFormatTag.TAG_IS_CLASS_LEVEL_TAG,
+            OboFormatTag.TAG_IS_METADATA_TAG, OboFormatTag.TAG_IS_ASYMMETRIC);
+        put(TYPEDEF_SYNTAX, ValueSyntax.UNQUOTED_STRING,
+            OboFormatTag.TAG_NAME, OboFormatTag.TAG_COMMENT, OboFormatTag.TAG_CREATED_BY);
+        put(TYPEDEF_SYNTAX, ValueSyntax.ID_REF,
+            OboFormatTag.TAG_NAMESPACE, OboFormatTag.TAG_ALT_ID, OboFormatTag.TAG_SUBSET, OboFormatTag.TAG_IS_A,
+            OboFormatTag.TAG_UNION_OF, OboFormatTag.TAG_EQUIVALENT_TO, OboFormatTag.TAG_DISJOINT_FROM,
+            OboFormatTag.TAG_REPLACED_BY, OboFormatTag.TAG_DOMAIN, OboFormatTag.TAG_RANGE,
+            OboFormatTag.TAG_TRANSITIVE_OVER, OboFormatTag.TAG_DISJOINT_OVER, OboFormatTag.TAG_CONSIDER,
+            OboFormatTag.TAG_INVERSE_OF, OboFormatTag.TAG_INTERSECTION_OF);
+        put(TYPEDEF_SYNTAX, ValueSyntax.QUOTED_STRING_WITH_XREFS,
+            OboFormatTag.TAG_DEF, OboFormatTag.TAG_EXPAND_ASSERTION_TO, OboFormatTag.TAG_EXPAND_EXPRESSION_TO);
+        put(TYPEDEF_SYNTAX, ValueSyntax.SYNONYM, OboFormatTag.TAG_SYNONYM);
+        put(TYPEDEF_SYNTAX, ValueSyntax.XREF, OboFormatTag.TAG_XREF);
+        put(TYPEDEF_SYNTAX, ValueSyntax.PROPERTY_VALUE, OboFormatTag.TAG_PROPERTY_VALUE);
+        put(TYPEDEF_SYNTAX, ValueSyntax.RELATIONSHIP, OboFormatTag.TAG_RELATIONSHIP);
+        put(TYPEDEF_SYNTAX, ValueSyntax.ISO_DATE, OboFormatTag.TAG_CREATION_DATE);
+        put(TYPEDEF_SYNTAX, ValueSyntax.ID_REF_PAIR,
+            OboFormatTag.TAG_HOLDS_OVER_CHAIN, OboFormatTag.TAG_EQUIVALENT_TO_CHAIN);
+    }
+
+    private static void put(Map<OboFormatTag, ValueSyntax> map, ValueSyntax syntax, OboFormatTag... tags) {
+        for (var tag : tags) {
+            map.put(tag, syntax);
+        }
+    }
+
+    /**
+     * Thrown when a stanza must be reparsed by {@link OBOFormatParser}.  It is preallocated and has no stack
+     * trace because it is used for control flow.
+     */
+    private static final class FallbackRequiredException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        private static final FallbackRequiredException INSTANCE = new FallbackRequiredException();
+
+        private FallbackRequiredException() {
+            super(null, null, false, false);
+        }
+    }
+
+    private final StringInterner interner;
+
+    private char[] text;
+
+    private int pos;
+
+    private int end;
+
+    private long fallbackCount = 0;
+
+    OboFrameBuilder() {
+        this(StringInterner.NONE);
+    }
+
+    /**
+     * @param interner The interner for tag names and ids.
+     */
+    OboFrameBuilder(@Nonnull StringInterner interner) {
+        this.interner = checkNotNull(interner);
+    }
+
+    /**
+     * Builds a frame for a Term or Typedef stanza.
+     * @return The frame or null if the stanza is a Header or Instance stanza.
+     * @throws OBOFormatParserException if the stanza is malformed.
+     */
+    @Nullable
+    public Frame build(@Nonnull OboStanza stanza) {
+        var type = stanza.getType();
+        if (type == OboStanza.Type.HEADER || type == OboStanza.Type.INSTANCE) {
+            return null;
+        }
+        if (type != OboStanza.Type.UNKNOWN) {
+            try {
+                return buildFrame(stanza, type == OboStanza.Type.TERM ? Frame.FrameType.TERM : Frame.FrameType.TYPEDEF);
+            } catch (FallbackRequiredException e) {
+                // Reparse below
+            }
+        }
+        fallbackCount++;
+        return parseWithOboFormatParser(stanza);
+    }
+
+    /**
+     * Builds the header frame from the stanza that precedes the first Term or Typedef stanza.
+     * @throws OBOFormatParserException if the stanza is malformed.
+     */
+    @Nonnull
+    public Frame buildHeaderFrame(@Nonnull OboStanza stanza) {
+        checkArgument(stanza.getType() == OboStanza.Type.HEADER, "Not a header stanza");
+        var headerFrame = new Frame(Frame.FrameType.HEADER);
+        var parser = createOboFormatParser(stanza);
+        try {
+            parser.parseHeaderFrame(headerFrame);
+        } catch (OBOFormatParserException e) {
+            throw relocate(stanza, e);
+        }
+        headerFrame.freeze();
+        return headerFrame;
+    }
+
+    /**
+     * Gets the number of stanzas that have been reparsed with {@link OBOFormatParser}.
+     */
+    public long getFallbackCount() {
+        return fallbackCount;
+    }
+
+    @Nonnull
+    private Frame buildFrame(@Nonnull OboStanza stanza, @Nonnull Frame.FrameType frameType) {
+        text = stanza.getText();
+        var clauseCount = stanza.getClauseCount();
+        // OBOFormatParser requires the id line to immediately follow the header line, without indentation
+        if (clauseCount == 0 || stanza.getClauseLineIndex(0) != 1
+                || stanza.getClauseTagStart(0) != stanza.getClauseLineStart(0)) {
+            throw FallbackRequiredException.INSTANCE;
+        }
+        var frame = new Frame(frameType);
+        var idTag = parseTag(stanza, 0);
+        if (!OboFormatTag.TAG_ID.getTag().equals(idTag)) {
+            throw FallbackRequiredException.INSTANCE;
+        }
+        var idClause = new Clause(idTag);
+        var id = parseIdUntil(" !{", false);
+        if (id.isEmpty()) {
+            throw FallbackRequiredException.INSTANCE;
+        }
+        idClause.addValue(id);
+        frame.setId(id);
+        parseEndOfLine(idClause);
+        frame.addClause(idClause);
+        var syntaxMap = frameType == Frame.FrameType.TERM ? TERM_SYNTAX : TYPEDEF_SYNTAX;
+        for (int i = 1; i < clauseCount; i++) {
+            var tag = parseTag(stanza, i);
+            var clause = new Clause(tag);
+            parseValue(clause, getValueSyntax(tag, syntaxMap));
+            parseEndOfLine(clause);
+            frame.addClause(clause);
+        }
+        frame.freeze();
+        return frame;
+    }
+
+    @Nonnull
+    private static ValueSyntax getValueSyntax(@Nonnull String tag, @Nonnull Map<OboFormatTag, ValueSyntax> syntaxMap) {
+        if (TAGS.isDeprecated(tag)) {
+            return ValueSyntax.UNSUPPORTED;
+        }
+        var formatTag = TAGS.getFormatTag(tag);
+        if (formatTag == null) {
+            // Custom tag
+            return ValueSyntax.UNQUOTED_STRING;
+        }
+        return syntaxMap.getOrDefault(formatTag, ValueSyntax.UNQUOTED_STRING);
+    }
+
+    /**
+     * Positions the cursor at the start of the value of the specified clause and returns its tag.
+     */
+    @Nonnull
+    private String parseTag(@Nonnull OboStanza stanza, int clause) {
+        var separator = stanza.getClauseSeparator(clause);
+        var lineEnd = stanza.getClauseLineEnd(clause);
+        // OBOFormatParser expects a single space after the separator and warns if it is missing
+        if (separator == -1 || separator + 1 >= lineEnd || text[separator + 1] != ' ') {
+            throw FallbackRequiredException.INSTANCE;
+        }
+        var tagStart = stanza.getClauseTagStart(clause);
+        var tag = TAGS.getTag(text, tagStart, separator);
+        pos = separator + 1;
+        end = lineEnd;
+        skipSpaces();
+        return tag != null ? tag : interner.intern(text, tagStart, separator - tagStart);
+    }
+
+    private void parseValue(@Nonnull Clause clause, @Nonnull ValueSyntax syntax) {
+        switch (syntax) {
+            case BOOLEAN:
+                parseBoolean(clause);
+                break;
+            case UNQUOTED_STRING:
+                parseUnquotedString(clause);
+                break;
+            case ID_REF:
+                parseIdRef(clause, false);
+                break;
+            case ID_REF_PAIR:
+            case RELATIONSHIP:
+                parseIdRef(clause, false);
+                skipOneOrMoreSpaces();
+                parseIdRef(clause, false);
+                break;
+            case ISO_DATE:
+                clause.setValue(parseUntil(" !{", false));
+                break;
+            case QUOTED_STRING_WITH_XREFS:
+                clause.setValue(parseQuotedString());
+                skipSpaces();
+                parseXrefList(clause, true);
+                break;
+            case SYNONYM:
+                parseSynonym(clause);
+                break;
+            case XREF:
+                parseDirectXref(clause);
+                break;
+            case PROPERTY_VALUE:
+                parsePropertyValue(clause);
+                break;
+            case TERM_INTERSECTION_OF:
+                parseIdRef(clause, false);
+                skipSpaces();
+                if (!isEndOfLine() && text[pos] != '!' && text[pos] != '{') {
+                    parseIdRef(clause, true);
+                }
+                break;
+            default:
+                throw FallbackRequiredException.INSTANCE;
+        }
+    }
+
+    private void parseBoolean(@Nonnull Clause clause) {
+        if (consume("true")) {
+            clause.setValue(Boolean.TRUE);
+        }
+        else if (consume("false")) {
+            clause.setValue(Boolean.FALSE);
+        }
+        else {
+            throw FallbackRequiredException.INSTANCE;
+        }
+    }
+
+    private void parseUnquotedString(@Nonnull Clause clause) {
+        skipSpaces();
+        clause.setValue(removeTrailingWhitespace(parseUntil("!{", false)));
+        if (peekCharIs('{')) {
+            parseQualifierBlock(clause);
+        }
+        parseHiddenComment();
+    }
+
+    private void parseIdRef(@Nonnull Clause clause, boolean optional) {
+        var id = parseIdUntil(" !{", false);
+        if (!optional && id.isEmpty()) {
+            throw FallbackRequiredException.INSTANCE;
+        }
+        clause.addValue(id);
+    }
+
+    private void parseSynonym(@Nonnull Clause clause) {
+        clause.setValue(parseQuotedString());
+        skipSpaces();
+        if (!peekCharIs('[')) {
+            parseIdRef(clause, true);
+            skipSpaces();
+            if (!peekCharIs('[')) {
+                parseIdRef(clause, true);
+                skipSpaces();
+            }
+        }
+        parseXrefList(clause, false);
+    }
+
+    private void parseDirectXref(@Nonnull Clause clause) {
+        skipSpaces();
+        var id = parseIdUntil("\",]!{", true).trim();
+        if (id.indexOf(' ') != -1) {
+            throw FallbackRequiredException.INSTANCE;
+        }
+        var xref = new Xref(id);
+        clause.addValue(xref);
+        skipSpaces();
+        if (peekCharIs('"')) {
+            xref.setAnnotation(parseQuotedString());
+        }
+        skipSpaces();
+        parseQualifierBlock(clause);
+    }
+
+    private void parsePropertyValue(@Nonnull Clause clause) {
+        if (peekCharIs('"')) {
+            clause.addValue(parseQuotedString());
+        }
+        else {
+            parseIdRef(clause, false);
+        }
+        skipOneOrMoreSpaces();
+        if (peekCharIs('"')) {
+            clause.addValue(parseQuotedString());
+        }
+        else {
+            parseIdRef(clause, false);
+        }
+        skipSpaces();
+        if (peekCharIs('"')) {
+            clause.addValue(parseQuotedString());
+        }
+        else {
+            var datatype = parseIdUntil(" !{", false);
+            if (!datatype.isEmpty()) {
+                clause.addValue(datatype);
+            }
+        }
+    }
+
+    private void parseXrefList(@Nonnull Clause clause, boolean optional) {
+        if (consume('[')) {
+            if (parseXref(clause)) {
+                while (consume(',') && parseXref(clause)) {
+                    // Keep parsing xrefs
+                }
+            }
+            skipSpaces();
+            if (!consume(']')) {
+                throw FallbackRequiredException.INSTANCE;
+            }
+        }
+        else if (!optional) {
+            throw FallbackRequiredException.INSTANCE;
+        }
+    }
+
+    private boolean parseXref(@Nonnull Clause clause) {
+        skipSpaces();
+        var id = parseIdUntil("\",]!{", true);
+        if (id.isEmpty()) {
+            return false;
+        }
+        id = removeTrailingWhitespace(id);
+        if (id.indexOf(' ') != -1) {
+            throw FallbackRequiredException.INSTANCE;
+        }
+        var xref = new Xref(id);
+        clause.addXref(xref);
+        skipSpaces();
+        if (peekCharIs('"')) {
+            xref.setAnnotation(parseQuotedString());
+        }
+        skipSpaces();
+        parseQualifierBlock(clause);
+        return true;
+    }
+
+    private void parseQualifierBlock(@Nonnull Clause clause) {
+        if (!consume('{')) {
+            return;
+        }
+        if (parseQualifier(clause)) {
+            while (consume(',') && parseQualifier(clause)) {
+                // Keep parsing qualifiers
+            }
+        }
+        skipSpaces();
+        if (!consume('}')) {
+            throw FallbackRequiredException.INSTANCE;
+        }
+    }
+
+    private boolean parseQualifier(@Nonnull Clause clause) {
+        skipSpaces();
+        if (indexOf('=') == -1) {
+            throw FallbackRequiredException.INSTANCE;
+        }
+        var qualifier = parseIdUntil("=", false);
+        pos++;
+        skipSpaces();
+        // Unquoted and empty values are accepted with a warning by OBOFormatParser
+        if (!peekCharIs('"')) {
+            throw FallbackRequiredException.INSTANCE;
+        }
+        var value = parseQuotedString();
+        if (value.isEmpty()) {
+            throw FallbackRequiredException.INSTANCE;
+        }
+        clause.addQualifierValue(new QualifierValue(qualifier, value));
+        skipSpaces();
+        return true;
+    }
+
+    /**
+     * Parses the optional qualifier block and comment at the end of a clause and checks that nothing else
+     * follows.
+     */
+    private void parseEndOfLine(@Nonnull Clause clause) {
+        skipSpaces();
+        parseQualifierBlock(clause);
+        parseHiddenComment();
+        skipSpaces();
+        if (!isEndOfLine()) {
+            throw FallbackRequiredException.INSTANCE;
+        }
+    }
+
+    private void parseHiddenComment() {
+        skipSpaces();
+        if (peekCharIs('!')) {
+            pos = end;
+        }
+    }
+
+    /**
+     * Parses a string that is enclosed in double quotes, with the cursor at the opening quote.  Like
+     * {@link OBOFormatParser}, a missing closing quote is tolerated and the string runs to the end of the
+     * line.
+     */
+    @Nonnull
+    private String parseQuotedString() {
+        if (!consume('"')) {
+            throw FallbackRequiredException.INSTANCE;
+        }
+        var value = parseUntil("\"", false);
+        pos++;
+        return value;
+    }
+
+    /**
+     * Parses chars up to, but not including, the first occurrence of one of the specified stop chars.
+     * Backslash escaped chars never stop parsing.
+     * @param commaWhitespace If true then a comma only stops parsing if it is followed by a space.
+     */
+    @Nonnull
+    private String parseUntil(@Nonnull String stopChars, boolean commaWhitespace) {
+        return parseUntil(stopChars, commaWhitespace, false);
+    }
+
+    /**
+     * As {@link #parseUntil(String, boolean)}, for values that are ids, which are interned.
+     */
+    @Nonnull
+    private String parseIdUntil(@Nonnull String stopChars, boolean commaWhitespace) {
+        return parseUntil(stopChars, commaWhitespace, true);
+    }
+
+    @Nonnull
+    private String parseUntil(@Nonnull String stopChars, boolean commaWhitespace, boolean intern) {
+        var i = pos;
+        var escaped = false;
+        while (i < end) {
+            var c = text[i];
+            if (c == '\\') {
+                escaped = true;
+                i += 2;
+                continue;
+            }
+            if (stopChars.indexOf(c) != -1
+                    && (!commaWhitespace || c != ',' || (i + 1 < end && text[i + 1] == ' '))) {
+                break;
+            }
+            i++;
+        }
+        if (i == pos) {
+            return "";
+        }
+        if (i > end) {
+            // A trailing backslash, which OBOFormatParser fails on
+            throw FallbackRequiredException.INSTANCE;
+        }
+        String value;
+        if (escaped) {
+            value = unescape(pos, i);
+        }
+        else if (intern) {
+            value = interner.intern(text, pos, i - pos);
+        }
+        else {
+            value = new String(text, pos, i - pos);
+        }
+        pos = i;
+        return value;
+    }
+
+    @Nonnull
+    private String unescape(int start, int stop) {
+        var sb = new StringBuilder(stop - start);
+        for (int i = start; i < stop; i++) {
+            var c = text[i];
+            if (c == '\\') {
+                if (i + 1 < stop) {
+                    i++;
+                    var next = text[i];
+                    switch (next) {
+                        case 'n':
+                            sb.append('\n');
+                            break;
+                        case 'W':
+                            sb.append(' ');
+                            break;
+                        case 't':
+                            sb.append('\t');
+                            break;
+                        default:
+                            sb.append(next);
+                    }
+                }
+            }
+            else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Equivalent to {@code s.replaceAll("\\s*$", "")}.
+     */
+    @Nonnull
+    private static String removeTrailingWhitespace(@Nonnull String s) {
+        var length = s.length();
+        while (length > 0 && isRegexWhitespace(s.charAt(length - 1))) {
+            length--;
+        }
+        return length == s.length() ? s : s.substring(0, length);
+    }
+
+    private static boolean isRegexWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private boolean isEndOfLine() {
+        return pos >= end;
+    }
+
+    private boolean peekCharIs(char c) {
+        return pos < end && text[pos] == c;
+    }
+
+    private boolean consume(char c) {
+        if (peekCharIs(c)) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean consume(@Nonnull String s) {
+        if (end - pos < s.length()) {
+            return false;
+        }
+        for (int i = 0; i < s.length(); i++) {
+            if (text[pos + i] != s.charAt(i)) {
+                return false;
+            }
+        }
+        pos += s.length();
+        return true;
+    }
+
+    private int indexOf(char c) {
+        for (int i = pos; i < end; i++) {
+            if (text[i] == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void skipSpaces() {
+        while (pos < end && text[pos] == ' ') {
+            pos++;
+        }
+    }
+
+    private void skipOneOrMoreSpaces() {
+        if (!peekCharIs(' ')) {
+            throw FallbackRequiredException.INSTANCE;
+        }
+        skipSpaces();
+    }
+
+    @Nonnull
+    private static Frame parseWithOboFormatParser(@Nonnull OboStanza stanza) {
+        var parser = createOboFormatParser(stanza);
+        var capturingDoc = new FrameCapturingDoc();
+        try {
+            parser.parseEntityFrame(capturingDoc);
+        } catch (OBOFormatParserException e) {
+            throw relocate(stanza, e);
+        }
+        if (capturingDoc.frame == null) {
+            throw new OBOFormatParserException("Could not parse the stanza at line " + stanza.getStartLineNumber(),
+                                               (int) stanza.getStartLineNumber(),
+                                               null);
+        }
+        return capturingDoc.frame;
+    }
+
+    @Nonnull
+    private static OBOFormatParser createOboFormatParser(@Nonnull OboStanza stanza) {
+        var parser = new OBOFormatParser();
+        parser.setReader(new BufferedReader(new CharArrayReader(stanza.getText(), 0, stanza.getLength())));
+        return parser;
+    }
+
+    /**
+     * Translates the line number of an exception that was thrown when parsing the stanza on its own into
+     * a line number in the input.  The message, line and cause are kept, so the exception is the same as the
+     * one that {@link OBOFormatParser} throws when it parses the whole input.
+     */
+    @Nonnull
+    private static OBOFormatParserException relocate(@Nonnull OboStanza stanza,
+                                                     @Nonnull OBOFormatParserException e) {
+        var lineNumber = (int) stanza.getStartLineNumber() + e.getLineNo() - 1;
+        var relocated = new OBOFormatParserException(getDetailMessage(e), e.getCause(), lineNumber, e.getLine());
+        relocated.setStackTrace(e.getStackTrace());
+        return relocated;
+    }
+
+    /**
+     * Gets the message that an exception was created with, without the line number and line that
+     * {@link OBOFormatParserException#getMessage()} adds to it.
+     */
+    @Nonnull
+    private static String getDetailMessage(@Nonnull OBOFormatParserException e) {
+        var message = e.getMessage();
+        var prefix = "LINENO: " + e.getLineNo() + " - ";
+        var suffix = "\nLINE: " + e.getLine();
+        if (message.startsWith(prefix) && message.endsWith(suffix)) {
+            return message.substring(prefix.length(), message.length() - suffix.length());
+        }
+        return message;
+    }
+
+    /**
+     * Captures the frame that {@link OBOFormatParser#parseEntityFrame(OBODoc)} parses.
+     */
+    private static class FrameCapturingDoc extends OBODoc {
+
+        private Frame frame;
+
+        @Override
+        public void addFrame(@Nonnull Frame f) throws FrameMergeException {
+            frame = f;
+        }
+    }
+
+    /**
+     * Maps the chars of a tag to the canonical tag String without creating a String for the tag.
+     */
+    private static final class TagTable {
+
+        private static final String[] DEPRECATED_TAGS = {
+                "exact_synonym", "narrow_synonym", "broad_synonym", "related_synonym",
+                "inverse_of_on_instance_level", "xref_analog", "xref_unknown", "instance_level_is_transitive",
+                "is_metadata"
+        };
+
+        private final String[] tags = new String[256];
+
+        private final Map<String, OboFormatTag> formatTags = new HashMap<>();
+
+        private final Map<String, Boolean> deprecatedTags = new HashMap<>();
+
+        private TagTable() {
+            for (var formatTag : OboFormatTag.values()) {
+                add(formatTag.getTag());
+                formatTags.put(formatTag.getTag(), formatTag);
+            }
+            for (var deprecatedTag : DEPRECATED_TAGS) {
+                add(deprecatedTag);
+                deprecatedTags.put(deprecatedTag, Boolean.TRUE);
+            }
+        }
+
+        private void add(@Nonnull String tag) {
+            var index = tag.hashCode() & (tags.length - 1);
+            while (tags[index] != null) {
+                index = (index + 1) & (tags.length - 1);
+            }
+            tags[index] = tag;
+        }
+
+        @Nullable
+        String getTag(@Nonnull char[] chars, int start, int end) {
+            var hash = 0;
+            for (int i = start; i < end; i++) {
+                hash = 31 * hash + chars[i];
+            }
+            var index = hash & (tags.length - 1);
+            while (tags[index] != null) {
+                if (matches(tags[index], chars, start, end)) {
+                    return tags[index];
+                }
+                index = (index + 1) & (tags.length - 1);
+            }
+            return null;
+        }
+
+        private static boolean matches(@Nonnull String tag, @Nonnull char[] chars, int start, int end) {
+            if (tag.length() != end - start) {
+                return false;
+            }
+            for (int i = 0; i < tag.length(); i++) {
+                if (tag.charAt(i) != chars[start + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Nullable
+        OboFormatTag getFormatTag(@Nonnull String tag) {
+            return formatTags.get(tag);
+        }
+
+        boolean isDeprecated(@Nonnull String tag) {
+            return deprecatedTags.containsKey(tag);
+        }
+    }
+}
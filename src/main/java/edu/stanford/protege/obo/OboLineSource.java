@@ -0,0 +1,25 @@
+package edu.stanford.protege.obo;
+
+import javax.annotation.Nonnull;
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Supplies the lines of an OBO document to an {@link OboStanzaLexer}.  Lines end with "\n", "\r\n" or "\r".
+ */
+interface OboLineSource extends Closeable {
+
+    /**
+     * Appends the chars of the next line, without its line terminator, to the text of the specified stanza.
+     * The length of the stanza is not changed.
+     * @return The offset of the end of the line in the stanza text or -1 if the end of the input has been
+     * reached.
+     */
+    int readLine(@Nonnull OboStanza stanza) throws IOException;
+
+    /**
+     * Gets the byte offset of the start of the line that was read last, or -1 if this source does not track
+     * byte offsets.
+     */
+    long getLineStartByteOffset();
+}
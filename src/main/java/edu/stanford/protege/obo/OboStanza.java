@@ -0,0 +1,212 @@
+package edu.stanford.protege.obo;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+
+/**
+ * A mutable, reusable holder for the raw text of one stanza.  The text of every line of the stanza,
+ * including its header line, blank lines and comment lines, is stored in a single char array with lines
+ * separated by '\n'.  For each clause line the lexer records the offsets of the line, the start of the
+ * tag and the tag/value separator, so that values can be tokenised in place without creating a String
+ * per line.
+ */
+final class OboStanza {
+
+    enum Type {
+
+        /**
+         * The lines that precede the first stanza header
+         */
+        HEADER,
+
+        TERM,
+
+        TYPEDEF,
+
+        INSTANCE,
+
+        /**
+         * A stanza with an unrecognised or malformed header line
+         */
+        UNKNOWN
+    }
+
+    private static final int INITIAL_TEXT_CAPACITY = 4096;
+
+    private static final int INITIAL_CLAUSE_CAPACITY = 32;
+
+    private Type type = Type.HEADER;
+
+    private char[] text = new char[INITIAL_TEXT_CAPACITY];
+
+    private int length = 0;
+
+    private int lineCount = 0;
+
+    private long startLineNumber = 1;
+
+    private long startByteOffset = -1;
+
+    private int clauseCount = 0;
+
+    private int[] clauseLineIndexes = new int[INITIAL_CLAUSE_CAPACITY];
+
+    private int[] clauseLineStarts = new int[INITIAL_CLAUSE_CAPACITY];
+
+    private int[] clauseTagStarts = new int[INITIAL_CLAUSE_CAPACITY];
+
+    private int[] clauseSeparators = new int[INITIAL_CLAUSE_CAPACITY];
+
+    private int[] clauseLineEnds = new int[INITIAL_CLAUSE_CAPACITY];
+
+    void clear() {
+        type = Type.HEADER;
+        length = 0;
+        lineCount = 0;
+        clauseCount = 0;
+        startByteOffset = -1;
+    }
+
+    @Nonnull
+    Type getType() {
+        return type;
+    }
+
+    void setType(@Nonnull Type type) {
+        this.type = type;
+    }
+
+    /**
+     * Gets the (one based) line number of the first line of this stanza in the input.
+     */
+    long getStartLineNumber() {
+        return startLineNumber;
+    }
+
+    void setStartLineNumber(long startLineNumber) {
+        this.startLineNumber = startLineNumber;
+    }
+
+    /**
+     * Gets the byte offset of the first line of this stanza in the input, or -1 if the lexer does not
+     * track byte offsets.
+     */
+    long getStartByteOffset() {
+        return startByteOffset;
+    }
+
+    void setStartByteOffset(long startByteOffset) {
+        this.startByteOffset = startByteOffset;
+    }
+
+    /**
+     * Gets the backing array of the stanza text.  Only the first {@link #getLength()} chars are valid.
+     */
+    @Nonnull
+    char[] getText() {
+        return text;
+    }
+
+    int getLength() {
+        return length;
+    }
+
+    int getLineCount() {
+        return lineCount;
+    }
+
+    boolean isEmpty() {
+        return lineCount == 0;
+    }
+
+    /**
+     * Ensures that there is room for another {@code additional} chars of text and returns the backing
+     * array, which may have been reallocated.
+     */
+    @Nonnull
+    char[] ensureTextCapacity(int additional) {
+        var required = length + additional;
+        if (required > text.length) {
+            text = Arrays.copyOf(text, Math.max(required, text.length * 2));
+        }
+        return text;
+    }
+
+    /**
+     * Marks the end of a line whose text has been written to the backing array from the current length
+     * up to {@code lineEnd}.  A line separator is appended.
+     */
+    void endLine(int lineEnd) {
+        length = lineEnd;
+        ensureTextCapacity(1);
+        text[length++] = '\n';
+        lineCount++;
+    }
+
+    /**
+     * Appends a whole line to the text.
+     */
+    void appendLine(@Nonnull char[] chars, int start, int end) {
+        var len = end - start;
+        ensureTextCapacity(len);
+        System.arraycopy(chars, start, text, length, len);
+        endLine(length + len);
+    }
+
+    /**
+     * Records a clause line of the stanza.
+     * @param lineStart The offset of the first char of the line
+     * @param tagStart The offset of the first char of the tag (after any leading spaces)
+     * @param separator The offset of the ':' that separates the tag from the value, or -1 if the line
+     *                  does not contain a ':'
+     * @param lineEnd The offset after the last char of the line
+     */
+    void addClause(int lineStart, int tagStart, int separator, int lineEnd) {
+        if (clauseCount == clauseLineStarts.length) {
+            var capacity = clauseCount * 2;
+            clauseLineIndexes = Arrays.copyOf(clauseLineIndexes, capacity);
+            clauseLineStarts = Arrays.copyOf(clauseLineStarts, capacity);
+            clauseTagStarts = Arrays.copyOf(clauseTagStarts, capacity);
+            clauseSeparators = Arrays.copyOf(clauseSeparators, capacity);
+            clauseLineEnds = Arrays.copyOf(clauseLineEnds, capacity);
+        }
+        clauseLineIndexes[clauseCount] = lineCount;
+        clauseLineStarts[clauseCount] = lineStart;
+        clauseTagStarts[clauseCount] = tagStart;
+        clauseSeparators[clauseCount] = separator;
+        clauseLineEnds[clauseCount] = lineEnd;
+        clauseCount++;
+    }
+
+    int getClauseCount() {
+        return clauseCount;
+    }
+
+    /**
+     * Gets the (zero based) index of the line of the specified clause within this stanza.
+     */
+    int getClauseLineIndex(int clause) {
+        return clauseLineIndexes[clause];
+    }
+
+    int getClauseLineStart(int clause) {
+        return clauseLineStarts[clause];
+    }
+
+    int getClauseTagStart(int clause) {
+        return clauseTagStarts[clause];
+    }
+
+    int getClauseSeparator(int clause) {
+        return clauseSeparators[clause];
+    }
+
+    int getClauseLineEnd(int clause) {
+        return clauseLineEnds[clause];
+    }
+
+    @Override
+    public String toString() {
+        return "OboStanza(" + type + " line " + startLineNumber + ")";
+    }
+}
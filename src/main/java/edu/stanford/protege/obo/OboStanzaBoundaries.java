@@ -0,0 +1,187 @@
+package edu.stanford.protege.obo;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Locates stanza boundaries in a seekable OBO file.  A stanza boundary is the byte offset of a line
+ * that starts with a stanza header ("[Term]", "[Typedef]" or "[Instance]").  Because '\n' and '['
+ * never occur inside a multi-byte UTF-8 sequence, boundaries can be found by scanning raw bytes from
+ * an arbitrary offset without decoding anything that precedes it.
+ */
+final class OboStanzaBoundaries {
+
+    private static final int SCAN_BUFFER_SIZE = 64 * 1024;
+
+    private static final byte[][] STANZA_HEADERS = {
+            "[Term]".getBytes(StandardCharsets.US_ASCII),
+            "[Typedef]".getBytes(StandardCharsets.US_ASCII),
+            "[Instance]".getBytes(StandardCharsets.US_ASCII)
+    };
+
+    private static final byte[] TYPEDEF_HEADER = "[Typedef]".getBytes(StandardCharsets.US_ASCII);
+
+    private static final int MAX_HEADER_LENGTH = "[Instance]".length();
+
+    private OboStanzaBoundaries() {
+    }
+
+    /**
+     * Splits the file into at most {@code count} contiguous byte ranges that start on stanza boundaries.
+     * The first range always starts at zero (so that it includes the header frame) and the last range
+     * always ends at the end of the file.  Fewer ranges are returned if the file does not contain
+     * enough stanzas.
+     */
+    @Nonnull
+    static List<ByteRange> split(@Nonnull FileChannel channel, int count) throws IOException {
+        checkArgument(count > 0, "count must be greater than zero");
+        var size = channel.size();
+        var ranges = new ArrayList<ByteRange>(count);
+        var start = 0L;
+        for (int i = 1; i < count && start < size; i++) {
+            var target = Math.max(start + 1, (size / count) * i);
+            var boundary = nextStanzaStart(channel, target);
+            if (boundary >= size) {
+                break;
+            }
+            ranges.add(new ByteRange(start, boundary));
+            start = boundary;
+        }
+        ranges.add(new ByteRange(start, size));
+        return ranges;
+    }
+
+    /**
+     * Finds the offset of the first stanza header line that starts at or after {@code from}.
+     * @return The offset, or the size of the file if there is no further stanza.
+     */
+    static long nextStanzaStart(@Nonnull FileChannel channel, long from) throws IOException {
+        var size = channel.size();
+        if (from <= 0) {
+            return isStanzaHeaderAt(channel, 0) ? 0 : nextStanzaStart(channel, 1);
+        }
+        // The buffer overlaps the next window by the length of the longest header so that a header
+        // which straddles two windows is still seen in full
+        var buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE + MAX_HEADER_LENGTH);
+        // Start one byte early so that we can see whether "from" itself is at the start of a line
+        var position = from - 1;
+        while (position < size) {
+            buffer.clear();
+            var read = readFully(channel, buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            var array = buffer.array();
+            var limit = Math.min(read, SCAN_BUFFER_SIZE);
+            for (int i = 0; i < limit; i++) {
+                if (array[i] == '\n' && startsWithStanzaHeader(array, i + 1, read)) {
+                    return position + i + 1;
+                }
+            }
+            position += limit;
+        }
+        return size;
+    }
+
+    /**
+     * Finds the Typedef stanzas that start in the specified part of the file.  Translating a Term stanza
+     * looks up the Typedef stanzas that precede it, so a parse of part of a file reads the Typedef stanzas
+     * before the part first.  Like {@link #nextStanzaStart(FileChannel, long)} this only scans raw bytes.
+     * @param start The offset to scan from.
+     * @param end The offset to scan to.  A Typedef stanza that starts before it but ends after it is included.
+     * @return The ranges of the Typedef stanzas, in file order.  Each range extends to the next stanza.
+     */
+    @Nonnull
+    static List<ByteRange> findTypedefRanges(@Nonnull FileChannel channel, long start, long end) throws IOException {
+        var size = channel.size();
+        var ranges = new ArrayList<ByteRange>();
+        var typedefStart = -1L;
+        if (start <= 0 && end > 0 && isTypedefHeaderAt(channel, 0)) {
+            typedefStart = 0;
+        }
+        var buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE + MAX_HEADER_LENGTH);
+        // Start one byte early so that a header at "start" is seen after its newline
+        var position = Math.max(0, start - 1);
+        while (position < size && (position < end || typedefStart != -1)) {
+            buffer.clear();
+            var read = readFully(channel, buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            var array = buffer.array();
+            var limit = Math.min(read, SCAN_BUFFER_SIZE);
+            for (int i = 0; i < limit; i++) {
+                if (array[i] == '\n' && startsWithStanzaHeader(array, i + 1, read)) {
+                    var headerStart = position + i + 1;
+                    if (typedefStart != -1) {
+                        ranges.add(new ByteRange(typedefStart, headerStart));
+                        typedefStart = -1;
+                    }
+                    if (headerStart >= end) {
+                        return ranges;
+                    }
+                    if (regionMatches(array, i + 1, read, TYPEDEF_HEADER)) {
+                        typedefStart = headerStart;
+                    }
+                }
+            }
+            position += limit;
+        }
+        if (typedefStart != -1) {
+            ranges.add(new ByteRange(typedefStart, size));
+        }
+        return ranges;
+    }
+
+    private static boolean isTypedefHeaderAt(@Nonnull FileChannel channel, long position) throws IOException {
+        var buffer = ByteBuffer.allocate(TYPEDEF_HEADER.length);
+        var read = readFully(channel, buffer, position);
+        return regionMatches(buffer.array(), 0, read, TYPEDEF_HEADER);
+    }
+
+    private static boolean isStanzaHeaderAt(@Nonnull FileChannel channel, long position) throws IOException {
+        var buffer = ByteBuffer.allocate(MAX_HEADER_LENGTH);
+        var read = readFully(channel, buffer, position);
+        return startsWithStanzaHeader(buffer.array(), 0, read);
+    }
+
+    static boolean startsWithStanzaHeader(@Nonnull byte[] bytes, int offset, int limit) {
+        for (var header : STANZA_HEADERS) {
+            if (regionMatches(bytes, offset, limit, header)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean regionMatches(byte[] bytes, int offset, int limit, byte[] expected) {
+        if (limit - offset < expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (bytes[offset + i] != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        var total = 0;
+        while (buffer.hasRemaining()) {
+            var read = channel.read(buffer, position + total);
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,418 @@
+package edu.stanford.protege.obo;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * An index of the Term and Typedef stanzas in an OBO file, by id, which is stored in a sidecar file.  The
+ * index records the byte offset and length of each stanza so that {@link MinimalOboParser} can parse just
+ * the stanzas that it is asked for.  The sidecar file holds a table of fixed size entries, sorted by id, and
+ * a pool of UTF-8 encoded ids.  It is memory-mapped when it is opened and searched in place, so opening an
+ * index does not read it.
+ *
+ * An index records the size and modification time of the file that it was built from, and parsing with an
+ * index whose file has since changed fails.
+ */
+public final class OboStanzaIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(OboStanzaIndex.class);
+
+    private static final long MAGIC = 0x4f424f494e445831L;
+
+    private static final int HEADER_SIZE = 40;
+
+    /**
+     * The stanza offset (8 bytes), stanza length (4 bytes), id offset in the pool (4 bytes), id length
+     * (2 bytes), stanza type (1 byte) and one byte of padding.
+     */
+    private static final int ENTRY_SIZE = 20;
+
+    private static final byte TERM = 1;
+
+    private static final byte TYPEDEF = 2;
+
+    private final long sourceSize;
+
+    private final long sourceLastModified;
+
+    private final long headerLength;
+
+    private final int entryCount;
+
+    private final ByteBuffer entries;
+
+    private final ByteBuffer ids;
+
+    private OboStanzaIndex(long sourceSize,
+                           long sourceLastModified,
+                           long headerLength,
+                           int entryCount,
+                           @Nonnull ByteBuffer entries,
+                           @Nonnull ByteBuffer ids) {
+        this.sourceSize = sourceSize;
+        this.sourceLastModified = sourceLastModified;
+        this.headerLength = headerLength;
+        this.entryCount = entryCount;
+        this.entries = entries;
+        this.ids = ids;
+    }
+
+    /**
+     * Builds an index of an OBO file in one pass over the file, and writes it to a sidecar file.
+     * @param oboFile The OBO file, which must not be compressed.
+     * @param indexFile The sidecar file to write.
+     */
+    public static void build(@Nonnull Path oboFile, @Nonnull Path indexFile) throws IOException {
+        checkNotNull(oboFile);
+        checkNotNull(indexFile);
+        if (Compression.detect(oboFile) != Compression.NONE) {
+            throw new IOException("Cannot index compressed file " + oboFile);
+        }
+        var sourceLastModified = Files.getLastModifiedTime(oboFile).toMillis();
+        var builder = new EntriesBuilder();
+        long sourceSize;
+        long headerLength;
+        try (var channel = FileChannel.open(oboFile, StandardOpenOption.READ)) {
+            sourceSize = channel.size();
+            var lineSource = new MappedFileLineSource(channel, 0, sourceSize, MappedFileLineSource.DEFAULT_WINDOW_SIZE);
+            var lexer = new OboStanzaLexer(lineSource);
+            var stanza = new OboStanza();
+            headerLength = -1;
+            while (lexer.next(stanza)) {
+                if (stanza.getType() == OboStanza.Type.HEADER) {
+                    continue;
+                }
+                if (headerLength == -1) {
+                    headerLength = stanza.getStartByteOffset();
+                }
+                builder.endStanza(stanza.getStartByteOffset());
+                if (stanza.getType() == OboStanza.Type.TERM || stanza.getType() == OboStanza.Type.TYPEDEF) {
+                    var id = getId(stanza);
+                    if (id != null) {
+                        builder.startStanza(stanza.getStartByteOffset(),
+                                            stanza.getType() == OboStanza.Type.TERM ? TERM : TYPEDEF,
+                                            id);
+                    }
+                }
+            }
+            builder.endStanza(sourceSize);
+        }
+        if (headerLength == -1) {
+            headerLength = sourceSize;
+        }
+        builder.write(indexFile, sourceSize, sourceLastModified, headerLength);
+        logger.info("Indexed {} stanzas of {}", builder.size, oboFile);
+    }
+
+    /**
+     * Gets the id of a stanza from its id clause.
+     * @return The id, or null if the stanza does not have one.
+     */
+    @Nullable
+    private static String getId(@Nonnull OboStanza stanza) {
+        var text = stanza.getText();
+        for (int i = 0; i < stanza.getClauseCount(); i++) {
+            var tagStart = stanza.getClauseTagStart(i);
+            var separator = stanza.getClauseSeparator(i);
+            if (separator - tagStart != 2 || text[tagStart] != 'i' || text[tagStart + 1] != 'd') {
+                continue;
+            }
+            var lineEnd = stanza.getClauseLineEnd(i);
+            var start = separator + 1;
+            while (start < lineEnd && text[start] == ' ') {
+                start++;
+            }
+            var end = start;
+            while (end < lineEnd && text[end] != ' ' && text[end] != '!' && text[end] != '{') {
+                end++;
+            }
+            return end > start ? new String(text, start, end - start) : null;
+        }
+        return null;
+    }
+
+    /**
+     * Opens an index by memory-mapping its sidecar file.
+     */
+    @Nonnull
+    public static OboStanzaIndex open(@Nonnull Path indexFile) throws IOException {
+        checkNotNull(indexFile);
+        try (var channel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+            var header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getLong() != MAGIC) {
+                throw new IOException(indexFile + " is not an OBO stanza index");
+            }
+            var sourceSize = header.getLong();
+            var sourceLastModified = header.getLong();
+            var headerLength = header.getLong();
+            var entryCount = header.getInt();
+            var idsSize = header.getInt();
+            var entriesSize = (long) entryCount * ENTRY_SIZE;
+            if (HEADER_SIZE + entriesSize + idsSize != channel.size()) {
+                throw new IOException(indexFile + " is truncated");
+            }
+            var entries = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, entriesSize);
+            var ids = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + entriesSize, idsSize);
+            return new OboStanzaIndex(sourceSize, sourceLastModified, headerLength, entryCount, entries, ids);
+        }
+    }
+
+    /**
+     * Gets the number of stanzas in the index.
+     */
+    public int size() {
+        return entryCount;
+    }
+
+    /**
+     * Determines whether the index has a stanza with the specified id.
+     */
+    public boolean contains(@Nonnull String id) {
+        return firstEntry(id.getBytes(StandardCharsets.UTF_8)) != -1;
+    }
+
+    /**
+     * Checks that the index was built from the current version of the specified file.
+     */
+    void checkSource(@Nonnull Path oboFile) throws IOException {
+        if (Files.size(oboFile) != sourceSize || Files.getLastModifiedTime(oboFile).toMillis() != sourceLastModified) {
+            throw new IOException("The stanza index is out of date with respect to " + oboFile);
+        }
+    }
+
+    /**
+     * Gets the range of bytes before the first stanza, which holds the header frame.
+     */
+    @Nonnull
+    ByteRange getHeaderRange() {
+        return new ByteRange(0, headerLength);
+    }
+
+    /**
+     * Gets the ranges of the stanzas with the specified ids, together with the ranges of the Typedef stanzas
+     * that precede any of them, in the order in which they occur in the file.  Translating a stanza looks up
+     * the Typedef stanzas that precede it, so parsing these ranges gives the same axioms for the stanzas with
+     * the specified ids as parsing the whole file.  Ids that are not in the index are ignored.
+     */
+    @Nonnull
+    List<ByteRange> getStanzaRanges(@Nonnull Iterable<String> ids) {
+        var ranges = new ArrayList<ByteRange>();
+        var lastStart = -1L;
+        for (var id : ids) {
+            var idBytes = id.getBytes(StandardCharsets.UTF_8);
+            var entry = firstEntry(idBytes);
+            if (entry == -1) {
+                continue;
+            }
+            // There may be a Term and a Typedef with the same id
+            for (int i = entry; i < entryCount && compareId(i, idBytes) == 0; i++) {
+                var range = getRange(i);
+                ranges.add(range);
+                lastStart = Math.max(lastStart, range.getStart());
+            }
+        }
+        for (int i = 0; i < entryCount; i++) {
+            if (entries.get(i * ENTRY_SIZE + 18) == TYPEDEF) {
+                var range = getRange(i);
+                if (range.getStart() < lastStart) {
+                    ranges.add(range);
+                }
+            }
+        }
+        ranges.sort((r1, r2) -> Long.compare(r1.getStart(), r2.getStart()));
+        // A requested Typedef stanza may also precede another requested stanza
+        var distinctRanges = new ArrayList<ByteRange>(ranges.size());
+        for (var range : ranges) {
+            if (distinctRanges.isEmpty() || !distinctRanges.get(distinctRanges.size() - 1).equals(range)) {
+                distinctRanges.add(range);
+            }
+        }
+        return distinctRanges;
+    }
+
+    @Nonnull
+    private ByteRange getRange(int entry) {
+        var position = entry * ENTRY_SIZE;
+        var offset = entries.getLong(position);
+        return new ByteRange(offset, offset + entries.getInt(position + 8));
+    }
+
+    /**
+     * Gets the index of the first entry with the specified id.
+     * @return The index, or -1 if there is no such entry.
+     */
+    private int firstEntry(@Nonnull byte[] id) {
+        var low = 0;
+        var high = entryCount;
+        while (low < high) {
+            var mid = (low + high) >>> 1;
+            if (compareId(mid, id) < 0) {
+                low = mid + 1;
+            }
+            else {
+                high = mid;
+            }
+        }
+        return low < entryCount && compareId(low, id) == 0 ? low : -1;
+    }
+
+    private int compareId(int entry, @Nonnull byte[] id) {
+        var position = entry * ENTRY_SIZE;
+        var idOffset = entries.getInt(position + 12);
+        var idLength = entries.getShort(position + 16) & 0xFFFF;
+        var length = Math.min(idLength, id.length);
+        for (int i = 0; i < length; i++) {
+            var c = Integer.compare(ids.get(idOffset + i) & 0xFF, id[i] & 0xFF);
+            if (c != 0) {
+                return c;
+            }
+        }
+        return Integer.compare(idLength, id.length);
+    }
+
+    /**
+     * Accumulates entries in parallel primitive arrays while the file is read, and sorts and writes them.
+     */
+    private static final class EntriesBuilder {
+
+        private long[] offsets = new long[1024];
+
+        private int[] lengths = new int[1024];
+
+        private int[] idOffsets = new int[1024];
+
+        private short[] idLengths = new short[1024];
+
+        private byte[] types = new byte[1024];
+
+        private byte[] idPool = new byte[16 * 1024];
+
+        private int idPoolSize = 0;
+
+        private int size = 0;
+
+        /**
+         * The offset of the stanza that has been started but not ended, or -1.
+         */
+        private long openStanzaOffset = -1;
+
+        void startStanza(long offset, byte type, @Nonnull String id) throws IOException {
+            var idBytes = id.getBytes(StandardCharsets.UTF_8);
+            if (idBytes.length > 0xFFFF) {
+                throw new IOException("Id too long to index at offset " + offset);
+            }
+            if (size == offsets.length) {
+                var capacity = size * 2;
+                offsets = Arrays.copyOf(offsets, capacity);
+                lengths = Arrays.copyOf(lengths, capacity);
+                idOffsets = Arrays.copyOf(idOffsets, capacity);
+                idLengths = Arrays.copyOf(idLengths, capacity);
+                types = Arrays.copyOf(types, capacity);
+            }
+            if (idPoolSize + idBytes.length > idPool.length) {
+                if ((long) idPoolSize + idBytes.length > Integer.MAX_VALUE - 8) {
+                    throw new IOException("Too many ids to index");
+                }
+                var capacity = Math.max(idPool.length * 2L, idPoolSize + idBytes.length);
+                idPool = Arrays.copyOf(idPool, (int) Math.min(Integer.MAX_VALUE - 8, capacity));
+            }
+            System.arraycopy(idBytes, 0, idPool, idPoolSize, idBytes.length);
+            offsets[size] = offset;
+            idOffsets[size] = idPoolSize;
+            idLengths[size] = (short) idBytes.length;
+            types[size] = type;
+            idPoolSize += idBytes.length;
+            openStanzaOffset = offset;
+        }
+
+        void endStanza(long end) throws IOException {
+            if (openStanzaOffset == -1) {
+                return;
+            }
+            if (end - openStanzaOffset > Integer.MAX_VALUE) {
+                throw new IOException("Stanza too large to index at offset " + openStanzaOffset);
+            }
+            lengths[size] = (int) (end - openStanzaOffset);
+            size++;
+            openStanzaOffset = -1;
+        }
+
+        void write(@Nonnull Path indexFile, long sourceSize, long sourceLastModified, long headerLength) throws IOException {
+            var order = sortedOrder();
+            try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(indexFile), 64 * 1024))) {
+                out.writeLong(MAGIC);
+                out.writeLong(sourceSize);
+                out.writeLong(sourceLastModified);
+                out.writeLong(headerLength);
+                out.writeInt(size);
+                out.writeInt(idPoolSize);
+                for (var i : order) {
+                    out.writeLong(offsets[i]);
+                    out.writeInt(lengths[i]);
+                    out.writeInt(idOffsets[i]);
+                    out.writeShort(idLengths[i]);
+                    out.writeByte(types[i]);
+                    out.writeByte(0);
+                }
+                out.write(idPool, 0, idPoolSize);
+            }
+        }
+
+        /**
+         * Sorts the entries by id, with a merge sort of entry indexes so that ids are compared in place.
+         * Entries with the same id stay in file order.
+         */
+        @Nonnull
+        private int[] sortedOrder() {
+            var order = new int[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            var buffer = new int[size];
+            for (int width = 1; width < size; width *= 2) {
+                for (int low = 0; low < size - width; low += 2 * width) {
+                    merge(order, buffer, low, low + width, Math.min(low + 2 * width, size));
+                }
+            }
+            return order;
+        }
+
+        private void merge(int[] order, int[] buffer, int low, int mid, int high) {
+            System.arraycopy(order, low, buffer, low, high - low);
+            int i = low, j = mid, k = low;
+            while (i < mid && j < high) {
+                order[k++] = compareIds(buffer[j], buffer[i]) < 0 ? buffer[j++] : buffer[i++];
+            }
+            while (i < mid) {
+                order[k++] = buffer[i++];
+            }
+            while (j < high) {
+                order[k++] = buffer[j++];
+            }
+        }
+
+        private int compareIds(int a, int b) {
+            var lengthA = idLengths[a] & 0xFFFF;
+            var lengthB = idLengths[b] & 0xFFFF;
+            return Arrays.compareUnsigned(idPool, idOffsets[a], idOffsets[a] + lengthA,
+                                          idPool, idOffsets[b], idOffsets[b] + lengthB);
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package edu.stanford.protege.obo;
+
+import javax.annotation.Nonnull;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.Arrays;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Splits the lines of an OBO document into stanzas.  The lexer only does the work that is needed to find stanza
+ * boundaries and clause lines: it copies the chars of each line into a reusable {@link OboStanza} and
+ * records where the tag of each clause line starts and where its tag/value separator is.  It does not
+ * create any objects per line.  Tokenising values is left to {@link OboFrameBuilder}.
+ *
+ * The lexer follows the line structure that {@link org.obolibrary.oboformat.parser.OBOFormatParser}
+ * accepts: lines end with "\n", "\r\n" or "\r", leading spaces are ignored, lines that start with '!' are
+ * comments and lines that start with '[' are stanza headers.
+ */
+final class OboStanzaLexer implements Closeable {
+
+    private static final char[] TERM_HEADER = "[Term]".toCharArray();
+
+    private static final char[] TYPEDEF_HEADER = "[Typedef]".toCharArray();
+
+    private static final char[] INSTANCE_HEADER = "[Instance]".toCharArray();
+
+    private final OboLineSource lineSource;
+
+    private long lineNumber = 0;
+
+    private boolean started = false;
+
+    private char[] pendingHeaderLine = new char[16];
+
+    private int pendingHeaderLineLength = -1;
+
+    private OboStanza.Type pendingHeaderType;
+
+    private long pendingHeaderLineNumber;
+
+    private long pendingHeaderByteOffset;
+
+    /**
+     * Creates a lexer that reads chars from the specified reader.
+     */
+    OboStanzaLexer(@Nonnull Reader reader) {
+        this(new CharLineSource(reader));
+    }
+
+    /**
+     * Creates a lexer that reads UTF-8 encoded bytes from the specified stream.  Stanzas record the byte
+     * offsets of their first lines.
+     */
+    OboStanzaLexer(@Nonnull InputStream inputStream) {
+        this(new Utf8LineSource(inputStream));
+    }
+
+    OboStanzaLexer(@Nonnull OboLineSource lineSource) {
+        this.lineSource = checkNotNull(lineSource);
+    }
+
+    /**
+     * Reads the next stanza into the specified stanza holder.  The first stanza is of type
+     * {@link OboStanza.Type#HEADER} if the input has any lines before its first stanza header.
+     * @return true if a stanza was read, or false if the end of the input has been reached.
+     */
+    boolean next(@Nonnull OboStanza stanza) throws IOException {
+        stanza.clear();
+        if (pendingHeaderLineLength != -1) {
+            stanza.setType(pendingHeaderType);
+            stanza.setStartLineNumber(pendingHeaderLineNumber);
+            stanza.setStartByteOffset(pendingHeaderByteOffset);
+            stanza.appendLine(pendingHeaderLine, 0, pendingHeaderLineLength);
+            pendingHeaderLineLength = -1;
+        }
+        else if (!started) {
+            stanza.setType(OboStanza.Type.HEADER);
+            stanza.setStartLineNumber(1);
+        }
+        else {
+            return false;
+        }
+        started = true;
+        while (true) {
+            var lineStart = stanza.getLength();
+            var lineEnd = readLine(stanza);
+            if (lineEnd == -1) {
+                return !stanza.isEmpty();
+            }
+            if (stanza.isEmpty()) {
+                stanza.setStartByteOffset(lineSource.getLineStartByteOffset());
+            }
+            var text = stanza.getText();
+            var pos = lineStart;
+            while (pos < lineEnd && text[pos] == ' ') {
+                pos++;
+            }
+            if (pos == lineEnd || text[pos] == '!') {
+                stanza.endLine(lineEnd);
+            }
+            else if (text[pos] == '[') {
+                var type = getStanzaType(text, pos, lineEnd);
+                if (stanza.isEmpty()) {
+                    // The input starts with a stanza header so there aren't any header lines
+                    stanza.setType(type);
+                    stanza.setStartLineNumber(lineNumber);
+                    stanza.endLine(lineEnd);
+                }
+                else {
+                    setPendingHeaderLine(text, lineStart, lineEnd, type);
+                    return true;
+                }
+            }
+            else {
+                var separator = indexOf(text, pos, lineEnd, ':');
+                stanza.addClause(lineStart, pos, separator, lineEnd);
+                stanza.endLine(lineEnd);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of lines that have been read so far.
+     */
+    long getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Gets the byte offset of the start of the next stanza, whose header line the lexer has already read, or
+     * -1 if the end of the input has been reached or the line source does not track byte offsets.
+     */
+    long getNextStanzaByteOffset() {
+        return pendingHeaderLineLength != -1 ? pendingHeaderByteOffset : -1;
+    }
+
+    private void setPendingHeaderLine(char[] text, int lineStart, int lineEnd, OboStanza.Type type) {
+        var length = lineEnd - lineStart;
+        if (pendingHeaderLine.length < length) {
+            pendingHeaderLine = Arrays.copyOf(pendingHeaderLine, length);
+        }
+        System.arraycopy(text, lineStart, pendingHeaderLine, 0, length);
+        pendingHeaderLineLength = length;
+        pendingHeaderType = type;
+        pendingHeaderLineNumber = lineNumber;
+        pendingHeaderByteOffset = lineSource.getLineStartByteOffset();
+    }
+
+    @Nonnull
+    private static OboStanza.Type getStanzaType(char[] text, int pos, int lineEnd) {
+        if (startsWith(text, pos, lineEnd, INSTANCE_HEADER)) {
+            return OboStanza.Type.INSTANCE;
+        }
+        if (startsWith(text, pos, lineEnd, TERM_HEADER)
+                && isBlank(text, pos + TERM_HEADER.length, lineEnd)) {
+            return OboStanza.Type.TERM;
+        }
+        if (startsWith(text, pos, lineEnd, TYPEDEF_HEADER)
+                && isBlank(text, pos + TYPEDEF_HEADER.length, lineEnd)) {
+            return OboStanza.Type.TYPEDEF;
+        }
+        return OboStanza.Type.UNKNOWN;
+    }
+
+    private static boolean startsWith(char[] text, int pos, int end, char[] prefix) {
+        if (end - pos < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (text[pos + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isBlank(char[] text, int pos, int end) {
+        for (int i = pos; i < end; i++) {
+            if (text[i] != ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(char[] text, int pos, int end, char c) {
+        for (int i = pos; i < end; i++) {
+            if (text[i] == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Reads the next line into the stanza text.
+     * @return The offset of the end of the line in the stanza text or -1 if the end of the input has been
+     * reached.
+     */
+    private int readLine(@Nonnull OboStanza stanza) throws IOException {
+        var lineEnd = lineSource.readLine(stanza);
+        if (lineEnd != -1) {
+            lineNumber++;
+        }
+        return lineEnd;
+    }
+
+    @Override
+    public void close() throws IOException {
+        lineSource.close();
+    }
+}
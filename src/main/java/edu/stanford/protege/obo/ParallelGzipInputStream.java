@@ -0,0 +1,180 @@
+package edu.stanford.protege.obo;
+
+import com.google.common.base.Throwables;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.zip.ZipException;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Decompresses multi-member gzip input whose members record their own size (see {@link GzipMembers}) on a
+ * pool of threads.  A reader thread splits the compressed input into members and hands each member to the
+ * pool.  The decompressed members are read back in their original order, through a bounded queue, so at
+ * most a few members per thread are ever held in memory.
+ */
+final class ParallelGzipInputStream extends InputStream {
+
+    private static final Future<byte[]> END_OF_MEMBERS = CompletableFuture.completedFuture(new byte[0]);
+
+    private static final int MEMBERS_PER_THREAD = 4;
+
+    private final InputStream source;
+
+    private final ExecutorService executor;
+
+    private final BlockingQueue<Future<byte[]>> members;
+
+    private final Thread readerThread;
+
+    private byte[] currentMember = new byte[0];
+
+    private int currentPosition = 0;
+
+    private boolean endOfInput = false;
+
+    ParallelGzipInputStream(@Nonnull InputStream source,
+                            int threads,
+                            @Nonnull ThreadFactory threadFactory) {
+        checkArgument(threads > 0, "threads must be greater than zero");
+        this.source = checkNotNull(source);
+        this.executor = Executors.newFixedThreadPool(threads, threadFactory);
+        this.members = new ArrayBlockingQueue<>(threads * MEMBERS_PER_THREAD);
+        this.readerThread = threadFactory.newThread(this::readMembers);
+        this.readerThread.start();
+    }
+
+    private void readMembers() {
+        try {
+            var offset = 0L;
+            var header = new byte[GzipMembers.FIXED_HEADER_LENGTH];
+            while (true) {
+                var headerLength = readFully(header, 0, header.length);
+                if (headerLength == 0) {
+                    break;
+                }
+                if (headerLength < header.length) {
+                    throw new ZipException("Truncated gzip member at offset " + offset);
+                }
+                var extraLength = GzipMembers.readUInt16(header, 10);
+                var extendedHeader = new byte[header.length + extraLength];
+                System.arraycopy(header, 0, extendedHeader, 0, header.length);
+                if (readFully(extendedHeader, header.length, extraLength) < extraLength) {
+                    throw new ZipException("Truncated gzip member at offset " + offset);
+                }
+                var memberSize = GzipMembers.getMemberSize(extendedHeader, extendedHeader.length);
+                if (memberSize < extendedHeader.length || memberSize > Integer.MAX_VALUE - 8) {
+                    throw new ZipException("gzip member at offset " + offset + " does not record its size");
+                }
+                var member = new byte[(int) memberSize];
+                System.arraycopy(extendedHeader, 0, member, 0, extendedHeader.length);
+                if (readFully(member, extendedHeader.length, member.length - extendedHeader.length)
+                        < member.length - extendedHeader.length) {
+                    throw new ZipException("Truncated gzip member at offset " + offset);
+                }
+                var memberOffset = offset;
+                members.put(executor.submit(() -> GzipMembers.inflate(member, memberOffset)));
+                offset += memberSize;
+            }
+            members.put(END_OF_MEMBERS);
+        } catch (InterruptedException e) {
+            // Closed by the consumer
+        } catch (Throwable t) {
+            // Including an OutOfMemoryError for a large member or a rejected task, which would otherwise leave
+            // the consumer waiting for a member that never arrives
+            try {
+                members.put(CompletableFuture.failedFuture(t));
+            } catch (InterruptedException interruptedException) {
+                // Closed by the consumer
+            }
+        }
+    }
+
+    private int readFully(@Nonnull byte[] buffer, int off, int len) throws IOException {
+        var total = 0;
+        while (total < len) {
+            var read = source.read(buffer, off + total, len - total);
+            if (read == -1) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (currentPosition == currentMember.length && !nextMember()) {
+            return -1;
+        }
+        return currentMember[currentPosition++] & 0xFF;
+    }
+
+    @Override
+    public int read(@Nonnull byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (currentPosition == currentMember.length && !nextMember()) {
+            return -1;
+        }
+        var read = Math.min(len, currentMember.length - currentPosition);
+        System.arraycopy(currentMember, currentPosition, b, off, read);
+        currentPosition += read;
+        return read;
+    }
+
+    /**
+     * Moves to the next non-empty member.
+     * @return false if there are no more members.
+     */
+    private boolean nextMember() throws IOException {
+        while (!endOfInput) {
+            try {
+                var member = members.take();
+                if (member == END_OF_MEMBERS) {
+                    endOfInput = true;
+                    return false;
+                }
+                currentMember = member.get();
+                currentPosition = 0;
+                if (currentMember.length > 0) {
+                    return true;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for input");
+            } catch (ExecutionException e) {
+                endOfInput = true;
+                var cause = e.getCause();
+                Throwables.propagateIfPossible(cause, IOException.class);
+                throw new IOException(cause);
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        readerThread.interrupt();
+        try {
+            readerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        executor.shutdownNow();
+        source.close();
+    }
+}
@@ -0,0 +1,211 @@
+package edu.stanford.protege.obo;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Writes periodic checkpoints of a parse of an OBO file, and reads the last checkpoint back so that an
+ * interrupted parse can be resumed.  A checkpoint is taken between two stanzas, once all of the axioms of the
+ * stanzas before it have been delivered, and records:
+ *
+ * <ul>
+ *     <li>the byte offset of the next stanza, which is where a resumed parse starts reading,</li>
+ *     <li>the number of axioms that have been delivered,</li>
+ *     <li>the extent of the header and of any Typedef stanzas that have been read, which a resumed parse
+ *     reads again because translation depends on them,</li>
+ *     <li>the state of the declaration filter, so that declarations are not delivered again.</li>
+ * </ul>
+ *
+ * Checkpoints are written to a temporary file which is then moved over the checkpoint file, so a crash while
+ * writing leaves the previous checkpoint intact.  A checkpoint also records the size and modification time
+ * of the file, and resuming a parse of a file that has changed fails.
+ */
+final class ParseCheckpoints {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParseCheckpoints.class);
+
+    private static final long MAGIC = 0x4f424f434b505431L;
+
+    private final Path checkpointFile;
+
+    private final long interval;
+
+    private final long sourceSize;
+
+    private final long sourceLastModified;
+
+    private final DeclarationFilter declarationFilter;
+
+    private final List<ByteRange> typedefRanges = new ArrayList<>();
+
+    private long headerEnd = 0;
+
+    private long resumeOffset = 0;
+
+    private long resumedAxiomsCount = 0;
+
+    private long lastCheckpointOffset = 0;
+
+    private ParseCheckpoints(@Nonnull Path checkpointFile,
+                             long interval,
+                             long sourceSize,
+                             long sourceLastModified,
+                             @Nonnull DeclarationFilter declarationFilter) {
+        this.checkpointFile = checkNotNull(checkpointFile);
+        this.interval = interval;
+        this.sourceSize = sourceSize;
+        this.sourceLastModified = sourceLastModified;
+        this.declarationFilter = checkNotNull(declarationFilter);
+    }
+
+    /**
+     * Opens the checkpoints for a parse of the specified file.  If the checkpoint file exists then the parse
+     * resumes from it and its declaration state is read into the specified filter.
+     * @param checkpointFile The file that checkpoints are written to.
+     * @param interval The number of bytes of the OBO file that are parsed between checkpoints.
+     * @param oboFile The OBO file that is being parsed.
+     * @param declarationFilter The declaration filter of the parse, which must be empty.
+     * @throws IOException if the checkpoint file cannot be read or was written for a different version of the
+     * OBO file.
+     */
+    @Nonnull
+    static ParseCheckpoints open(@Nonnull Path checkpointFile,
+                                 long interval,
+                                 @Nonnull Path oboFile,
+                                 @Nonnull DeclarationFilter declarationFilter) throws IOException {
+        checkArgument(interval > 0, "interval must be greater than zero");
+        var checkpoints = new ParseCheckpoints(checkpointFile,
+                                               interval,
+                                               Files.size(oboFile),
+                                               Files.getLastModifiedTime(oboFile).toMillis(),
+                                               declarationFilter);
+        if (Files.exists(checkpointFile)) {
+            checkpoints.read(oboFile);
+        }
+        return checkpoints;
+    }
+
+    private void read(@Nonnull Path oboFile) throws IOException {
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(checkpointFile)))) {
+            if (in.readLong() != MAGIC) {
+                throw new IOException(checkpointFile + " is not a parse checkpoint");
+            }
+            if (in.readLong() != sourceSize || in.readLong() != sourceLastModified) {
+                throw new IOException("The checkpoint " + checkpointFile + " was written for a different version of " + oboFile);
+            }
+            headerEnd = in.readLong();
+            resumeOffset = in.readLong();
+            resumedAxiomsCount = in.readLong();
+            var typedefRangeCount = in.readInt();
+            for (int i = 0; i < typedefRangeCount; i++) {
+                typedefRanges.add(new ByteRange(in.readLong(), in.readLong()));
+            }
+            declarationFilter.readState(in);
+        }
+        lastCheckpointOffset = resumeOffset;
+    }
+
+    /**
+     * Gets the byte offset that the parse starts reading stanzas from.  This is zero unless the parse is
+     * resumed from a checkpoint.
+     */
+    long getResumeOffset() {
+        return resumeOffset;
+    }
+
+    /**
+     * Gets the number of axioms that were delivered before the checkpoint that the parse resumed from.
+     */
+    long getResumedAxiomsCount() {
+        return resumedAxiomsCount;
+    }
+
+    /**
+     * Gets the ranges of the header and Typedef stanzas that precede the resume offset, in file order.  These
+     * must be read before the parse resumes.
+     */
+    @Nonnull
+    List<ByteRange> getResumedRanges() {
+        var ranges = new ArrayList<ByteRange>(typedefRanges.size() + 1);
+        ranges.add(new ByteRange(0, headerEnd));
+        ranges.addAll(typedefRanges);
+        return ranges;
+    }
+
+    /**
+     * Records a stanza that has just been read and writes a checkpoint if enough of the file has been read
+     * since the last one.
+     * @param frameReader The frame reader that read the stanza.
+     * @param obodoc The document that the frame of the stanza was added to.
+     */
+    void stanzaRead(@Nonnull StanzaFrameReader frameReader,
+                    @Nonnull MinimalOboDoc obodoc) throws IOException {
+        var nextStanzaOffset = frameReader.getNextStanzaByteOffset();
+        if (nextStanzaOffset == -1) {
+            return;
+        }
+        var stanzaType = frameReader.getStanzaType();
+        if (stanzaType == OboStanza.Type.HEADER) {
+            headerEnd = nextStanzaOffset;
+        }
+        else if (stanzaType == OboStanza.Type.TYPEDEF) {
+            typedefRanges.add(new ByteRange(frameReader.getStanzaByteOffset(), nextStanzaOffset));
+        }
+        if (nextStanzaOffset - lastCheckpointOffset >= interval) {
+            obodoc.flushTranslations();
+            write(nextStanzaOffset, resumedAxiomsCount + obodoc.getAxiomsCount());
+            lastCheckpointOffset = nextStanzaOffset;
+        }
+    }
+
+    private void write(long nextStanzaOffset, long axiomsCount) throws IOException {
+        var tempFile = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+        try (var channel = FileChannel.open(tempFile,
+                                            StandardOpenOption.CREATE,
+                                            StandardOpenOption.WRITE,
+                                            StandardOpenOption.TRUNCATE_EXISTING)) {
+            var out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            out.writeLong(MAGIC);
+            out.writeLong(sourceSize);
+            out.writeLong(sourceLastModified);
+            out.writeLong(headerEnd);
+            out.writeLong(nextStanzaOffset);
+            out.writeLong(axiomsCount);
+            out.writeInt(typedefRanges.size());
+            for (var range : typedefRanges) {
+                out.writeLong(range.getStart());
+                out.writeLong(range.getEnd());
+            }
+            declarationFilter.writeState(out);
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(tempFile, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        logger.debug("Wrote checkpoint at byte {} after {} axioms", nextStanzaOffset, axiomsCount);
+    }
+
+    /**
+     * Deletes the checkpoint file once the parse has finished.
+     */
+    void finish() throws IOException {
+        Files.deleteIfExists(checkpointFile);
+    }
+}
@@ -0,0 +1,48 @@
+package edu.stanford.protege.obo;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Frequency;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event for a run of consecutive stanzas that was read by one thread, recording the time
+ * it took so that throughput can be followed through the input.  The stanza is the first one in the chunk.
+ * The chunk ends where the next chunk starts, except that the last chunk of a range ends at the start of its
+ * last stanza, so its bytes and throughput are slight underestimates.
+ */
+@Name("edu.stanford.protege.obo.ParseChunk")
+@Label("OBO Parse Chunk")
+@Category("OBO Parser")
+@Description("A run of consecutive stanzas and the time that it took to read them and hand them off")
+@StackTrace(false)
+final class ParseChunkEvent extends ParseEvent {
+
+    /**
+     * The number of stanzas in a chunk, apart from the last chunk of a range.
+     */
+    static final int STANZAS_COUNT = 65_536;
+
+    @Label("End Byte Offset")
+    long endByteOffset = -1;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    @Label("Stanzas Count")
+    int stanzasCount;
+
+    @Label("Throughput")
+    @DataAmount
+    @Frequency
+    long bytesPerSecond;
+
+    /**
+     * The time the chunk started, for working out the throughput, which is not recorded.
+     */
+    transient long startNanos;
+}
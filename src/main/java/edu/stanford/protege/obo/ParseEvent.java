@@ -0,0 +1,18 @@
+package edu.stanford.protege.obo;
+
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+
+/**
+ * The base of the Flight Recorder events that are emitted by the parser.  Each event is tagged with the id
+ * and byte offset of the stanza that it concerns, so that the input can be found with
+ * {@link OboStanzaIndex} or by seeking.  The byte offset is -1 if the input is not read from a mapped file.
+ */
+abstract class ParseEvent extends Event {
+
+    @Label("Stanza Id")
+    String stanzaId;
+
+    @Label("Byte Offset")
+    long byteOffset = -1;
+}
@@ -0,0 +1,97 @@
+package edu.stanford.protege.obo;
+
+/**
+ * A snapshot of the progress of a parse.  Counts cover the whole parse, across all of the translator threads
+ * and ranges that it uses.
+ */
+public final class ParseProgress {
+
+    private final long bytesRead;
+
+    private final long totalBytes;
+
+    private final long axiomsCount;
+
+    private final long framesCount;
+
+    private final long elapsedNanos;
+
+    private final long cpuTimeNanos;
+
+    ParseProgress(long bytesRead,
+                  long totalBytes,
+                  long axiomsCount,
+                  long framesCount,
+                  long elapsedNanos,
+                  long cpuTimeNanos) {
+        this.bytesRead = bytesRead;
+        this.totalBytes = totalBytes;
+        this.axiomsCount = axiomsCount;
+        this.framesCount = framesCount;
+        this.elapsedNanos = elapsedNanos;
+        this.cpuTimeNanos = cpuTimeNanos;
+    }
+
+    /**
+     * Gets the number of bytes of input that have been read.  For compressed input this is the number of
+     * compressed bytes.  Input is read ahead of translation, so this may run ahead of the axiom count.
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * Gets the number of bytes of input that will be read, or -1 if this is not known.
+     */
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * Gets the number of axioms that have been delivered.
+     */
+    public long getAxiomsCount() {
+        return axiomsCount;
+    }
+
+    /**
+     * Gets the number of frames that have been parsed.  Frames are parsed ahead of translation, so this may
+     * run ahead of the axiom count.
+     */
+    public long getFramesCount() {
+        return framesCount;
+    }
+
+    /**
+     * Gets the wall-clock time since the parse started.
+     */
+    public long getElapsedMillis() {
+        return elapsedNanos / 1_000_000;
+    }
+
+    /**
+     * Gets the CPU time that the process has used since the parse started, or -1 if the JVM does not
+     * report process CPU time.
+     */
+    public long getCpuTimeMillis() {
+        return cpuTimeNanos < 0 ? -1 : cpuTimeNanos / 1_000_000;
+    }
+
+    /**
+     * Gets the average number of axioms delivered per second since the parse started.
+     */
+    public double getAxiomsPerSecond() {
+        return elapsedNanos == 0 ? 0 : axiomsCount * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ParseProgress(axioms: %,d  frames: %,d  bytes: %,d/%,d  elapsed: %,d ms  cpu: %,d ms)",
+                             axiomsCount,
+                             framesCount,
+                             bytesRead,
+                             totalBytes,
+                             getElapsedMillis(),
+                             getCpuTimeMillis());
+    }
+}
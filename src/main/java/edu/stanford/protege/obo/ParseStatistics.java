@@ -0,0 +1,132 @@
+package edu.stanford.protege.obo;
+
+import javax.annotation.Nonnull;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Exposes the live state of a {@link TranslationContext} as a {@link ParseStatisticsMXBean}.
+ */
+final class ParseStatistics implements ParseStatisticsMXBean {
+
+    private static final long MIN_RATE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final String input;
+
+    private final TranslationContext context;
+
+    private long lastRateNanos;
+
+    private long lastRateAxiomsCount = 0;
+
+    private double axiomsPerSecond = 0;
+
+    ParseStatistics(@Nonnull String input,
+                    @Nonnull TranslationContext context) {
+        this.input = checkNotNull(input);
+        this.context = checkNotNull(context);
+        this.lastRateNanos = context.getProgressTracker().getElapsedNanos();
+    }
+
+    @Override
+    public String getInput() {
+        return input;
+    }
+
+    @Override
+    public long getBytesRead() {
+        return context.getProgressTracker().getBytesRead();
+    }
+
+    @Override
+    public long getTotalBytes() {
+        return context.getProgressTracker().getTotalBytes();
+    }
+
+    @Override
+    public long getElapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(context.getProgressTracker().getElapsedNanos());
+    }
+
+    @Override
+    public long getAxiomsCount() {
+        return context.getProgressTracker().getAxiomsCount();
+    }
+
+    @Override
+    public Map<String, Long> getAxiomsCountByType() {
+        return context.getProgressTracker().getAxiomsCountByType();
+    }
+
+    @Override
+    public long getFramesCount() {
+        return context.getProgressTracker().getFramesCount();
+    }
+
+    @Override
+    public Map<String, Long> getFramesCountByType() {
+        return context.getProgressTracker().getFramesCountByType();
+    }
+
+    @Override
+    public Map<String, Long> getClausesCountByTag() {
+        return context.getProgressTracker().getClausesCountByTag();
+    }
+
+    @Override
+    public long getParseMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(context.getProgressTracker().getParseNanos());
+    }
+
+    @Override
+    public long getTranslationMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(context.getProgressTracker().getTranslationNanos());
+    }
+
+    @Override
+    public long getConsumerMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(context.getProgressTracker().getConsumerNanos());
+    }
+
+    @Override
+    public long getDuplicateDeclarationsSuppressed() {
+        return context.getDeclarationFilter().getSuppressedCount();
+    }
+
+    @Override
+    public long getDuplicateDeclarationsDelivered() {
+        return context.getDeclarationFilter().getDeliveredDuplicateCount();
+    }
+
+    @Override
+    public long getIriCacheHitCount() {
+        return context.getIriCache().getHitCount();
+    }
+
+    @Override
+    public long getIriCacheMissCount() {
+        return context.getIriCache().getMissCount();
+    }
+
+    @Override
+    public double getIriCacheHitRate() {
+        var hits = getIriCacheHitCount();
+        var lookups = hits + getIriCacheMissCount();
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    @Override
+    public synchronized double getAxiomsPerSecond() {
+        var tracker = context.getProgressTracker();
+        var now = tracker.getElapsedNanos();
+        if (now - lastRateNanos >= MIN_RATE_INTERVAL_NANOS) {
+            var axiomsCount = tracker.getAxiomsCount();
+            axiomsPerSecond = (axiomsCount - lastRateAxiomsCount) * 1_000_000_000.0 / (now - lastRateNanos);
+            lastRateNanos = now;
+            lastRateAxiomsCount = axiomsCount;
+        }
+        return axiomsPerSecond;
+    }
+}
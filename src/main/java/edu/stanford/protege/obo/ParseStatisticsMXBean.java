@@ -0,0 +1,87 @@
+package edu.stanford.protege.obo;
+
+import java.util.Map;
+
+/**
+ * Live statistics of a parse, which {@link MinimalOboParser} registers with the platform MBean server for
+ * the duration of the parse when JMX is enabled with {@link MinimalOboParser#setJmxEnabled(boolean)}.  The
+ * MBean is registered under the domain {@code edu.stanford.protege.obo} with the type
+ * {@code MinimalOboParser}.
+ */
+public interface ParseStatisticsMXBean {
+
+    /**
+     * Gets a description of the input that is being parsed.
+     */
+    String getInput();
+
+    /**
+     * Gets the number of bytes of input that have been read.  For compressed input this is the number of
+     * compressed bytes.
+     */
+    long getBytesRead();
+
+    /**
+     * Gets the number of bytes of input that will be read, or -1 if this is not known.
+     */
+    long getTotalBytes();
+
+    long getElapsedMillis();
+
+    long getAxiomsCount();
+
+    /**
+     * Gets the number of axioms of each type that have been delivered, keyed by axiom type name.
+     */
+    Map<String, Long> getAxiomsCountByType();
+
+    long getFramesCount();
+
+    /**
+     * Gets the number of frames of each type that have been parsed, keyed by frame type.
+     */
+    Map<String, Long> getFramesCountByType();
+
+    /**
+     * Gets the number of clauses with each tag that have been parsed, keyed by tag.
+     */
+    Map<String, Long> getClausesCountByTag();
+
+    /**
+     * Gets the time, summed over all threads, that has been spent reading and parsing frames.
+     */
+    long getParseMillis();
+
+    /**
+     * Gets the time, summed over all threads, that has been spent translating frames into axioms.
+     */
+    long getTranslationMillis();
+
+    /**
+     * Gets the time, summed over all threads, that has been spent in the axiom consumer.
+     */
+    long getConsumerMillis();
+
+    long getDuplicateDeclarationsSuppressed();
+
+    /**
+     * Gets an estimate of the number of duplicate declarations that have been delivered by declaration
+     * tracking that trades accuracy for memory.
+     */
+    long getDuplicateDeclarationsDelivered();
+
+    long getIriCacheHitCount();
+
+    long getIriCacheMissCount();
+
+    /**
+     * Gets the fraction of IRI cache lookups that were hits, or zero if there have not been any lookups.
+     */
+    double getIriCacheHitRate();
+
+    /**
+     * Gets the number of axioms that have been delivered per second since this attribute was last read, or
+     * since the parse started.  The rate is recomputed at most once a second.
+     */
+    double getAxiomsPerSecond();
+}
@@ -0,0 +1,128 @@
+package edu.stanford.protege.obo;
+
+import javax.annotation.Nonnull;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * The final statistics of a parse.  Counts by type and tag and the timing breakdown are only recorded when
+ * detailed statistics are enabled; otherwise the maps are empty and the times are zero.
+ *
+ * Times are summed over all of the threads that do the work, so with pipelined or parallel parsing they can
+ * add up to more than the elapsed time.  Parse time covers reading and parsing frames but not handing them
+ * off for translation.  Translation time covers translating term frames into axioms but not delivering them,
+ * which is counted as consumer time.
+ */
+public final class ParseStatisticsReport {
+
+    private final boolean detailed;
+
+    private final long axiomsCount;
+
+    private final Map<String, Long> axiomsCountByType;
+
+    private final long framesCount;
+
+    private final Map<String, Long> framesCountByType;
+
+    private final Map<String, Long> clausesCountByTag;
+
+    private final long elapsedNanos;
+
+    private final long parseNanos;
+
+    private final long translationNanos;
+
+    private final long consumerNanos;
+
+    ParseStatisticsReport(boolean detailed,
+                          long axiomsCount,
+                          @Nonnull Map<String, Long> axiomsCountByType,
+                          long framesCount,
+                          @Nonnull Map<String, Long> framesCountByType,
+                          @Nonnull Map<String, Long> clausesCountByTag,
+                          long elapsedNanos,
+                          long parseNanos,
+                          long translationNanos,
+                          long consumerNanos) {
+        this.detailed = detailed;
+        this.axiomsCount = axiomsCount;
+        this.axiomsCountByType = checkNotNull(axiomsCountByType);
+        this.framesCount = framesCount;
+        this.framesCountByType = checkNotNull(framesCountByType);
+        this.clausesCountByTag = checkNotNull(clausesCountByTag);
+        this.elapsedNanos = elapsedNanos;
+        this.parseNanos = parseNanos;
+        this.translationNanos = translationNanos;
+        this.consumerNanos = consumerNanos;
+    }
+
+    /**
+     * Determines whether detailed statistics were recorded.
+     */
+    public boolean isDetailed() {
+        return detailed;
+    }
+
+    public long getAxiomsCount() {
+        return axiomsCount;
+    }
+
+    /**
+     * Gets the number of axioms of each type, keyed by axiom type name.
+     */
+    @Nonnull
+    public Map<String, Long> getAxiomsCountByType() {
+        return axiomsCountByType;
+    }
+
+    public long getFramesCount() {
+        return framesCount;
+    }
+
+    /**
+     * Gets the number of frames of each type, keyed by frame type.
+     */
+    @Nonnull
+    public Map<String, Long> getFramesCountByType() {
+        return framesCountByType;
+    }
+
+    /**
+     * Gets the number of clauses with each tag, such as is_a, relationship, synonym and xref, in descending
+     * order of count.  Clauses of the header frame are not counted.
+     */
+    @Nonnull
+    public Map<String, Long> getClausesCountByTag() {
+        return clausesCountByTag;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public long getParseNanos() {
+        return parseNanos;
+    }
+
+    public long getTranslationNanos() {
+        return translationNanos;
+    }
+
+    public long getConsumerNanos() {
+        return consumerNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ParseStatisticsReport(axioms: %,d  frames: %,d  elapsed: %,d ms  parse: %,d ms  translation: %,d ms  consumer: %,d ms)",
+                             axiomsCount,
+                             framesCount,
+                             TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                             TimeUnit.NANOSECONDS.toMillis(parseNanos),
+                             TimeUnit.NANOSECONDS.toMillis(translationNanos),
+                             TimeUnit.NANOSECONDS.toMillis(consumerNanos));
+    }
+}
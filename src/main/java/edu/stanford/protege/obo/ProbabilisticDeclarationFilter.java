@@ -0,0 +1,344 @@
+package edu.stanford.protege.obo;
+
+import org.semanticweb.owlapi.model.OWLDeclarationAxiom;
+
+import javax.annotation.Nonnull;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A declaration filter with a fixed memory footprint.  Declared entities are recorded as short fingerprints
+ * in a cuckoo filter that is sized for an expected number of entities and a false-positive rate.  The filter
+ * can be wrong in two ways:
+ *
+ * <ul>
+ *     <li>A new entity can share a fingerprint with an entity that has already been declared, in which case
+ *     its declaration is suppressed.  This happens with about the false-positive rate.</li>
+ *     <li>Once the table is full, inserting an entity evicts another one.  Later declarations of an evicted
+ *     entity are delivered again.  A small Bloom filter of evicted fingerprints is used to estimate how many
+ *     duplicates have been let through in this way.</li>
+ * </ul>
+ *
+ * As with {@link CompactDeclarationSet} the filter is divided into independently locked segments.
+ */
+final class ProbabilisticDeclarationFilter implements DeclarationFilter {
+
+    private static final int SEGMENT_COUNT = 16;
+
+    private static final int STATE_FORMAT = 0x50524f42;
+
+    private static final int SLOTS_PER_BUCKET = 4;
+
+    private static final double LOAD_FACTOR = 0.95;
+
+    private static final int MAX_KICKS = 500;
+
+    private static final int MIN_FINGERPRINT_BITS = 4;
+
+    private static final int MAX_FINGERPRINT_BITS = 31;
+
+    private final Segment[] segments = new Segment[SEGMENT_COUNT];
+
+    private final int fingerprintBits;
+
+    private final LongAdder suppressedCount = new LongAdder();
+
+    private final LongAdder deliveredDuplicateCount = new LongAdder();
+
+    ProbabilisticDeclarationFilter(long expectedEntities, double falsePositiveRate) {
+        checkArgument(expectedEntities > 0, "expectedEntities must be positive");
+        checkArgument(falsePositiveRate > 0 && falsePositiveRate < 1, "falsePositiveRate must be in (0, 1)");
+        // A lookup compares against the fingerprints in two buckets, so the false-positive rate is about
+        // 2 * SLOTS_PER_BUCKET / 2^fingerprintBits
+        var bits = (int) Math.ceil(Math.log(2.0 * SLOTS_PER_BUCKET / falsePositiveRate) / Math.log(2));
+        this.fingerprintBits = Math.max(MIN_FINGERPRINT_BITS, Math.min(MAX_FINGERPRINT_BITS, bits));
+        var slotsPerSegment = (long) Math.ceil(expectedEntities / LOAD_FACTOR / SEGMENT_COUNT);
+        var bucketsPerSegment = Long.highestOneBit(Math.max(1, (slotsPerSegment + SLOTS_PER_BUCKET - 1) / SLOTS_PER_BUCKET - 1)) << 1;
+        checkArgument(bucketsPerSegment <= 1 << 28, "expectedEntities is too large");
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new Segment((int) bucketsPerSegment, fingerprintBits, i);
+        }
+    }
+
+    @Override
+    public boolean add(@Nonnull OWLDeclarationAxiom declaration) {
+        var entity = declaration.getEntity();
+        var hash = CompactDeclarationSet.hash(CompactDeclarationSet.typeCode(entity.getEntityType()), entity.getIRI());
+        var segment = segments[(int) (hash >>> 60)];
+        var fingerprint = (int) (hash & ((1L << fingerprintBits) - 1));
+        if (fingerprint == 0) {
+            fingerprint = 1;
+        }
+        var bucket = (int) (hash >>> 32);
+        int result;
+        synchronized (segment) {
+            result = segment.add(bucket, fingerprint);
+        }
+        if (result == Segment.PRESENT) {
+            suppressedCount.increment();
+            return false;
+        }
+        if (result == Segment.PREVIOUSLY_EVICTED) {
+            deliveredDuplicateCount.increment();
+        }
+        return true;
+    }
+
+    @Override
+    public long getSuppressedCount() {
+        return suppressedCount.sum();
+    }
+
+    /**
+     * Gets an estimate of the number of duplicate declarations that have been delivered because the entity
+     * that they declare had been evicted from the filter.  The estimate tends to be high, and becomes an
+     * overestimate once many more entities than expected have been seen and the Bloom filter of evicted
+     * fingerprints fills up.
+     */
+    @Override
+    public long getDeliveredDuplicateCount() {
+        return deliveredDuplicateCount.sum();
+    }
+
+    @Override
+    public void writeState(@Nonnull DataOutput out) throws IOException {
+        out.writeInt(STATE_FORMAT);
+        out.writeInt(fingerprintBits);
+        out.writeInt(segments[0].bucketMask);
+        out.writeLong(suppressedCount.sum());
+        out.writeLong(deliveredDuplicateCount.sum());
+        for (var segment : segments) {
+            synchronized (segment) {
+                segment.writeState(out);
+            }
+        }
+    }
+
+    @Override
+    public void readState(@Nonnull DataInput in) throws IOException {
+        if (in.readInt() != STATE_FORMAT) {
+            throw new IOException("State was not written by a probabilistic declaration filter");
+        }
+        if (in.readInt() != fingerprintBits || in.readInt() != segments[0].bucketMask) {
+            throw new IOException("State was written by a probabilistic declaration filter with a different size or false-positive rate");
+        }
+        suppressedCount.add(in.readLong());
+        deliveredDuplicateCount.add(in.readLong());
+        for (var segment : segments) {
+            synchronized (segment) {
+                segment.readState(in);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of entities that have been evicted from the filter to make room for others.
+     */
+    long getEvictedCount() {
+        var count = 0L;
+        for (var segment : segments) {
+            synchronized (segment) {
+                count += segment.evictedCount;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the number of bytes that are used by the tables of the filter.
+     */
+    long getMemoryBytes() {
+        var bytes = 0L;
+        for (var segment : segments) {
+            bytes += 8L * (segment.slots.length + segment.evicted.length);
+        }
+        return bytes;
+    }
+
+    private static final class Segment {
+
+        static final int ADDED = 0;
+
+        static final int PRESENT = 1;
+
+        static final int PREVIOUSLY_EVICTED = 2;
+
+        private static final int EVICTED_HASH_COUNT = 3;
+
+        private final int bucketMask;
+
+        private final int fingerprintBits;
+
+        private final long fingerprintMask;
+
+        /**
+         * The fingerprints, packed into fingerprintBits wide fields.  Zero marks an empty slot.
+         */
+        private final long[] slots;
+
+        /**
+         * A Bloom filter of evicted fingerprints, keyed on the fingerprint and the lower of its two buckets,
+         * with one bit per slot.
+         */
+        private final long[] evicted;
+
+        private long random;
+
+        private long evictedCount = 0;
+
+        Segment(int bucketCount, int fingerprintBits, int seed) {
+            this.bucketMask = bucketCount - 1;
+            this.fingerprintBits = fingerprintBits;
+            this.fingerprintMask = (1L << fingerprintBits) - 1;
+            var slotCount = (long) bucketCount * SLOTS_PER_BUCKET;
+            this.slots = new long[(int) ((slotCount * fingerprintBits + 63) / 64) + 1];
+            this.evicted = new long[(int) Math.max(1, slotCount / 64)];
+            this.random = 0x9E3779B97F4A7C15L * (seed + 1);
+        }
+
+        void writeState(@Nonnull DataOutput out) throws IOException {
+            out.writeLong(random);
+            out.writeLong(evictedCount);
+            for (var word : slots) {
+                out.writeLong(word);
+            }
+            for (var word : evicted) {
+                out.writeLong(word);
+            }
+        }
+
+        void readState(@Nonnull DataInput in) throws IOException {
+            random = in.readLong();
+            evictedCount = in.readLong();
+            for (int i = 0; i < slots.length; i++) {
+                slots[i] = in.readLong();
+            }
+            for (int i = 0; i < evicted.length; i++) {
+                evicted[i] = in.readLong();
+            }
+        }
+
+        int add(int hashBits, int fingerprint) {
+            var bucket1 = hashBits & bucketMask;
+            var bucket2 = alternateBucket(bucket1, fingerprint);
+            if (contains(bucket1, fingerprint) || contains(bucket2, fingerprint)) {
+                return PRESENT;
+            }
+            var previouslyEvicted = isEvicted(Math.min(bucket1, bucket2), fingerprint);
+            if (!insert(bucket1, fingerprint) && !insert(bucket2, fingerprint)) {
+                relocate(nextRandom() % 2 == 0 ? bucket1 : bucket2, fingerprint);
+            }
+            return previouslyEvicted ? PREVIOUSLY_EVICTED : ADDED;
+        }
+
+        /**
+         * Makes room for a fingerprint by kicking existing fingerprints to their alternate buckets.  If no
+         * room is found the last fingerprint that was kicked out is evicted.
+         */
+        private void relocate(int bucket, int fingerprint) {
+            for (int kick = 0; kick < MAX_KICKS; kick++) {
+                var slot = bucket * SLOTS_PER_BUCKET + (int) (nextRandom() & (SLOTS_PER_BUCKET - 1));
+                var victim = (int) get(slot);
+                set(slot, fingerprint);
+                fingerprint = victim;
+                bucket = alternateBucket(bucket, fingerprint);
+                if (insert(bucket, fingerprint)) {
+                    return;
+                }
+            }
+            evictedCount++;
+            markEvicted(Math.min(bucket, alternateBucket(bucket, fingerprint)), fingerprint);
+        }
+
+        private int alternateBucket(int bucket, int fingerprint) {
+            return (bucket ^ (fingerprint * 0x5bd1e995)) & bucketMask;
+        }
+
+        private boolean contains(int bucket, int fingerprint) {
+            var first = bucket * SLOTS_PER_BUCKET;
+            for (int slot = first; slot < first + SLOTS_PER_BUCKET; slot++) {
+                if (get(slot) == fingerprint) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean insert(int bucket, int fingerprint) {
+            var first = bucket * SLOTS_PER_BUCKET;
+            for (int slot = first; slot < first + SLOTS_PER_BUCKET; slot++) {
+                if (get(slot) == 0) {
+                    set(slot, fingerprint);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private long get(int slot) {
+            var bit = (long) slot * fingerprintBits;
+            var word = (int) (bit >>> 6);
+            var offset = (int) (bit & 63);
+            var value = slots[word] >>> offset;
+            if (offset + fingerprintBits > 64) {
+                value |= slots[word + 1] << (64 - offset);
+            }
+            return value & fingerprintMask;
+        }
+
+        private void set(int slot, long fingerprint) {
+            var bit = (long) slot * fingerprintBits;
+            var word = (int) (bit >>> 6);
+            var offset = (int) (bit & 63);
+            slots[word] = (slots[word] & ~(fingerprintMask << offset)) | (fingerprint << offset);
+            if (offset + fingerprintBits > 64) {
+                var shift = 64 - offset;
+                slots[word + 1] = (slots[word + 1] & ~(fingerprintMask >>> shift)) | (fingerprint >>> shift);
+            }
+        }
+
+        private void markEvicted(int bucket, int fingerprint) {
+            var h = evictedHash(bucket, fingerprint);
+            for (int i = 0; i < EVICTED_HASH_COUNT; i++) {
+                var bit = (int) (((h >>> 32) + i * (h & 0xFFFFFFFFL)) % (evicted.length * 64L));
+                evicted[bit >>> 6] |= 1L << bit;
+            }
+        }
+
+        private boolean isEvicted(int bucket, int fingerprint) {
+            if (evictedCount == 0) {
+                return false;
+            }
+            var h = evictedHash(bucket, fingerprint);
+            for (int i = 0; i < EVICTED_HASH_COUNT; i++) {
+                var bit = (int) (((h >>> 32) + i * (h & 0xFFFFFFFFL)) % (evicted.length * 64L));
+                if ((evicted[bit >>> 6] & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static long evictedHash(int bucket, int fingerprint) {
+            var h = ((long) bucket << 32) | (fingerprint & 0xFFFFFFFFL);
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb9fe1a85ec53L;
+            h ^= h >>> 33;
+            return h;
+        }
+
+        private long nextRandom() {
+            // xorshift64, which only needs to break up cycles when kicking fingerprints
+            random ^= random << 13;
+            random ^= random >>> 7;
+            random ^= random << 17;
+            return random & Long.MAX_VALUE;
+        }
+    }
+}
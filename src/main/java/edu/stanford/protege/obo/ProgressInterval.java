@@ -0,0 +1,63 @@
+package edu.stanford.protege.obo;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Specifies how often a {@link MinimalOboParser} reports progress to its {@link ProgressListener}.  Progress
+ * is only checked when a batch of axioms is delivered, so reports can be late by up to one batch.
+ */
+public final class ProgressInterval {
+
+    private final long axioms;
+
+    private final long nanos;
+
+    private ProgressInterval(long axioms, long nanos) {
+        this.axioms = axioms;
+        this.nanos = nanos;
+    }
+
+    /**
+     * Progress is reported each time another {@code axioms} axioms have been delivered.  The default is every
+     * 1,000,000 axioms.
+     */
+    @Nonnull
+    public static ProgressInterval everyAxioms(long axioms) {
+        checkArgument(axioms > 0, "axioms must be greater than zero");
+        return new ProgressInterval(axioms, 0);
+    }
+
+    /**
+     * Progress is reported once the specified time has passed since the last report.
+     */
+    @Nonnull
+    public static ProgressInterval every(long duration, @Nonnull TimeUnit unit) {
+        checkArgument(duration > 0, "duration must be greater than zero");
+        return new ProgressInterval(0, checkNotNull(unit).toNanos(duration));
+    }
+
+    /**
+     * Gets the number of axioms between reports, or zero if reports are timed.
+     */
+    long getAxioms() {
+        return axioms;
+    }
+
+    /**
+     * Gets the number of nanoseconds between reports, or zero if reports are counted.
+     */
+    long getNanos() {
+        return nanos;
+    }
+
+    @Override
+    public String toString() {
+        return axioms > 0
+                ? String.format("ProgressInterval(%,d axioms)", axioms)
+                : String.format("ProgressInterval(%,d ms)", TimeUnit.NANOSECONDS.toMillis(nanos));
+    }
+}
@@ -0,0 +1,40 @@
+package edu.stanford.protege.obo;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Receives reports of the progress of a parse, at the interval that is set with
+ * {@link MinimalOboParser#setProgressInterval(ProgressInterval)}.  Reports are made from whichever thread
+ * happens to deliver the axioms that make a report due, which is a translator thread when the parse is
+ * pipelined or split into ranges, but they are never made concurrently.
+ */
+public interface ProgressListener {
+
+    /**
+     * Gets a listener that ignores progress.  With this listener the parser does not keep track of progress
+     * at all.
+     */
+    @Nonnull
+    static ProgressListener none() {
+        return ProgressTracker.NO_LISTENER;
+    }
+
+    /**
+     * Gets a listener that logs each report, along with the heap that is in use, at info level.  This is the
+     * default.
+     */
+    @Nonnull
+    static ProgressListener logging() {
+        return LoggingProgressListener.INSTANCE;
+    }
+
+    void onProgress(@Nonnull ParseProgress progress);
+
+    /**
+     * Receives the final statistics of a parse once it has finished.  The statistics only include counts by
+     * type and tag and the timing breakdown if detailed statistics are enabled with
+     * {@link MinimalOboParser#setDetailedStatistics(boolean)}.
+     */
+    default void onFinished(@Nonnull ParseStatisticsReport report) {
+    }
+}
@@ -0,0 +1,354 @@
+package edu.stanford.protege.obo;
+
+import org.obolibrary.oboformat.model.Frame;
+import org.semanticweb.owlapi.model.AxiomType;
+import org.semanticweb.owlapi.model.OWLAxiom;
+
+import javax.annotation.Nonnull;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Keeps track of the progress of one parse and reports it to a {@link ProgressListener}.  Translators add to
+ * the axiom count each time they deliver a batch of axioms, so the count is only touched once per batch.
+ * Documents count frames by type as they are added.
+ *
+ * The tracker can also keep detailed statistics: axioms by type, clauses by tag and the time that is spent
+ * parsing frames, translating them and in the axiom consumer.  These cost a little for every axiom and
+ * frame.  Documents and translators are each confined to one thread, so they accumulate tag counts and times
+ * in plain fields and add them to the tracker's striped counters now and again, which keeps contention low
+ * when many threads are translating.
+ *
+ * The tracker is shared by all of the translators of a parse, and the inputs of all of its ranges, so it is
+ * thread-safe.  If the listener is {@link ProgressListener#none()} and detailed statistics are off then the
+ * tracker does nothing at all.
+ */
+final class ProgressTracker {
+
+    static final ProgressListener NO_LISTENER = progress -> {};
+
+    private static final AxiomType<?>[] AXIOM_TYPES_BY_INDEX = getAxiomTypesByIndex();
+
+    private static final Frame.FrameType[] FRAME_TYPES = Frame.FrameType.values();
+
+    static final ProgressTracker NONE = new ProgressTracker(NO_LISTENER, ProgressInterval.everyAxioms(Long.MAX_VALUE), false);
+
+    private final ProgressListener listener;
+
+    private final boolean enabled;
+
+    private final long axiomsInterval;
+
+    private final long nanosInterval;
+
+    private final AtomicLong axiomsCount = new AtomicLong();
+
+    private final boolean detailed;
+
+    private final LongAdder[] axiomsCountByType = newCounters(AXIOM_TYPES_BY_INDEX.length);
+
+    private final LongAdder[] framesCountByType = newCounters(FRAME_TYPES.length);
+
+    private final ConcurrentHashMap<String, LongAdder> clausesCountByTag = new ConcurrentHashMap<>();
+
+    private final LongAdder parseNanos = new LongAdder();
+
+    private final LongAdder translationNanos = new LongAdder();
+
+    private final LongAdder consumerNanos = new LongAdder();
+
+    private final List<LongSupplier> bytesReadSuppliers = new CopyOnWriteArrayList<>();
+
+    private final AtomicLong totalBytes = new AtomicLong();
+
+    private final long startNanos;
+
+    private final long startCpuTimeNanos;
+
+    private volatile long nextReportAxioms;
+
+    private volatile long nextReportNanos;
+
+    /**
+     * @param listener The listener that progress is reported to.
+     * @param interval How often progress is reported.
+     * @param detailed Whether to keep detailed statistics.
+     */
+    ProgressTracker(@Nonnull ProgressListener listener,
+                    @Nonnull ProgressInterval interval,
+                    boolean detailed) {
+        this.listener = checkNotNull(listener);
+        this.detailed = detailed;
+        this.enabled = listener != NO_LISTENER || detailed;
+        this.axiomsInterval = interval.getAxioms();
+        this.nanosInterval = interval.getNanos();
+        this.startNanos = System.nanoTime();
+        this.startCpuTimeNanos = enabled ? getProcessCpuTimeNanos() : -1;
+        this.nextReportAxioms = axiomsInterval;
+        this.nextReportNanos = startNanos + nanosInterval;
+    }
+
+    /**
+     * Adds an input that is read by the parse.
+     * @param bytesRead Supplies the number of bytes of the input that have been read.
+     * @param length The length of the input, or -1 if this is not known.
+     */
+    void addInput(@Nonnull LongSupplier bytesRead, long length) {
+        if (!enabled) {
+            return;
+        }
+        bytesReadSuppliers.add(checkNotNull(bytesRead));
+        totalBytes.getAndUpdate(total -> total < 0 || length < 0 ? -1 : total + length);
+    }
+
+    /**
+     * Records a frame that has been added to a document.
+     */
+    void frameAdded(@Nonnull Frame.FrameType frameType) {
+        if (enabled) {
+            framesCountByType[frameType.ordinal()].increment();
+        }
+    }
+
+    /**
+     * Records axioms that have been delivered and reports progress if a report is due.
+     */
+    void delivered(@Nonnull List<OWLAxiom> axioms) {
+        if (!enabled) {
+            return;
+        }
+        if (detailed) {
+            for (var axiom : axioms) {
+                axiomsCountByType[axiom.getAxiomType().getIndex()].increment();
+            }
+        }
+        var axiomsCount = this.axiomsCount.addAndGet(axioms.size());
+        if (listener != NO_LISTENER
+                && (axiomsInterval > 0 ? axiomsCount >= nextReportAxioms : System.nanoTime() >= nextReportNanos)) {
+            report();
+        }
+    }
+
+    /**
+     * Determines whether documents and translators should record tag counts and times.
+     */
+    boolean isDetailed() {
+        return detailed;
+    }
+
+    /**
+     * Adds clause counts, which are reset to zero.
+     * @param counts Counts by tag, each held in a one element array.
+     */
+    void addClauseCounts(@Nonnull Map<String, long[]> counts) {
+        counts.forEach((tag, count) -> {
+            if (count[0] != 0) {
+                clausesCountByTag.computeIfAbsent(tag, t -> new LongAdder()).add(count[0]);
+                count[0] = 0;
+            }
+        });
+    }
+
+    /**
+     * Adds time that was spent reading and parsing frames, excluding the time spent handing them off for
+     * translation.
+     */
+    void addParseNanos(long nanos) {
+        parseNanos.add(nanos);
+    }
+
+    /**
+     * Adds time that was spent translating frames and in the axiom consumer.
+     */
+    void addTranslationNanos(long translationNanos, long consumerNanos) {
+        this.translationNanos.add(translationNanos);
+        this.consumerNanos.add(consumerNanos);
+    }
+
+    /**
+     * Reports the final statistics of the parse to the listener.
+     */
+    void finish() {
+        if (listener != NO_LISTENER) {
+            listener.onFinished(getReport());
+        }
+    }
+
+    @Nonnull
+    ParseStatisticsReport getReport() {
+        return new ParseStatisticsReport(detailed,
+                                         getAxiomsCount(),
+                                         getAxiomsCountByType(),
+                                         getFramesCount(),
+                                         getFramesCountByType(),
+                                         getClausesCountByTag(),
+                                         getElapsedNanos(),
+                                         parseNanos.sum(),
+                                         translationNanos.sum(),
+                                         consumerNanos.sum());
+    }
+
+    private synchronized void report() {
+        var axiomsCount = this.axiomsCount.get();
+        var now = System.nanoTime();
+        if (axiomsInterval > 0) {
+            if (axiomsCount < nextReportAxioms) {
+                // Another thread got here first
+                return;
+            }
+            nextReportAxioms = (axiomsCount / axiomsInterval + 1) * axiomsInterval;
+        }
+        else {
+            if (now < nextReportNanos) {
+                return;
+            }
+            nextReportNanos = now + nanosInterval;
+        }
+        listener.onProgress(getProgress(axiomsCount, now));
+    }
+
+    @Nonnull
+    private ParseProgress getProgress(long axiomsCount, long now) {
+        var cpuTimeNanos = startCpuTimeNanos < 0 ? -1 : getProcessCpuTimeNanos() - startCpuTimeNanos;
+        return new ParseProgress(getBytesRead(),
+                                 getTotalBytes(),
+                                 axiomsCount,
+                                 getFramesCount(),
+                                 now - startNanos,
+                                 cpuTimeNanos);
+    }
+
+    /**
+     * Gets the number of bytes that have been read from all of the inputs.
+     */
+    long getBytesRead() {
+        var bytesRead = 0L;
+        for (var supplier : bytesReadSuppliers) {
+            bytesRead += Math.max(0, supplier.getAsLong());
+        }
+        return bytesRead;
+    }
+
+    /**
+     * Gets the total length of all of the inputs, or -1 if the length of any of them is not known.
+     */
+    long getTotalBytes() {
+        return totalBytes.get();
+    }
+
+    long getAxiomsCount() {
+        return axiomsCount.get();
+    }
+
+    /**
+     * Gets the number of frames of all types that have been added to documents.
+     */
+    long getFramesCount() {
+        var count = 0L;
+        for (var counter : framesCountByType) {
+            count += counter.sum();
+        }
+        return count;
+    }
+
+    /**
+     * Gets the number of axioms of each type that has been delivered, by axiom type name.  This is empty
+     * unless detailed statistics are kept.
+     */
+    @Nonnull
+    Map<String, Long> getAxiomsCountByType() {
+        var counts = new LinkedHashMap<String, Long>();
+        for (int i = 0; i < AXIOM_TYPES_BY_INDEX.length; i++) {
+            var count = axiomsCountByType[i].sum();
+            if (count > 0) {
+                counts.put(AXIOM_TYPES_BY_INDEX[i].getName(), count);
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Gets the number of frames of each type that has been added to documents, by frame type name.
+     */
+    @Nonnull
+    Map<String, Long> getFramesCountByType() {
+        var counts = new LinkedHashMap<String, Long>();
+        for (var frameType : FRAME_TYPES) {
+            var count = framesCountByType[frameType.ordinal()].sum();
+            if (count > 0) {
+                counts.put(frameType.name(), count);
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Gets the number of clauses with each tag that have been parsed, most frequent first.  This is empty
+     * unless detailed statistics are kept.
+     */
+    @Nonnull
+    Map<String, Long> getClausesCountByTag() {
+        var counts = new LinkedHashMap<String, Long>();
+        clausesCountByTag.entrySet()
+                         .stream()
+                         .map(e -> Map.entry(e.getKey(), e.getValue().sum()))
+                         .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                         .forEach(e -> counts.put(e.getKey(), e.getValue()));
+        return counts;
+    }
+
+    long getParseNanos() {
+        return parseNanos.sum();
+    }
+
+    long getTranslationNanos() {
+        return translationNanos.sum();
+    }
+
+    long getConsumerNanos() {
+        return consumerNanos.sum();
+    }
+
+    /**
+     * Gets the wall-clock time since the tracker was created.
+     */
+    long getElapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    @Nonnull
+    private static AxiomType<?>[] getAxiomTypesByIndex() {
+        var maxIndex = AxiomType.AXIOM_TYPES.stream().mapToInt(AxiomType::getIndex).max().orElse(0);
+        var axiomTypes = new AxiomType<?>[maxIndex + 1];
+        for (var axiomType : AxiomType.AXIOM_TYPES) {
+            axiomTypes[axiomType.getIndex()] = axiomType;
+        }
+        return axiomTypes;
+    }
+
+    @Nonnull
+    private static LongAdder[] newCounters(int count) {
+        var counters = new LongAdder[count];
+        for (int i = 0; i < count; i++) {
+            counters[i] = new LongAdder();
+        }
+        return counters;
+    }
+
+    private static long getProcessCpuTimeNanos() {
+        var bean = ManagementFactory.getOperatingSystemMXBean();
+        if (bean instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) bean).getProcessCpuTime();
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,181 @@
+package edu.stanford.protege.obo;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * An {@link InputStream} that reads the bytes of an underlying stream on a dedicated thread into a ring
+ * buffer.  This is used to run decompression concurrently with parsing.  The reader thread reads straight
+ * into the free part of the ring buffer and blocks when the buffer is full, so at most {@code bufferSize}
+ * bytes are ever read ahead of the consumer.
+ */
+final class ReadAheadInputStream extends InputStream {
+
+    private static final int MAX_READ_SIZE = 256 * 1024;
+
+    private final InputStream source;
+
+    private final byte[] ring;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition notEmpty = lock.newCondition();
+
+    private final Condition notFull = lock.newCondition();
+
+    private final Thread readerThread;
+
+    /**
+     * The total number of bytes that have been written to the ring buffer, guarded by the lock.
+     */
+    private long writeCount = 0;
+
+    /**
+     * The total number of bytes that have been read from the ring buffer, guarded by the lock.
+     */
+    private long readCount = 0;
+
+    private boolean endOfSource = false;
+
+    private boolean closed = false;
+
+    private IOException readFailure;
+
+    ReadAheadInputStream(@Nonnull InputStream source,
+                         int bufferSize,
+                         @Nonnull ThreadFactory threadFactory) {
+        checkArgument(bufferSize > 0, "bufferSize must be greater than zero");
+        this.source = checkNotNull(source);
+        this.ring = new byte[bufferSize];
+        this.readerThread = threadFactory.newThread(this::readAhead);
+        this.readerThread.start();
+    }
+
+    private void readAhead() {
+        IOException failure = null;
+        try {
+            while (true) {
+                int start;
+                int length;
+                lock.lock();
+                try {
+                    while (writeCount - readCount == ring.length && !closed) {
+                        notFull.await();
+                    }
+                    if (closed) {
+                        return;
+                    }
+                    // The free region is only written by this thread, so it can be filled without the lock
+                    start = (int) (writeCount % ring.length);
+                    length = Math.min(ring.length - (int) (writeCount - readCount), ring.length - start);
+                } finally {
+                    lock.unlock();
+                }
+                var read = source.read(ring, start, Math.min(length, MAX_READ_SIZE));
+                if (read == -1) {
+                    return;
+                }
+                lock.lock();
+                try {
+                    writeCount += read;
+                    notEmpty.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        } catch (InterruptedException e) {
+            // Closed by the consumer
+        } catch (Throwable t) {
+            // Decompressors can throw unchecked exceptions on corrupt input
+            failure = t instanceof IOException ? (IOException) t : new IOException("Could not read the input", t);
+        } finally {
+            // Always, so that the consumer never waits for input that will not arrive
+            finishSource(failure);
+        }
+    }
+
+    private void finishSource(@Nullable IOException failure) {
+        lock.lock();
+        try {
+            readFailure = failure;
+            endOfSource = true;
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        var b = new byte[1];
+        return read(b, 0, 1) == -1 ? -1 : b[0] & 0xFF;
+    }
+
+    @Override
+    public int read(@Nonnull byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        lock.lock();
+        try {
+            while (writeCount == readCount && !endOfSource) {
+                notEmpty.await();
+            }
+            var available = (int) (writeCount - readCount);
+            if (available == 0) {
+                if (readFailure != null) {
+                    throw readFailure;
+                }
+                return -1;
+            }
+            var start = (int) (readCount % ring.length);
+            var read = Math.min(len, Math.min(available, ring.length - start));
+            System.arraycopy(ring, start, b, off, read);
+            readCount += read;
+            notFull.signal();
+            return read;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for input");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int available() {
+        lock.lock();
+        try {
+            return (int) (writeCount - readCount);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            closed = true;
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        readerThread.interrupt();
+        try {
+            readerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        source.close();
+    }
+}
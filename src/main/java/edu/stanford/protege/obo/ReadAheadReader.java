@@ -0,0 +1,163 @@
+package edu.stanford.protege.obo;
+
+import com.google.common.base.Throwables;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A {@link Reader} that reads (and therefore decodes) the characters of an underlying reader on a
+ * dedicated thread.  Decoded characters are handed over in fixed size chunks through a bounded queue,
+ * so at most {@code queueCapacity} chunks are ever decoded ahead of the consumer.  Chunks are recycled
+ * once they have been consumed.
+ */
+final class ReadAheadReader extends Reader {
+
+    private static final CharBuffer END_OF_INPUT = CharBuffer.allocate(0);
+
+    private final Reader source;
+
+    private final BlockingQueue<CharBuffer> filledChunks;
+
+    private final BlockingQueue<CharBuffer> freeChunks;
+
+    private final Thread readerThread;
+
+    @Nonnull
+    private CharBuffer currentChunk = CharBuffer.allocate(0);
+
+    private volatile Throwable readFailure;
+
+    private boolean endOfInput = false;
+
+    ReadAheadReader(@Nonnull Reader source,
+                    int chunkSize,
+                    int queueCapacity,
+                    @Nonnull ThreadFactory threadFactory) {
+        checkArgument(chunkSize > 0, "chunkSize must be greater than zero");
+        checkArgument(queueCapacity > 0, "queueCapacity must be greater than zero");
+        this.source = checkNotNull(source);
+        // One more chunk than the queue holds so that the reader thread can fill a chunk while the
+        // queue is full and the consumer is reading the current chunk
+        this.filledChunks = new ArrayBlockingQueue<>(queueCapacity + 1);
+        this.freeChunks = new ArrayBlockingQueue<>(queueCapacity + 2);
+        for (int i = 0; i < queueCapacity + 2; i++) {
+            freeChunks.add(CharBuffer.allocate(chunkSize));
+        }
+        this.readerThread = threadFactory.newThread(this::readAhead);
+        this.readerThread.start();
+    }
+
+    private void readAhead() {
+        var closed = false;
+        try {
+            while (true) {
+                var chunk = freeChunks.take();
+                chunk.clear();
+                var read = fill(chunk);
+                chunk.flip();
+                if (chunk.hasRemaining()) {
+                    filledChunks.put(chunk);
+                }
+                if (read == -1) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            // Closed by the consumer, which no longer takes chunks
+            closed = true;
+        } catch (Throwable t) {
+            // Including unchecked exceptions from decoding, which the consumer would otherwise wait for forever
+            readFailure = t;
+        } finally {
+            if (!closed) {
+                putEndOfInput();
+            }
+        }
+    }
+
+    private void putEndOfInput() {
+        try {
+            // The chunk that was being filled is never queued, so there is always room
+            filledChunks.put(END_OF_INPUT);
+        } catch (InterruptedException e) {
+            // Closed by the consumer
+        }
+    }
+
+    /**
+     * Fills the chunk from the source.
+     * @return -1 if the end of the source was reached, otherwise the number of chars read
+     */
+    private int fill(@Nonnull CharBuffer chunk) throws IOException {
+        var total = 0;
+        while (chunk.hasRemaining()) {
+            var read = source.read(chunk);
+            if (read == -1) {
+                return -1;
+            }
+            total += read;
+        }
+        return total;
+    }
+
+    @Override
+    public int read(@Nonnull char[] cbuf, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!currentChunk.hasRemaining()) {
+            if (!nextChunk()) {
+                return -1;
+            }
+        }
+        var read = Math.min(len, currentChunk.remaining());
+        currentChunk.get(cbuf, off, read);
+        return read;
+    }
+
+    private boolean nextChunk() throws IOException {
+        if (endOfInput) {
+            return false;
+        }
+        try {
+            if (currentChunk.capacity() > 0) {
+                freeChunks.put(currentChunk);
+            }
+            currentChunk = filledChunks.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for input");
+        }
+        if (currentChunk == END_OF_INPUT) {
+            endOfInput = true;
+            var failure = readFailure;
+            if (failure != null) {
+                Throwables.propagateIfPossible(failure, IOException.class);
+                throw new IOException(failure);
+            }
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        readerThread.interrupt();
+        try {
+            readerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        source.close();
+    }
+}
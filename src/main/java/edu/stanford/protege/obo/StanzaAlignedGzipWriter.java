@@ -0,0 +1,140 @@
+package edu.stanford.protege.obo;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Compresses an OBO file into a multi-member gzip file in which every member starts and ends on a stanza
+ * boundary.  Each member records its compressed size in an "OB" extra field, so {@link MinimalOboParser}
+ * can find the members without decompressing anything, decompress them in parallel and parse groups of
+ * members independently.  The output is an ordinary gzip file that any gzip tool can decompress.
+ */
+public final class StanzaAlignedGzipWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(StanzaAlignedGzipWriter.class);
+
+    public static final int DEFAULT_MEMBER_SIZE = 4 * 1024 * 1024;
+
+    private static final int HEADER_LENGTH = GzipMembers.FIXED_HEADER_LENGTH + 8;
+
+    private static final int TRAILER_LENGTH = 8;
+
+    private StanzaAlignedGzipWriter() {
+    }
+
+    /**
+     * Compresses a file with members of about 4MB of uncompressed text.
+     * @param source The OBO file.
+     * @param target The gzip file to write.
+     */
+    public static void compress(@Nonnull Path source, @Nonnull Path target) throws IOException {
+        compress(source, target, DEFAULT_MEMBER_SIZE);
+    }
+
+    /**
+     * Compresses a file.
+     * @param source The OBO file.
+     * @param target The gzip file to write.
+     * @param memberSize The minimum number of uncompressed bytes in each member, apart from the last one.  A
+     *                   member ends at the first stanza boundary after this many bytes.
+     */
+    public static void compress(@Nonnull Path source, @Nonnull Path target, int memberSize) throws IOException {
+        checkNotNull(source);
+        checkNotNull(target);
+        checkArgument(memberSize > 0, "memberSize must be greater than zero");
+        try (var channel = FileChannel.open(source, StandardOpenOption.READ);
+             var out = Files.newOutputStream(target)) {
+            var size = channel.size();
+            var deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+            try {
+                var start = 0L;
+                var memberCount = 0;
+                do {
+                    var end = Math.min(size, OboStanzaBoundaries.nextStanzaStart(channel, start + memberSize));
+                    writeMember(channel, start, end, deflater, out);
+                    memberCount++;
+                    start = end;
+                } while (start < size);
+                logger.info("Wrote {} gzip members to {}", memberCount, target);
+            } finally {
+                deflater.end();
+            }
+        }
+    }
+
+    private static void writeMember(@Nonnull FileChannel channel,
+                                    long start,
+                                    long end,
+                                    @Nonnull Deflater deflater,
+                                    @Nonnull OutputStream out) throws IOException {
+        checkArgument(end - start <= Integer.MAX_VALUE - 16, "Stanza too large to compress: %s bytes", end - start);
+        var uncompressed = new byte[(int) (end - start)];
+        var buffer = ByteBuffer.wrap(uncompressed);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, start + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of file at offset " + (start + buffer.position()));
+            }
+        }
+        var crc = new CRC32();
+        crc.update(uncompressed, 0, uncompressed.length);
+        deflater.reset();
+        deflater.setInput(uncompressed);
+        deflater.finish();
+        // Incompressible input grows by a few bytes per 16K block
+        var compressed = new byte[HEADER_LENGTH + uncompressed.length + uncompressed.length / 1000 + 64 + TRAILER_LENGTH];
+        var length = HEADER_LENGTH;
+        while (!deflater.finished()) {
+            if (length == compressed.length - TRAILER_LENGTH) {
+                compressed = Arrays.copyOf(compressed, compressed.length * 2);
+            }
+            length += deflater.deflate(compressed, length, compressed.length - TRAILER_LENGTH - length);
+        }
+        var memberSize = length + TRAILER_LENGTH;
+        writeHeader(compressed, memberSize);
+        writeUInt32(compressed, length, crc.getValue());
+        writeUInt32(compressed, length + 4, uncompressed.length);
+        out.write(compressed, 0, memberSize);
+    }
+
+    private static void writeHeader(@Nonnull byte[] member, long memberSize) {
+        member[0] = 0x1f;
+        member[1] = (byte) 0x8b;
+        // Deflate, with an extra field
+        member[2] = 8;
+        member[3] = 4;
+        // No modification time, no extra flags and an unknown OS
+        writeUInt32(member, 4, 0);
+        member[8] = 0;
+        member[9] = (byte) 255;
+        writeUInt16(member, 10, 8);
+        member[12] = GzipMembers.STANZA_ALIGNED_SUBFIELD_ID1;
+        member[13] = GzipMembers.STANZA_ALIGNED_SUBFIELD_ID2;
+        writeUInt16(member, 14, 4);
+        writeUInt32(member, 16, memberSize);
+    }
+
+    private static void writeUInt16(@Nonnull byte[] bytes, int pos, int value) {
+        bytes[pos] = (byte) value;
+        bytes[pos + 1] = (byte) (value >>> 8);
+    }
+
+    private static void writeUInt32(@Nonnull byte[] bytes, int pos, long value) {
+        writeUInt16(bytes, pos, (int) value);
+        writeUInt16(bytes, pos + 2, (int) (value >>> 16));
+    }
+}
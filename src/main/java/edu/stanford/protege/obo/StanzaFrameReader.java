@@ -0,0 +1,169 @@
+package edu.stanford.protege.obo;
+
+import org.obolibrary.oboformat.model.Frame;
+import org.obolibrary.oboformat.model.FrameMergeException;
+import org.obolibrary.oboformat.parser.OBOFormatParserException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.IOException;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Reads stanzas with an {@link OboStanzaLexer}, builds frames from them and adds the frames to a document,
+ * one stanza at a time.
+ */
+final class StanzaFrameReader implements Closeable {
+
+    private final OboStanzaLexer lexer;
+
+    private final MinimalOboDoc obodoc;
+
+    private final OboFrameBuilder frameBuilder;
+
+    private final OboStanza stanza = new OboStanza();
+
+    @Nullable
+    private ParseChunkEvent chunkEvent;
+
+    private long lastStanzaByteOffset = -1;
+
+    StanzaFrameReader(@Nonnull OboStanzaLexer lexer,
+                      @Nonnull MinimalOboDoc obodoc) {
+        this(lexer, obodoc, StringInterner.NONE);
+    }
+
+    StanzaFrameReader(@Nonnull OboStanzaLexer lexer,
+                      @Nonnull MinimalOboDoc obodoc,
+                      @Nonnull StringInterner interner) {
+        this.lexer = checkNotNull(lexer);
+        this.frameBuilder = new OboFrameBuilder(interner);
+        this.obodoc = checkNotNull(obodoc);
+        if (obodoc.getHeaderFrame() == null) {
+            // Translation needs a header frame, even if the input does not have one
+            var headerFrame = new Frame(Frame.FrameType.HEADER);
+            headerFrame.freeze();
+            obodoc.setHeaderFrame(headerFrame);
+        }
+    }
+
+    /**
+     * Reads the next stanza and adds its frame, if it has one that is needed for translation, to the
+     * document.
+     * @return false if the end of the input has been reached.
+     */
+    boolean readNext() throws IOException {
+        var event = new FrameParseEvent();
+        event.begin();
+        if (!lexer.next(stanza)) {
+            commitChunkEvent(lastStanzaByteOffset);
+            return false;
+        }
+        var byteOffset = stanza.getStartByteOffset();
+        startChunkEvent(byteOffset);
+        lastStanzaByteOffset = byteOffset;
+        if (stanza.getType() == OboStanza.Type.HEADER) {
+            obodoc.setHeaderFrame(frameBuilder.buildHeaderFrame(stanza));
+            return true;
+        }
+        var frame = frameBuilder.build(stanza);
+        if (frame == null) {
+            return true;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.stanzaId = frame.getId();
+            event.byteOffset = byteOffset;
+            event.frameType = frame.getType().name();
+            event.lineNumber = stanza.getStartLineNumber();
+            event.commit();
+        }
+        if (chunkEvent != null && chunkEvent.stanzaId == null) {
+            chunkEvent.stanzaId = frame.getId();
+        }
+        try {
+            obodoc.addFrame(frame, byteOffset);
+        } catch (FrameMergeException e) {
+            throw new OBOFormatParserException("Could not add frame " + frame + " to document, duplicate frame definition?",
+                                               e,
+                                               (int) stanza.getStartLineNumber(),
+                                               null);
+        }
+        return true;
+    }
+
+    /**
+     * Counts a stanza towards the current chunk, first committing the current chunk if it is full.
+     */
+    private void startChunkEvent(long byteOffset) {
+        if (chunkEvent != null && chunkEvent.stanzasCount == ParseChunkEvent.STANZAS_COUNT) {
+            commitChunkEvent(byteOffset);
+        }
+        if (chunkEvent == null) {
+            var event = new ParseChunkEvent();
+            if (!event.isEnabled()) {
+                return;
+            }
+            event.byteOffset = byteOffset;
+            event.startNanos = System.nanoTime();
+            event.begin();
+            chunkEvent = event;
+        }
+        chunkEvent.stanzasCount++;
+    }
+
+    private void commitChunkEvent(long endByteOffset) {
+        if (chunkEvent == null) {
+            return;
+        }
+        var event = chunkEvent;
+        chunkEvent = null;
+        event.end();
+        if (event.shouldCommit()) {
+            event.endByteOffset = endByteOffset;
+            if (event.byteOffset >= 0 && endByteOffset >= event.byteOffset) {
+                event.bytes = endByteOffset - event.byteOffset;
+                var nanos = System.nanoTime() - event.startNanos;
+                event.bytesPerSecond = nanos > 0 ? (long) (event.bytes * 1e9 / nanos) : 0;
+            }
+            event.commit();
+        }
+    }
+
+    /**
+     * Gets the type of the stanza that was read last.
+     */
+    @Nonnull
+    OboStanza.Type getStanzaType() {
+        return stanza.getType();
+    }
+
+    /**
+     * Gets the byte offset of the stanza that was read last, or -1 if the lexer does not track byte offsets.
+     */
+    long getStanzaByteOffset() {
+        return stanza.getStartByteOffset();
+    }
+
+    /**
+     * Gets the byte offset of the stanza that will be read next, or -1 if there are no more stanzas or the
+     * lexer does not track byte offsets.
+     */
+    long getNextStanzaByteOffset() {
+        return lexer.getNextStanzaByteOffset();
+    }
+
+    /**
+     * Gets the number of stanzas that have been reparsed with the OBO format parser.
+     */
+    long getFallbackCount() {
+        return frameBuilder.getFallbackCount();
+    }
+
+    @Override
+    public void close() throws IOException {
+        lexer.close();
+    }
+}
@@ -0,0 +1,44 @@
+package edu.stanford.protege.obo;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Creates strings from ranges of chars, returning a previously created string where there is one with the
+ * same chars.  Interners are used by a single frame builder and need not be thread-safe.
+ */
+interface StringInterner {
+
+    /**
+     * An interner that always creates a new string.
+     */
+    StringInterner NONE = (chars, start, length) -> new String(chars, start, length);
+
+    /**
+     * Gets a string with the specified chars.
+     */
+    @Nonnull
+    String intern(@Nonnull char[] chars, int start, int length);
+
+    /**
+     * Gets the hash code that {@link String#hashCode()} would give for the specified chars.
+     */
+    static int hashCode(@Nonnull char[] chars, int start, int length) {
+        var h = 0;
+        for (int i = start, end = start + length; i < end; i++) {
+            h = 31 * h + chars[i];
+        }
+        return h;
+    }
+
+    static boolean contentEquals(@Nonnull String s, @Nonnull char[] chars, int start, int length) {
+        if (s.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (s.charAt(i) != chars[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
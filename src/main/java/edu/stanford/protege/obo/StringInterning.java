@@ -0,0 +1,71 @@
+package edu.stanford.protege.obo;
+
+import javax.annotation.Nonnull;
+import java.util.function.Supplier;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Specifies how the {@link FrameParser#STANZA_LEXER} interns the tag names and ids that it reads.  Interning
+ * means that ids that recur, such as is_a parents and relationship targets, share one string instead of
+ * each occurrence getting its own copy, at the cost of holding on to the interned strings.
+ */
+public final class StringInterning {
+
+    private static final StringInterning NONE = new StringInterning("None", () -> StringInterner.NONE);
+
+    private final String name;
+
+    private final Supplier<StringInterner> internerFactory;
+
+    private StringInterning(@Nonnull String name, @Nonnull Supplier<StringInterner> internerFactory) {
+        this.name = checkNotNull(name);
+        this.internerFactory = checkNotNull(internerFactory);
+    }
+
+    /**
+     * Every tag name and id gets its own string.  This is the default.
+     */
+    @Nonnull
+    public static StringInterning none() {
+        return NONE;
+    }
+
+    /**
+     * Tag names and ids are interned in a map that holds the most recently used strings.
+     * @param maximumSize The maximum number of strings that are held.
+     */
+    @Nonnull
+    public static StringInterning boundedLru(int maximumSize) {
+        checkArgument(maximumSize > 0, "maximumSize must be greater than zero");
+        return new StringInterning(String.format("BoundedLru, %,d strings", maximumSize),
+                                   () -> new BoundedLruStringInterner(maximumSize));
+    }
+
+    /**
+     * Tag names and ids are interned once they have been seen more than once, so strings that only occur
+     * once are never held.  Apart from the interned strings this uses a fixed table of a few bytes per unit of
+     * capacity, and it is cheaper per lookup than {@link #boundedLru(int)}.
+     * @param capacity The number of strings that can be held.
+     */
+    @Nonnull
+    public static StringInterning frequencySampled(int capacity) {
+        checkArgument(capacity > 0, "capacity must be greater than zero");
+        return new StringInterning(String.format("FrequencySampled, %,d strings", capacity),
+                                   () -> new FrequencySampledStringInterner(capacity));
+    }
+
+    /**
+     * Creates an interner for one frame builder.
+     */
+    @Nonnull
+    StringInterner createInterner() {
+        return internerFactory.get();
+    }
+
+    @Override
+    public String toString() {
+        return "StringInterning(" + name + ")";
+    }
+}
@@ -0,0 +1,25 @@
+package edu.stanford.protege.obo;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * A Flight Recorder event for a wait by the parsing thread to hand frames off to the translation workers,
+ * because they, or the axiom consumer that they deliver to, have fallen behind.  The stanza is the last one in
+ * the batch of frames that was being handed off.
+ */
+@Name("edu.stanford.protege.obo.TranslationBackPressure")
+@Label("OBO Translation Back-Pressure")
+@Category("OBO Parser")
+@Description("A wait to hand frames off to the translation workers that took longer than the threshold")
+@Threshold("10 ms")
+@StackTrace(false)
+final class TranslationBackPressureEvent extends ParseEvent {
+
+    @Label("Frames Count")
+    int framesCount;
+}
@@ -0,0 +1,41 @@
+package edu.stanford.protege.obo;
+
+import javax.annotation.Nonnull;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * The state that is shared by all of the translators of one parse, whether they translate the frames of one
+ * document on pipeline threads or the frames of different ranges of a file.
+ */
+final class TranslationContext {
+
+    private final DeclarationFilter declarationFilter;
+
+    private final IriCache iriCache;
+
+    private final ProgressTracker progressTracker;
+
+    TranslationContext(@Nonnull DeclarationFilter declarationFilter,
+                       @Nonnull IriCache iriCache,
+                       @Nonnull ProgressTracker progressTracker) {
+        this.declarationFilter = checkNotNull(declarationFilter);
+        this.iriCache = checkNotNull(iriCache);
+        this.progressTracker = checkNotNull(progressTracker);
+    }
+
+    @Nonnull
+    DeclarationFilter getDeclarationFilter() {
+        return declarationFilter;
+    }
+
+    @Nonnull
+    IriCache getIriCache() {
+        return iriCache;
+    }
+
+    @Nonnull
+    ProgressTracker getProgressTracker() {
+        return progressTracker;
+    }
+}
@@ -0,0 +1,145 @@
+package edu.stanford.protege.obo;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Reads lines of UTF-8 encoded text directly from an {@link InputStream}.  Line terminators are found by
+ * scanning the raw bytes, which is safe because bytes of multi-byte UTF-8 sequences are never ASCII.  Tags,
+ * ids and most values in OBO documents are ASCII, so bytes are widened to chars until the first non-ASCII
+ * byte of a line, and only the remainder of that line is passed through a {@link CharsetDecoder}.  Malformed
+ * input is replaced with U+FFFD, as it is by {@link java.io.InputStreamReader}.
+ */
+final class Utf8LineSource implements OboLineSource {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final InputStream inputStream;
+
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                                                                 .onMalformedInput(CodingErrorAction.REPLACE)
+                                                                 .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    private byte[] buffer = new byte[BUFFER_SIZE];
+
+    /**
+     * The byte offset in the input of the first byte in the buffer
+     */
+    private long bufferOffset = 0;
+
+    private int bufferPosition = 0;
+
+    private int bufferLimit = 0;
+
+    private boolean skipLineFeed = false;
+
+    private long lineStartByteOffset = -1;
+
+    Utf8LineSource(@Nonnull InputStream inputStream) {
+        this.inputStream = checkNotNull(inputStream);
+    }
+
+    @Override
+    public int readLine(@Nonnull OboStanza stanza) throws IOException {
+        if (skipLineFeed) {
+            skipLineFeed = false;
+            if ((bufferPosition < bufferLimit || fill()) && buffer[bufferPosition] == '\n') {
+                bufferPosition++;
+            }
+        }
+        // Find the end of the line, keeping the whole line in the buffer
+        var scanned = 0;
+        int lineEnd;
+        while (true) {
+            var i = bufferPosition + scanned;
+            while (i < bufferLimit && buffer[i] != '\n' && buffer[i] != '\r') {
+                i++;
+            }
+            scanned = i - bufferPosition;
+            if (i < bufferLimit) {
+                lineEnd = i;
+                break;
+            }
+            if (!fill()) {
+                if (scanned == 0) {
+                    return -1;
+                }
+                lineEnd = bufferLimit;
+                break;
+            }
+        }
+        lineStartByteOffset = bufferOffset + bufferPosition;
+        var end = decode(bufferPosition, lineEnd, stanza);
+        if (lineEnd < bufferLimit) {
+            skipLineFeed = buffer[lineEnd] == '\r';
+            bufferPosition = lineEnd + 1;
+        }
+        else {
+            bufferPosition = lineEnd;
+        }
+        return end;
+    }
+
+    private int decode(int start, int end, @Nonnull OboStanza stanza) {
+        // UTF-8 never decodes to more chars than bytes
+        var text = stanza.ensureTextCapacity(end - start);
+        var out = stanza.getLength();
+        var i = start;
+        while (i < end && buffer[i] >= 0) {
+            text[out++] = (char) buffer[i++];
+        }
+        if (i < end) {
+            var chars = CharBuffer.wrap(text, out, text.length - out);
+            decoder.reset();
+            decoder.decode(ByteBuffer.wrap(buffer, i, end - i), chars, true);
+            decoder.flush(chars);
+            out = chars.position();
+        }
+        return out;
+    }
+
+    /**
+     * Moves unread bytes to the start of the buffer, growing it if it is full, and reads more bytes.
+     * @return false if the end of the input has been reached.
+     */
+    private boolean fill() throws IOException {
+        var remaining = bufferLimit - bufferPosition;
+        if (bufferPosition > 0) {
+            System.arraycopy(buffer, bufferPosition, buffer, 0, remaining);
+            bufferOffset += bufferPosition;
+            bufferPosition = 0;
+            bufferLimit = remaining;
+        }
+        else if (remaining == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        var read = inputStream.read(buffer, bufferLimit, buffer.length - bufferLimit);
+        while (read == 0) {
+            read = inputStream.read(buffer, bufferLimit, buffer.length - bufferLimit);
+        }
+        if (read == -1) {
+            return false;
+        }
+        bufferLimit += read;
+        return true;
+    }
+
+    @Override
+    public long getLineStartByteOffset() {
+        return lineStartByteOffset;
+    }
+
+    @Override
+    public void close() throws IOException {
+        inputStream.close();
+    }
+}
@@ -0,0 +1,121 @@
+package edu.stanford.protege.obo;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Gates the bytes that are allocated for each axiom that is delivered, which is what drives GC pressure on
+ * large inputs.  A fixed generated corpus is parsed with sequential translation, so that all of the work
+ * happens on the test thread and its allocated bytes can be read from the {@code ThreadMXBean}.  The test
+ * fails if allocation per axiom exceeds the committed baseline, in {@code allocation-baseline.properties},
+ * by more than {@code allocation.tolerance} (default 0.25).  Allocation depends on the JIT and class library
+ * of the JDK, so the baseline records the major version of the JDK that it was measured on and the test is
+ * skipped on other versions.
+ *
+ * A change that deliberately allocates more, or that allocates much less, should update the baseline to the
+ * measured value, which is printed with {@code -Dallocation.report=true}.
+ */
+public class AllocationPerAxiom_TestCase {
+
+    private static final long CORPUS_SEED = 25;
+
+    private static final long CORPUS_SIZE = 4 * 1024 * 1024;
+
+    /**
+     * Parses that are discarded, so that measurements are taken once the JIT has compiled the hot paths and
+     * eliminated the allocations that escape analysis can remove.
+     */
+    private static final int WARM_UP_PARSES_COUNT = 4;
+
+    private static final int MEASURED_PARSES_COUNT = 5;
+
+    private static final double TOLERANCE = Double.parseDouble(System.getProperty("allocation.tolerance", "0.25"));
+
+    @ClassRule
+    public static TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private static Path corpus;
+
+    @BeforeClass
+    public static void setUpCorpus() throws IOException {
+        corpus = temporaryFolder.newFile("allocation.obo").toPath();
+        SyntheticOboCorpus.withSeed(CORPUS_SEED).write(corpus, CORPUS_SIZE);
+    }
+
+    @Test
+    public void shouldNotAllocateMorePerAxiomThanBaseline() throws IOException {
+        var threadMXBean = getThreadMXBean();
+        assumeTrue(threadMXBean.isThreadAllocatedMemorySupported());
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+
+        var baselineProperties = loadBaselineProperties();
+        var baselineJavaVersion = Integer.parseInt(baselineProperties.getProperty("javaVersion"));
+        assumeTrue("The allocation baseline was measured on Java " + baselineJavaVersion,
+                   Runtime.version().feature() == baselineJavaVersion);
+        var baseline = Long.parseLong(baselineProperties.getProperty("bytesPerAxiom"));
+        var measured = measureBytesPerAxiom();
+        if (Boolean.getBoolean("allocation.report")) {
+            System.out.printf("Allocated %,d bytes per axiom (baseline %,d)%n", measured, baseline);
+        }
+        var limit = (long) (baseline * (1 + TOLERANCE));
+        assertTrue(String.format("Allocated %,d bytes per axiom, which is more than the baseline of %,d bytes "
+                                         + "plus %.0f%%.  If the increase is deliberate then update "
+                                         + "allocation-baseline.properties.",
+                                 measured, baseline, TOLERANCE * 100),
+                   measured <= limit);
+    }
+
+    /**
+     * Gets the median bytes per axiom over the measured parses, which is robust to the odd parse that is
+     * disturbed by compilation.
+     */
+    private static long measureBytesPerAxiom() throws IOException {
+        for (int i = 0; i < WARM_UP_PARSES_COUNT; i++) {
+            parseAndGetBytesPerAxiom();
+        }
+        var measurements = new long[MEASURED_PARSES_COUNT];
+        for (int i = 0; i < MEASURED_PARSES_COUNT; i++) {
+            measurements[i] = parseAndGetBytesPerAxiom();
+        }
+        Arrays.sort(measurements);
+        return measurements[MEASURED_PARSES_COUNT / 2];
+    }
+
+    private static long parseAndGetBytesPerAxiom() throws IOException {
+        var delivered = new LongAdder();
+        var parser = new MinimalOboParser(axioms -> delivered.add(axioms.size()), 1000);
+        parser.setProgressListener(ProgressListener.none());
+        var threadId = Thread.currentThread().getId();
+        var threadMXBean = getThreadMXBean();
+        var allocatedBytesAtStart = threadMXBean.getThreadAllocatedBytes(threadId);
+        parser.parse(corpus);
+        var allocatedBytes = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBytesAtStart;
+        return allocatedBytes / Math.max(1, delivered.sum());
+    }
+
+    private static Properties loadBaselineProperties() throws IOException {
+        var properties = new Properties();
+        try (InputStream in = AllocationPerAxiom_TestCase.class.getResourceAsStream("/allocation-baseline.properties")) {
+            assertTrue("allocation-baseline.properties is missing from the test resources", in != null);
+            properties.load(in);
+        }
+        return properties;
+    }
+
+    private static com.sun.management.ThreadMXBean getThreadMXBean() {
+        return (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    }
+}
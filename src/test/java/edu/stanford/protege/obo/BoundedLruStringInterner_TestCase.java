@@ -0,0 +1,31 @@
+package edu.stanford.protege.obo;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class BoundedLruStringInterner_TestCase {
+
+    private final char[] text = "is_a: GO:0048311 GO:0048311 GO:0005739".toCharArray();
+
+    @Test
+    public void shouldReturnSameStringForSameChars() {
+        var interner = new BoundedLruStringInterner(10);
+        var first = interner.intern(text, 6, 10);
+        var second = interner.intern(text, 17, 10);
+        assertThat(first, is("GO:0048311"));
+        assertThat(second, is(sameInstance(first)));
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedString() {
+        var interner = new BoundedLruStringInterner(1);
+        var first = interner.intern(text, 6, 10);
+        interner.intern(text, 28, 10);
+        assertThat(interner.size(), is(1));
+        assertThat(interner.intern(text, 17, 10), is(not(sameInstance(first))));
+    }
+}
@@ -0,0 +1,79 @@
+package edu.stanford.protege.obo;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.semanticweb.owlapi.model.IRI;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.semanticweb.owlapi.apibinding.OWLFunctionalSyntaxFactory.*;
+
+public class CompactDeclarationSet_TestCase {
+
+    private CompactDeclarationSet declarationSet;
+
+    private IRI iri = IRI.create("http://purl.obolibrary.org/obo/GO_0000001");
+
+    @Before
+    public void setUp() {
+        declarationSet = new CompactDeclarationSet();
+    }
+
+    @Test
+    public void shouldSuppressDuplicateDeclaration() {
+        assertThat(declarationSet.add(Declaration(Class(iri))), is(true));
+        assertThat(declarationSet.add(Declaration(Class(iri))), is(false));
+        assertThat(declarationSet.getSuppressedCount(), is(1L));
+        assertThat(declarationSet.size(), is(1L));
+    }
+
+    @Test
+    public void shouldDistinguishEntityTypes() {
+        assertThat(declarationSet.add(Declaration(Class(iri))), is(true));
+        assertThat(declarationSet.add(Declaration(ObjectProperty(iri))), is(true));
+        assertThat(declarationSet.getSuppressedCount(), is(0L));
+    }
+
+    @Test
+    public void shouldDistinguishNonAsciiIris() {
+        var first = IRI.create("http://example.org/caf\u00e9");
+        var second = IRI.create("http://example.org/caf\u00e8");
+        assertThat(declarationSet.add(Declaration(Class(first))), is(true));
+        assertThat(declarationSet.add(Declaration(Class(second))), is(true));
+        assertThat(declarationSet.add(Declaration(Class(first))), is(false));
+    }
+
+    @Test
+    public void shouldGrowBeyondInitialCapacity() {
+        for (int i = 0; i < 100_000; i++) {
+            assertThat(declarationSet.add(Declaration(Class(IRI.create("http://example.org/C" + i)))), is(true));
+        }
+        for (int i = 0; i < 100_000; i++) {
+            assertThat(declarationSet.add(Declaration(Class(IRI.create("http://example.org/C" + i)))), is(false));
+        }
+        assertThat(declarationSet.size(), is(100_000L));
+    }
+
+    @Test
+    public void shouldRestoreWrittenState() throws IOException {
+        for (int i = 0; i < 100_000; i++) {
+            declarationSet.add(Declaration(Class(IRI.create("http://example.org/C" + i))));
+        }
+        var bytes = new ByteArrayOutputStream();
+        declarationSet.writeState(new DataOutputStream(bytes));
+
+        var restoredSet = new CompactDeclarationSet();
+        restoredSet.readState(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertThat(restoredSet.size(), is(100_000L));
+        for (int i = 0; i < 100_000; i++) {
+            assertThat(restoredSet.add(Declaration(Class(IRI.create("http://example.org/C" + i)))), is(false));
+        }
+        assertThat(restoredSet.add(Declaration(Class(IRI.create("http://example.org/D")))), is(true));
+    }
+}
@@ -0,0 +1,152 @@
+package edu.stanford.protege.obo;
+
+import com.google.common.io.ByteStreams;
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
+import org.junit.Test;
+import org.tukaani.xz.LZMA2Options;
+import org.tukaani.xz.XZOutputStream;
+
+import javax.annotation.Nonnull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class Compression_TestCase {
+
+    private final byte[] text = createText();
+
+    @Test
+    public void shouldDetectUncompressedInput() {
+        assertThat(Compression.detect(text, text.length), is(Compression.NONE));
+    }
+
+    @Test
+    public void shouldDetectGzip() throws IOException {
+        var compressed = gzip(text);
+        assertThat(Compression.detect(compressed, compressed.length), is(Compression.GZIP));
+    }
+
+    @Test
+    public void shouldDetectXz() throws IOException {
+        var compressed = xz(text);
+        assertThat(Compression.detect(compressed, compressed.length), is(Compression.XZ));
+    }
+
+    @Test
+    public void shouldDetectBzip2() throws IOException {
+        var compressed = bzip2(text);
+        assertThat(Compression.detect(compressed, compressed.length), is(Compression.BZIP2));
+    }
+
+    @Test
+    public void shouldPassThroughUncompressedInput() throws IOException {
+        assertArrayEquals(text, readAll(new ByteArrayInputStream(text)));
+    }
+
+    @Test
+    public void shouldDecompressGzipThroughSmallRingBuffer() throws IOException {
+        var in = Compression.decompressing(new ByteArrayInputStream(gzip(text)), 1, 7, Thread::new);
+        assertArrayEquals(text, ByteStreams.toByteArray(in));
+        in.close();
+    }
+
+    @Test
+    public void shouldDecompressConcatenatedGzipMembers() throws IOException {
+        var out = new ByteArrayOutputStream();
+        out.write(gzip(text));
+        out.write(gzip(text));
+        var decompressed = readAll(new ByteArrayInputStream(out.toByteArray()));
+        assertThat(decompressed.length, is(text.length * 2));
+    }
+
+    @Test
+    public void shouldDecompressXz() throws IOException {
+        assertArrayEquals(text, readAll(new ByteArrayInputStream(xz(text))));
+    }
+
+    @Test
+    public void shouldDecompressConcatenatedBzip2Streams() throws IOException {
+        var out = new ByteArrayOutputStream();
+        out.write(bzip2(text));
+        out.write(bzip2(text));
+        var decompressed = readAll(new ByteArrayInputStream(out.toByteArray()));
+        assertThat(decompressed.length, is(text.length * 2));
+    }
+
+    @Test(timeout = 10_000)
+    public void shouldFailWhenDecompressorThrowsUncheckedException() throws IOException {
+        // The first read, which detects compression, happens on the calling thread
+        var in = new FilterInputStream(new ByteArrayInputStream(xz(text))) {
+
+            private boolean detected = false;
+
+            @Override
+            public int read(@Nonnull byte[] b, int off, int len) throws IOException {
+                if (detected) {
+                    throw new IllegalStateException("Corrupt input");
+                }
+                detected = true;
+                return super.read(b, off, len);
+            }
+        };
+        try (var decompressed = Compression.decompressing(in, 1)) {
+            ByteStreams.toByteArray(decompressed);
+            fail("Expected the read to fail");
+        } catch (IOException e) {
+            assertThat(e.getCause() instanceof IllegalStateException, is(true));
+        }
+    }
+
+    @Test
+    public void shouldReadEmptyInput() throws IOException {
+        assertThat(readAll(new ByteArrayInputStream(new byte[0])).length, is(0));
+    }
+
+    private static byte[] readAll(ByteArrayInputStream in) throws IOException {
+        try (var decompressed = Compression.decompressing(in)) {
+            return ByteStreams.toByteArray(decompressed);
+        }
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        var out = new ByteArrayOutputStream();
+        try (OutputStream gzipOut = new GZIPOutputStream(out)) {
+            gzipOut.write(bytes);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] xz(byte[] bytes) throws IOException {
+        var out = new ByteArrayOutputStream();
+        try (OutputStream xzOut = new XZOutputStream(out, new LZMA2Options())) {
+            xzOut.write(bytes);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] bzip2(byte[] bytes) throws IOException {
+        var out = new ByteArrayOutputStream();
+        try (OutputStream bzip2Out = new BZip2CompressorOutputStream(out)) {
+            bzip2Out.write(bytes);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] createText() {
+        var sb = new StringBuilder();
+        for (int i = 0; i < 10_000; i++) {
+            sb.append("[Term]\nid: GO:").append(i).append("\n\n");
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
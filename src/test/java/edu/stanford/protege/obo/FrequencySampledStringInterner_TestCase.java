@@ -0,0 +1,24 @@
+package edu.stanford.protege.obo;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class FrequencySampledStringInterner_TestCase {
+
+    private final char[] text = "GO:0048311 GO:0048311 GO:0048311".toCharArray();
+
+    @Test
+    public void shouldInternStringOnceItRecurs() {
+        var interner = new FrequencySampledStringInterner(16);
+        var first = interner.intern(text, 0, 10);
+        var second = interner.intern(text, 11, 10);
+        var third = interner.intern(text, 22, 10);
+        assertThat(second, is("GO:0048311"));
+        assertThat(second, is(not(sameInstance(first))));
+        assertThat(third, is(sameInstance(second)));
+    }
+}
@@ -0,0 +1,214 @@
+package edu.stanford.protege.obo;
+
+import javax.annotation.Nonnull;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Samples the heap that is retained while a parse streams through its input, so that a soak test can check
+ * that memory stays flat.  The monitor is a progress listener: each time another interval of input has been
+ * read it forces a full collection and records the heap that is still in use.  Samples that are taken
+ * before the warm-up has been read, while caches fill up, are ignored by the analysis.
+ *
+ * Class histograms are taken at the samples after the warm-up, and the classes whose instances grew the most
+ * between the first and the last of them are listed in the report, which points at the structures that are
+ * retaining memory.
+ */
+final class HeapSoakMonitor implements ProgressListener {
+
+    private static final Pattern HISTOGRAM_LINE = Pattern.compile("^\\s*\\d+:\\s+(\\d+)\\s+(\\d+)\\s+(\\S+)");
+
+    private static final int REPORTED_CLASSES_COUNT = 15;
+
+    private final long sampleIntervalBytes;
+
+    private final long warmUpBytes;
+
+    private final List<Sample> samples = new ArrayList<>();
+
+    private long nextSampleBytes;
+
+    private Map<String, long[]> baselineHistogram;
+
+    private Map<String, long[]> lastHistogram;
+
+    HeapSoakMonitor(long sampleIntervalBytes, long warmUpBytes) {
+        checkArgument(sampleIntervalBytes > 0, "sampleIntervalBytes must be greater than zero");
+        this.sampleIntervalBytes = sampleIntervalBytes;
+        this.warmUpBytes = warmUpBytes;
+        this.nextSampleBytes = sampleIntervalBytes;
+    }
+
+    @Override
+    public synchronized void onProgress(@Nonnull ParseProgress progress) {
+        var bytesRead = progress.getBytesRead();
+        if (bytesRead < nextSampleBytes) {
+            return;
+        }
+        nextSampleBytes = (bytesRead / sampleIntervalBytes + 1) * sampleIntervalBytes;
+        if (bytesRead >= warmUpBytes) {
+            // Histograms are taken while the parse is running, since its structures are released once it has
+            // finished
+            var histogram = takeClassHistogram();
+            if (baselineHistogram == null) {
+                baselineHistogram = histogram;
+            }
+            else {
+                lastHistogram = histogram;
+            }
+        }
+        samples.add(new Sample(bytesRead, getRetainedHeap()));
+    }
+
+    @Nonnull
+    synchronized List<Sample> getSamples() {
+        return List.copyOf(samples);
+    }
+
+    /**
+     * Gets the growth of the retained heap, in bytes per byte of input, after the warm-up.  This is the slope
+     * of a least-squares fit, so a single noisy sample does not dominate it.
+     */
+    synchronized double getRetainedBytesPerInputByte() {
+        return getSlope(samples, warmUpBytes);
+    }
+
+    /**
+     * Gets the slope of a least-squares fit of retained heap against bytes read, for the samples at or after
+     * the specified number of bytes read.  This is zero if there are fewer than two of them.
+     */
+    static double getSlope(@Nonnull List<Sample> samples, long fromBytes) {
+        var n = 0;
+        var sumX = 0.0;
+        var sumY = 0.0;
+        var sumXY = 0.0;
+        var sumXX = 0.0;
+        for (var sample : samples) {
+            if (sample.getBytesRead() >= fromBytes) {
+                double x = sample.getBytesRead();
+                double y = sample.getRetainedHeap();
+                n++;
+                sumX += x;
+                sumY += y;
+                sumXY += x * y;
+                sumXX += x * x;
+            }
+        }
+        var denominator = n * sumXX - sumX * sumX;
+        if (n < 2 || denominator == 0) {
+            return 0;
+        }
+        return (n * sumXY - sumX * sumY) / denominator;
+    }
+
+    /**
+     * Gets a report of the samples and of the classes whose instances grew the most after the warm-up.
+     */
+    @Nonnull
+    synchronized String getReport() {
+        var sb = new StringBuilder();
+        sb.append(String.format("Retained heap after warm-up grows by %,.0f bytes per GB of input%n",
+                                getRetainedBytesPerInputByte() * (1L << 30)));
+        sb.append(String.format("%16s %16s%n", "Input MB", "Retained MB"));
+        for (var sample : samples) {
+            sb.append(String.format("%,16d %,16d%s%n",
+                                    sample.getBytesRead() >> 20,
+                                    sample.getRetainedHeap() >> 20,
+                                    sample.getBytesRead() < warmUpBytes ? "  (warm-up)" : ""));
+        }
+        if (baselineHistogram != null && lastHistogram != null) {
+            sb.append(String.format("Largest growth after warm-up:%n%16s %16s  %s%n", "Bytes", "Instances", "Class"));
+            for (var growth : diff(baselineHistogram, lastHistogram, REPORTED_CLASSES_COUNT)) {
+                sb.append(String.format("%,16d %,16d  %s%n", growth.getValue()[1], growth.getValue()[0], growth.getKey()));
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Parses the output of the {@code GC.class_histogram} diagnostic command.
+     * @return The instances and bytes of each class, by class name.
+     */
+    @Nonnull
+    static Map<String, long[]> parseClassHistogram(@Nonnull String histogram) {
+        var classes = new HashMap<String, long[]>();
+        for (var line : histogram.split("\n")) {
+            var matcher = HISTOGRAM_LINE.matcher(line);
+            if (matcher.find()) {
+                classes.merge(matcher.group(3),
+                              new long[]{Long.parseLong(matcher.group(1)), Long.parseLong(matcher.group(2))},
+                              (a, b) -> new long[]{a[0] + b[0], a[1] + b[1]});
+            }
+        }
+        return classes;
+    }
+
+    /**
+     * Gets the classes whose instances grew the most, by bytes.
+     * @return The growth in instances and bytes of each class, largest first.
+     */
+    @Nonnull
+    static List<Map.Entry<String, long[]>> diff(@Nonnull Map<String, long[]> before,
+                                                @Nonnull Map<String, long[]> after,
+                                                int limit) {
+        var growth = new ArrayList<Map.Entry<String, long[]>>();
+        after.forEach((className, counts) -> {
+            var previous = before.getOrDefault(className, new long[2]);
+            var grownBytes = counts[1] - previous[1];
+            if (grownBytes > 0) {
+                growth.add(Map.entry(className, new long[]{counts[0] - previous[0], grownBytes}));
+            }
+        });
+        growth.sort(Collections.reverseOrder(Map.Entry.comparingByValue((a, b) -> Long.compare(a[1], b[1]))));
+        return growth.subList(0, Math.min(limit, growth.size()));
+    }
+
+    private static long getRetainedHeap() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    @Nonnull
+    private static Map<String, long[]> takeClassHistogram() {
+        try {
+            var histogram = (String) ManagementFactory.getPlatformMBeanServer()
+                                                      .invoke(new ObjectName("com.sun.management:type=DiagnosticCommand"),
+                                                              "gcClassHistogram",
+                                                              new Object[]{new String[0]},
+                                                              new String[]{String[].class.getName()});
+            return parseClassHistogram(histogram);
+        } catch (JMException e) {
+            // The report is less useful without it, but the samples still show whether memory grew
+            return Map.of();
+        }
+    }
+
+    static final class Sample {
+
+        private final long bytesRead;
+
+        private final long retainedHeap;
+
+        Sample(long bytesRead, long retainedHeap) {
+            this.bytesRead = bytesRead;
+            this.retainedHeap = retainedHeap;
+        }
+
+        long getBytesRead() {
+            return bytesRead;
+        }
+
+        long getRetainedHeap() {
+            return retainedHeap;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package edu.stanford.protege.obo;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class HeapSoakMonitor_TestCase {
+
+    @Test
+    public void shouldFitSlopeAfterWarmUp() {
+        var samples = List.of(new HeapSoakMonitor.Sample(100, 5000),
+                              new HeapSoakMonitor.Sample(200, 1000),
+                              new HeapSoakMonitor.Sample(300, 1100),
+                              new HeapSoakMonitor.Sample(400, 1200));
+        assertThat(HeapSoakMonitor.getSlope(samples, 200), is(1.0));
+        assertThat(HeapSoakMonitor.getSlope(samples, 400), is(0.0));
+    }
+
+    @Test
+    public void shouldListClassesThatGrewMost() {
+        var before = HeapSoakMonitor.parseClassHistogram(
+                " num     #instances         #bytes  class name (module)\n"
+                        + "-------------------------------------------------------\n"
+                        + "   1:          1000          64000  [B (java.base@17)\n"
+                        + "   2:           500          12000  java.lang.String (java.base@17)\n"
+                        + "   3:            10            400  org.obolibrary.oboformat.model.Frame\n");
+        var after = HeapSoakMonitor.parseClassHistogram(
+                "   1:          1000          64000  [B (java.base@17)\n"
+                        + "   2:           600          14400  java.lang.String (java.base@17)\n"
+                        + "   3:           110           4400  org.obolibrary.oboformat.model.Frame\n"
+                        + "Total          1710          82800\n");
+        var growth = HeapSoakMonitor.diff(before, after, 10);
+        assertThat(growth.size(), is(2));
+        assertThat(growth.get(0).getKey(), is("org.obolibrary.oboformat.model.Frame"));
+        assertThat(growth.get(0).getValue()[0], is(100L));
+        assertThat(growth.get(0).getValue()[1], is(4000L));
+        assertThat(growth.get(1).getKey(), is("java.lang.String"));
+        assertThat(after.get("[B")[1], is(64000L));
+        assertThat(after.containsKey("Total"), is(false));
+    }
+}
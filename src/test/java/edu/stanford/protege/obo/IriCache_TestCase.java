@@ -0,0 +1,61 @@
+package edu.stanford.protege.obo;
+
+import org.junit.Test;
+import org.semanticweb.owlapi.model.IRI;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class IriCache_TestCase {
+
+    private final AtomicInteger translations = new AtomicInteger();
+
+    private final Function<String, IRI> translator = id -> {
+        translations.incrementAndGet();
+        return IRI.create("http://purl.obolibrary.org/obo/" + id.replace(':', '_'));
+    };
+
+    @Test
+    public void shouldReturnCachedIri() {
+        var cache = new IriCache(10);
+        var first = cache.get("GO:0000001", translator);
+        var second = cache.get("GO:0000001", translator);
+        assertThat(second, is(sameInstance(first)));
+        assertThat(translations.get(), is(1));
+        assertThat(cache.getHitCount(), is(1L));
+        assertThat(cache.getMissCount(), is(1L));
+    }
+
+    @Test
+    public void shouldStayBounded() {
+        var cache = new IriCache(100);
+        for (int i = 0; i < 10_000; i++) {
+            cache.get("GO:" + i, translator);
+        }
+        assertThat(cache.getEvictionCount() >= 10_000 - 100, is(true));
+    }
+
+    @Test
+    public void shouldTranslateEveryIdWhenDisabled() {
+        var cache = new IriCache(0);
+        cache.get("GO:0000001", translator);
+        cache.get("GO:0000001", translator);
+        assertThat(cache.isEnabled(), is(false));
+        assertThat(translations.get(), is(2));
+    }
+
+    @Test
+    public void shouldAllowTranslatorToTranslateOtherIds() {
+        // Translating a relation id can look up the IRI of its xref
+        var cache = new IriCache(100_000);
+        for (int i = 0; i < 10_000; i++) {
+            var xref = "RO:" + i;
+            cache.get("relation_" + i, id -> cache.get(xref, translator));
+        }
+        assertThat(cache.getMissCount(), is(20_000L));
+    }
+}
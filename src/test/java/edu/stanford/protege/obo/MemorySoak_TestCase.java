@@ -0,0 +1,104 @@
+package edu.stanford.protege.obo;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Streams generated input through the parser and checks that the heap that is retained after garbage
+ * collection does not grow with the size of the input.  By default this runs over a small input, as a
+ * smoke test.  The soak profile runs it over several GB under a small heap:
+ *
+ * <pre>mvn -Psoak test -Dsoak.size=20GB -Dsoak.heap=256m</pre>
+ *
+ * The input is piped from {@link SyntheticOboCorpus} rather than written to disk, so any size can be used.
+ * The test fails if the retained heap grows by more than {@code soak.maxGrowth} (default 16MB) over the
+ * input after the warm-up, and the failure message lists the classes that grew the most.
+ */
+public class MemorySoak_TestCase {
+
+    private static final long SIZE = SyntheticOboCorpus.parseSize(System.getProperty("soak.size", "32MB"));
+
+    private static final long MAX_GROWTH = SyntheticOboCorpus.parseSize(System.getProperty("soak.maxGrowth", "16MB"));
+
+    private static final int SAMPLES_COUNT = 32;
+
+    /**
+     * The input that is read before samples are analysed, which lets caches, the string interner and the
+     * JIT settle down.
+     */
+    private static final long WARM_UP = SIZE / 10;
+
+    @Test
+    public void shouldKeepRetainedHeapFlatWithSequentialTranslation() throws Exception {
+        assertRetainedHeapIsFlat(parser -> {});
+    }
+
+    @Test
+    public void shouldKeepRetainedHeapFlatWithPipelinedTranslation() throws Exception {
+        assertRetainedHeapIsFlat(parser -> {
+            parser.setPipelineTranslatorThreads(2);
+            // Generated terms average a few hundred bytes
+            parser.setDeclarationTracking(DeclarationTracking.probabilistic(Math.max(1, SIZE / 256), 0.0001));
+        });
+    }
+
+    private static void assertRetainedHeapIsFlat(ParserConfiguration configuration) throws Exception {
+        var monitor = new HeapSoakMonitor(Math.max(1, SIZE / SAMPLES_COUNT), WARM_UP);
+        var parser = new MinimalOboParser(axioms -> {}, 1000);
+        parser.setProgressListener(monitor);
+        parser.setProgressInterval(ProgressInterval.everyAxioms(100_000));
+        // The cache is bounded, but at its default size it would still be filling up after the warm-up of a
+        // small input
+        parser.setIriCacheSize(1_000);
+        configuration.configure(parser);
+        var bytesRead = parseGeneratedInput(parser);
+
+        var report = monitor.getReport();
+        if (System.getProperty("soak.size") != null) {
+            System.out.println(report);
+        }
+        var growth = monitor.getRetainedBytesPerInputByte() * (bytesRead - WARM_UP);
+        assertTrue(String.format("Retained heap grew by about %,.0f bytes, more than the allowed %,d bytes%n%s",
+                                 growth, MAX_GROWTH, report),
+                   growth <= MAX_GROWTH);
+    }
+
+    /**
+     * Parses input that is generated on another thread.
+     * @return The number of bytes that were parsed.
+     */
+    private static long parseGeneratedInput(MinimalOboParser parser) throws Exception {
+        var in = new PipedInputStream(1 << 20);
+        var out = new PipedOutputStream(in);
+        var written = new AtomicReference<SyntheticOboCorpus.Summary>();
+        var failure = new AtomicReference<IOException>();
+        var generator = new Thread(() -> {
+            try (out) {
+                written.set(SyntheticOboCorpus.withSeed(11).write(out, SIZE));
+            } catch (IOException e) {
+                failure.set(e);
+            }
+        }, "soak-generator");
+        generator.setDaemon(true);
+        generator.start();
+        try (in) {
+            parser.parse(in, SIZE);
+        }
+        generator.join();
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        return written.get().getBytes();
+    }
+
+    private interface ParserConfiguration {
+
+        void configure(MinimalOboParser parser);
+    }
+}
@@ -1,20 +1,46 @@
 package edu.stanford.protege.obo;
 
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.semanticweb.owlapi.apibinding.OWLFunctionalSyntaxFactory;
 import org.semanticweb.owlapi.model.IRI;
 import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLDeclarationAxiom;
 import org.semanticweb.owlapi.model.OWLSubClassOfAxiom;
 
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordingFile;
+
+import javax.annotation.Nonnull;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
+
 import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
+import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -23,6 +49,9 @@ import static org.semanticweb.owlapi.apibinding.OWLFunctionalSyntaxFactory.*;
 @RunWith(MockitoJUnitRunner.class)
 public class MinimalOboParser_TestCase {
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     private MinimalOboParser parser;
 
     @Mock
@@ -51,4 +80,452 @@ public class MinimalOboParser_TestCase {
         parser.parse(new ByteArrayInputStream(input.getBytes(Charset.forName("utf-8"))), input.length());
         verify(axiomConsumer, times(1)).accept(expectedAxiom);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldDeliverAxiomsInBatches() throws IOException {
+        var file = writeTermsFile(100);
+
+        var batchedAxioms = new HashSet<OWLAxiom>();
+        var batchSizes = new ArrayList<Integer>();
+        new MinimalOboParser(batch -> {
+            batchSizes.add(batch.size());
+            batchedAxioms.addAll(batch);
+        }, 50).parse(Files.newInputStream(file));
+
+        assertEquals(new HashSet<>(parseSequentially(file)), batchedAxioms);
+        for(int i = 0; i < batchSizes.size() - 1; i++) {
+            assertThat(batchSizes.get(i) >= 50, is(true));
+        }
+    }
+
+    @Test
+    public void shouldParseMappedFile() throws IOException {
+        var file = writeTermsFile(50);
+
+        var mappedAxioms = assertParsesAsSequentialParse(file, parser -> parser.parse(file));
+
+        assertThat(mappedAxioms.contains(expectedAxiom), is(true));
+    }
+
+    @Test
+    public void shouldParseInParallelRanges() throws IOException {
+        var file = writeTermsFile(50);
+
+        var parallelAxioms = assertParsesAsSequentialParse(file, parser -> parser.parse(file, 4));
+
+        assertThat(parallelAxioms.contains(expectedAxiom), is(true));
+    }
+
+    @Test
+    public void shouldParseWithTranslationPipeline() throws IOException {
+        var file = writeTermsFile(1000);
+
+        var pipelinedAxioms = assertParsesAsSequentialParse(file, parser -> {
+            parser.setPipelineTranslatorThreads(3);
+            parser.parse(Files.newInputStream(file));
+        });
+
+        assertThat(pipelinedAxioms.contains(expectedAxiom), is(true));
+    }
+
+    @Test(timeout = 10_000, expected = IllegalStateException.class)
+    public void shouldFailPipelinedParseWhenDecodingThrowsUncheckedException() throws IOException {
+        var file = writeTermsFile(1000);
+        // The first read, which detects compression, happens on the parsing thread
+        var in = new FilterInputStream(Files.newInputStream(file)) {
+
+            private boolean detected = false;
+
+            @Override
+            public int read(@Nonnull byte[] b, int off, int len) throws IOException {
+                if (detected) {
+                    throw new IllegalStateException("Corrupt input");
+                }
+                detected = true;
+                return super.read(b, off, len);
+            }
+        };
+        var pipelinedParser = new MinimalOboParser(axiom -> {});
+        pipelinedParser.setPipelineTranslatorThreads(3);
+        pipelinedParser.parse(in);
+    }
+
+    @Test
+    public void shouldDeliverEachDeclarationOnceWithExactTracking() throws IOException {
+        var file = writeTermsFile(1000);
+
+        var trackedAxioms = assertParsesAsSequentialParse(file, parser -> {
+            parser.setDeclarationTracking(DeclarationTracking.exact());
+            parser.setPipelineTranslatorThreads(3);
+            parser.parse(Files.newInputStream(file));
+        });
+
+        var trackedDeclarations = trackedAxioms.stream()
+                .filter(ax -> ax instanceof OWLDeclarationAxiom)
+                .collect(Collectors.toList());
+        assertThat(trackedDeclarations.size(), is(new HashSet<>(trackedDeclarations).size()));
+    }
+
+    @Test
+    public void shouldShareDeclarationTrackingAcrossParallelRanges() throws IOException {
+        var file = writeTermsFile(1000);
+
+        var trackedAxioms = Collections.synchronizedList(new ArrayList<OWLAxiom>());
+        var trackingParser = new MinimalOboParser(trackedAxioms::add);
+        trackingParser.setDeclarationTracking(DeclarationTracking.exact());
+        trackingParser.parse(file, 4);
+
+        var trackedDeclarations = trackedAxioms.stream()
+                .filter(ax -> ax instanceof OWLDeclarationAxiom)
+                .collect(Collectors.toList());
+        assertThat(trackedDeclarations.size(), is(new HashSet<>(trackedDeclarations).size()));
+    }
+
+    @Test
+    public void shouldParseWithBoundedIriCache() throws IOException {
+        var file = writeTermsFile(1000);
+
+        assertParsesAsSequentialParse(file, parser -> {
+            parser.setIriCacheSize(0);
+            parser.parse(Files.newInputStream(file));
+        });
+        assertParsesAsSequentialParse(file, parser -> {
+            parser.setIriCacheSize(10);
+            parser.parse(Files.newInputStream(file));
+        });
+    }
+
+    @Test
+    public void shouldParseGzipCompressedFile() throws IOException {
+        var file = writeTermsFile(1000);
+        var compressedFile = temporaryFolder.newFile().toPath();
+        try (var out = new GZIPOutputStream(Files.newOutputStream(compressedFile))) {
+            Files.copy(file, out);
+        }
+
+        assertParsesAsSequentialParse(file, parser -> parser.parse(compressedFile));
+        assertParsesAsSequentialParse(file, parser -> parser.parse(Files.newInputStream(compressedFile)));
+    }
+
+    @Test
+    public void shouldParseStanzaAlignedGzipInParallel() throws IOException {
+        var file = writeTermsFile(1000);
+        var compressedFile = temporaryFolder.newFile().toPath();
+        StanzaAlignedGzipWriter.compress(file, compressedFile, 8 * 1024);
+
+        assertParsesAsSequentialParse(file, parser -> {
+            parser.setDecompressionThreads(4);
+            parser.parse(compressedFile);
+        });
+        assertParsesAsSequentialParse(file, parser -> parser.parse(compressedFile, 4));
+    }
+
+    @Test
+    public void shouldParseDisjointByteRangesAsWholeFile() throws IOException {
+        var file = writeTermsFile(1000);
+        var size = Files.size(file);
+
+        var rangeAxioms = assertParsesAsSequentialParse(file, parser -> {
+            // Offsets that fall in the middle of stanzas
+            var offsets = new long[]{0, 7, size / 3 + 11, size / 2 + 5, size - 3, size};
+            for (int i = 1; i < offsets.length; i++) {
+                parser.parse(file, offsets[i - 1], offsets[i]);
+            }
+        });
+
+        // Each slice declares the built-in annotation properties that it uses, so only count other axioms
+        assertThat(countLogicalAndAnnotationAxioms(rangeAxioms),
+                   is(countLogicalAndAnnotationAxioms(parseSequentially(file))));
+    }
+
+    @Test
+    public void shouldNotCountTypedefsThatPrecedeSlice() throws IOException {
+        var file = writeTermsFile(1000);
+        var reports = new ArrayList<ParseStatisticsReport>();
+        var parser = new MinimalOboParser(axioms -> {}, 10);
+        parser.setProgressListener(new ProgressListener() {
+            @Override
+            public void onProgress(@Nonnull ParseProgress progress) {
+            }
+
+            @Override
+            public void onFinished(@Nonnull ParseStatisticsReport report) {
+                reports.add(report);
+            }
+        });
+        parser.setDetailedStatistics(true);
+        parser.parse(file, Files.size(file) / 2, Files.size(file));
+
+        var report = reports.get(0);
+        assertThat(report.getFramesCountByType().containsKey("TYPEDEF"), is(false));
+        assertThat(report.getClausesCountByTag().containsKey("xref"), is(false));
+        assertThat(report.getFramesCountByType().get("TERM") > 0, is(true));
+    }
+
+    private static long countLogicalAndAnnotationAxioms(List<OWLAxiom> axioms) {
+        return axioms.stream().filter(ax -> !(ax instanceof OWLDeclarationAxiom)).count();
+    }
+
+    @Test
+    public void shouldParseOnlyStanzasInByteRange() throws IOException {
+        var file = temporaryFolder.newFile().toPath();
+        var text = "format-version: 1.2\n\n"
+                + "[Term]\n"
+                + "id: GO:0000001\n\n"
+                + "[Term]\n"
+                + "id: GO:0000002\n"
+                + "is_a: GO:0000001\n\n"
+                + "[Term]\n"
+                + "id: GO:0000003\n"
+                + "is_a: GO:0000002\n";
+        Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+        var secondStanza = text.indexOf("[Term]\nid: GO:0000002");
+        var axioms = new ArrayList<OWLAxiom>();
+        // Starts in the first stanza and ends in the second
+        new MinimalOboParser(axioms::add).parse(file, 25, secondStanza + 10);
+
+        var go1 = Class(IRI.create("http://purl.obolibrary.org/obo/GO_0000001"));
+        var go2 = Class(IRI.create("http://purl.obolibrary.org/obo/GO_0000002"));
+        var go3 = Class(IRI.create("http://purl.obolibrary.org/obo/GO_0000003"));
+        assertThat(axioms.contains(SubClassOf(go2, go1)), is(true));
+        assertThat(axioms.contains(Declaration(go2)), is(true));
+        assertThat(axioms.contains(SubClassOf(go3, go2)), is(false));
+        assertThat(axioms.contains(AnnotationAssertion(AnnotationProperty(IRI.create("http://www.geneontology.org/formats/oboInOwl#id")),
+                                                       go1.getIRI(),
+                                                       Literal("GO:0000001"))), is(false));
+    }
+
+    @Test
+    public void shouldReportProgressAcrossParallelRanges() throws IOException {
+        var file = writeTermsFile(1000);
+        var reports = Collections.synchronizedList(new ArrayList<ParseProgress>());
+        var parser = new MinimalOboParser(axioms -> {}, 10);
+        parser.setProgressListener(reports::add);
+        parser.setProgressInterval(ProgressInterval.everyAxioms(500));
+        parser.parse(file, 4);
+
+        assertThat(reports.size(), is(10));
+        var lastReport = reports.get(reports.size() - 1);
+        assertThat(lastReport.getAxiomsCount() >= 5000, is(true));
+        assertThat(lastReport.getFramesCount() > 900, is(true));
+        assertThat(lastReport.getTotalBytes(), is(Files.size(file)));
+    }
+
+    @Test
+    public void shouldReportDetailedStatisticsWhenFinished() throws IOException {
+        // Each range reads the Typedef, but it is only counted once
+        var file = writeTermsFile(1000);
+        var reports = Collections.synchronizedList(new ArrayList<ParseStatisticsReport>());
+        var parser = new MinimalOboParser(axioms -> {}, 10);
+        parser.setProgressListener(new ProgressListener() {
+            @Override
+            public void onProgress(@Nonnull ParseProgress progress) {
+            }
+
+            @Override
+            public void onFinished(@Nonnull ParseStatisticsReport report) {
+                reports.add(report);
+            }
+        });
+        parser.setDetailedStatistics(true);
+        parser.parse(file, 4);
+
+        assertThat(reports.size(), is(1));
+        var report = reports.get(0);
+        assertThat(report.isDetailed(), is(true));
+        assertThat(report.getClausesCountByTag().get("is_a"), is(1000L));
+        assertThat(report.getClausesCountByTag().get("relationship"), is(1000L));
+        assertThat(report.getClausesCountByTag().get("xref"), is(1L));
+        assertThat(report.getFramesCountByType().get("TERM"), is(1000L));
+        assertThat(report.getAxiomsCountByType().get("SubClassOf"), is(2000L));
+        assertThat(report.getParseNanos() > 0, is(true));
+        assertThat(report.getTranslationNanos() > 0, is(true));
+    }
+
+    @Test
+    public void shouldRecordFlightRecorderEvents() throws IOException {
+        var file = writeTermsFile(1000);
+        var recordingFile = temporaryFolder.newFile("parse.jfr").toPath();
+        try (var recording = new Recording()) {
+            for (var name : List.of("FrameParse", "FrameTranslation", "AxiomBatch", "TranslationBackPressure", "ParseChunk")) {
+                recording.enable("edu.stanford.protege.obo." + name).withThreshold(Duration.ZERO);
+            }
+            recording.start();
+            var parser = new MinimalOboParser(axioms -> {}, 10);
+            parser.setPipelineTranslatorThreads(2);
+            parser.parse(file);
+            recording.stop();
+            recording.dump(recordingFile);
+        }
+        var events = RecordingFile.readAllEvents(recordingFile)
+                                  .stream()
+                                  .collect(Collectors.groupingBy(e -> e.getEventType().getName()));
+
+        var parseEvents = events.get("edu.stanford.protege.obo.FrameParse");
+        assertThat(parseEvents.size(), is(1001));
+        var firstParseEvent = parseEvents.stream()
+                                         .filter(e -> "GO:0000001".equals(e.getString("stanzaId")))
+                                         .findFirst()
+                                         .orElseThrow();
+        var firstTermOffset = Files.readString(file).indexOf("[Term]\nid: GO:0000001\n");
+        assertThat(firstParseEvent.getLong("byteOffset"), is((long) firstTermOffset));
+        assertThat(events.get("edu.stanford.protege.obo.FrameTranslation").size(), is(1000));
+        assertThat(events.get("edu.stanford.protege.obo.AxiomBatch").isEmpty(), is(false));
+        assertThat(events.get("edu.stanford.protege.obo.TranslationBackPressure").isEmpty(), is(false));
+        var chunkEvent = events.get("edu.stanford.protege.obo.ParseChunk").get(0);
+        assertThat(chunkEvent.getInt("stanzasCount"), is(1002));
+        assertThat(chunkEvent.getString("stanzaId"), is("part_of"));
+    }
+
+    @Test
+    public void shouldRegisterStatisticsMBeanWhileParsing() throws Exception {
+        var file = writeTermsFile(1000);
+        var server = ManagementFactory.getPlatformMBeanServer();
+        var pattern = new ObjectName("edu.stanford.protege.obo:type=MinimalOboParser,*");
+        var names = new HashSet<ObjectName>();
+        var parser = new MinimalOboParser(axiom -> {
+            if (names.isEmpty()) {
+                names.addAll(server.queryNames(pattern, null));
+            }
+        });
+        parser.setJmxEnabled(true);
+        parser.parse(file);
+
+        assertThat(names.size(), is(1));
+        assertThat(server.queryNames(pattern, null).isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldExposeStatisticsOverJmx() throws Exception {
+        var file = writeTermsFile(1000);
+        var server = ManagementFactory.getPlatformMBeanServer();
+        var pattern = new ObjectName("edu.stanford.protege.obo:type=MinimalOboParser,*");
+        var attributes = new ArrayList<Object>();
+        var batchCount = new AtomicInteger();
+        var parser = new MinimalOboParser(axioms -> {
+            // Counts are updated once a batch has been delivered, so look at them when the second arrives
+            if (batchCount.incrementAndGet() == 2) {
+                try {
+                    var name = server.queryNames(pattern, null).iterator().next();
+                    attributes.add(server.getAttribute(name, "AxiomsCountByType"));
+                    attributes.add(server.getAttribute(name, "TotalBytes"));
+                } catch (JMException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        }, 1);
+        parser.setJmxEnabled(true);
+        parser.parse(file);
+
+        var axiomsCountByType = (TabularData) attributes.get(0);
+        assertThat(axiomsCountByType.get(new Object[]{"SubClassOf"}).get("value"), is(2L));
+        assertThat(axiomsCountByType.get(new Object[]{"Declaration"}) != null, is(true));
+        assertThat(attributes.get(1), is(Files.size(file)));
+    }
+
+    @Test
+    public void shouldResumeFromCheckpoint() throws IOException {
+        var file = writeTermsFile(1000);
+        var checkpointFile = temporaryFolder.getRoot().toPath().resolve("parse.checkpoint");
+
+        var interruptedAxioms = new HashSet<OWLAxiom>();
+        var interruptedParser = new MinimalOboParser(axiom -> {
+            if (interruptedAxioms.size() == 2000) {
+                throw new IllegalStateException("Interrupted");
+            }
+            interruptedAxioms.add(axiom);
+        });
+        interruptedParser.setDeclarationTracking(DeclarationTracking.exact());
+        interruptedParser.setCheckpointFile(checkpointFile);
+        interruptedParser.setCheckpointInterval(4 * 1024);
+        try {
+            interruptedParser.parse(file);
+            fail("Expected the parse to be interrupted");
+        } catch (IllegalStateException e) {
+            assertThat(Files.exists(checkpointFile), is(true));
+        }
+
+        var resumedAxioms = new HashSet<OWLAxiom>();
+        var resumedParser = new MinimalOboParser(resumedAxioms::add);
+        resumedParser.setDeclarationTracking(DeclarationTracking.exact());
+        resumedParser.setCheckpointFile(checkpointFile);
+        resumedParser.setCheckpointInterval(4 * 1024);
+        resumedParser.parse(file);
+
+        assertThat(Files.exists(checkpointFile), is(false));
+        assertThat(resumedAxioms.contains(expectedAxiom), is(false));
+        assertThat(resumedAxioms.contains(Declaration(Class(IRI.create("http://purl.obolibrary.org/obo/GO_0048311")))), is(false));
+        var allAxioms = new HashSet<>(interruptedAxioms);
+        allAxioms.addAll(resumedAxioms);
+        assertEquals(new HashSet<>(parseSequentially(file)), allAxioms);
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldNotResumeFromCheckpointOfChangedFile() throws IOException {
+        var file = writeTermsFile(1000);
+        var checkpointFile = temporaryFolder.getRoot().toPath().resolve("parse.checkpoint");
+        var batchCount = new AtomicInteger();
+        var interruptedParser = new MinimalOboParser(axioms -> {
+            if (batchCount.incrementAndGet() == 2) {
+                throw new IllegalStateException("Interrupted");
+            }
+        }, 1_000_000);
+        interruptedParser.setCheckpointFile(checkpointFile);
+        interruptedParser.setCheckpointInterval(4 * 1024);
+        try {
+            interruptedParser.parse(file);
+        } catch (IllegalStateException e) {
+            // Interrupted after the first checkpoint
+        }
+        Files.write(file, "[Term]\nid: GO:0000001\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        var resumedParser = new MinimalOboParser(axiom -> {});
+        resumedParser.setCheckpointFile(checkpointFile);
+        resumedParser.parse(file);
+    }
+
+    /**
+     * Writes terms whose relationships refer to a Typedef that comes before them, so that a parse of part of
+     * the file has to read the Typedef to translate the relationships.
+     */
+    private Path writeTermsFile(int termCount) throws IOException {
+        var sb = new StringBuilder("format-version: 1.2\n\n");
+        sb.append("[Typedef]\n")
+          .append("id: part_of\n")
+          .append("xref: BFO:0000050\n\n");
+        for(int i = 1; i <= termCount; i++) {
+            sb.append("[Term]\n")
+              .append(String.format("id: GO:%07d\n", i))
+              .append("is_a: GO:0048311 ! mitochondrion distribution\n")
+              .append("relationship: part_of GO:0005739 ! mitochondrion\n\n");
+        }
+        var file = temporaryFolder.newFile().toPath();
+        Files.write(file, sb.toString().getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    /**
+     * Parses a file sequentially from a stream, which is what other ways of parsing it are compared with.
+     */
+    private static List<OWLAxiom> parseSequentially(Path file) throws IOException {
+        var axioms = new ArrayList<OWLAxiom>();
+        new MinimalOboParser(axioms::add).parse(Files.newInputStream(file));
+        return axioms;
+    }
+
+    /**
+     * Parses a file with a parser that is configured and run by the specified action, and checks that this
+     * gives the same set of axioms as {@link #parseSequentially(Path)}.
+     * @return The axioms that were delivered, in the order in which they were delivered.
+     */
+    private static List<OWLAxiom> assertParsesAsSequentialParse(Path file, ParseAction parseAction) throws IOException {
+        var axioms = Collections.synchronizedList(new ArrayList<OWLAxiom>());
+        parseAction.parse(new MinimalOboParser(axioms::add));
+        assertEquals(new HashSet<>(parseSequentially(file)), new HashSet<>(axioms));
+        return axioms;
+    }
+
+    private interface ParseAction {
+
+        void parse(MinimalOboParser parser) throws IOException;
+    }
+}
@@ -0,0 +1,133 @@
+package edu.stanford.protege.obo;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.semanticweb.owlapi.model.OWLAxiom;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+
+public class OboAxiomPublisher_TestCase {
+
+    private ExecutorService executor;
+
+    private byte[] input;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newSingleThreadExecutor();
+        var sb = new StringBuilder();
+        for(int i = 1; i <= 100; i++) {
+            sb.append("[Term]\n")
+              .append(String.format("id: GO:%07d\n", i))
+              .append("is_a: GO:0048311\n\n");
+        }
+        input = sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void shouldPublishAllAxiomsOneRequestAtATime() throws Exception {
+        var expected = new HashSet<OWLAxiom>();
+        new MinimalOboParser(expected::add).parse(new ByteArrayInputStream(input));
+
+        var subscriber = new RecordingSubscriber(1);
+        new OboAxiomPublisher(parser -> parser.parse(new ByteArrayInputStream(input)), executor).subscribe(subscriber);
+
+        assertThat(subscriber.done.get(10, TimeUnit.SECONDS), is(true));
+        assertThat(subscriber.axioms.size(), is(expected.size()));
+        assertEquals(expected, new HashSet<>(subscriber.axioms));
+    }
+
+    @Test
+    public void shouldStopParsingWhenCancelled() throws Exception {
+        var subscriber = new RecordingSubscriber(5) {
+            @Override
+            public void onNext(OWLAxiom item) {
+                axioms.add(item);
+                if (axioms.size() == 5) {
+                    subscription.cancel();
+                }
+            }
+        };
+        new OboAxiomPublisher(parser -> parser.parse(new ByteArrayInputStream(input)), executor).subscribe(subscriber);
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS), is(true));
+        assertThat(subscriber.axioms.size(), is(5));
+        assertThat(subscriber.done.isDone(), is(false));
+    }
+
+    @Test
+    public void shouldSignalParseErrors() throws Exception {
+        var subscriber = new RecordingSubscriber(Long.MAX_VALUE);
+        new OboAxiomPublisher(parser -> {
+            throw new IOException("Broken");
+        }, executor).subscribe(subscriber);
+        try {
+            subscriber.done.get(10, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(IOException.class));
+            return;
+        }
+        throw new AssertionError("Expected onError");
+    }
+
+    private static class RecordingSubscriber implements Flow.Subscriber<OWLAxiom> {
+
+        private final long requestSize;
+
+        protected final List<OWLAxiom> axioms = new ArrayList<>();
+
+        protected final CompletableFuture<Boolean> done = new CompletableFuture<>();
+
+        protected Flow.Subscription subscription;
+
+        private RecordingSubscriber(long requestSize) {
+            this.requestSize = requestSize;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(requestSize);
+        }
+
+        @Override
+        public void onNext(OWLAxiom item) {
+            axioms.add(item);
+            if (requestSize == 1) {
+                subscription.request(1);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            done.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            done.complete(true);
+        }
+    }
+}
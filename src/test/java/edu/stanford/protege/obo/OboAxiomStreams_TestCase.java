@@ -0,0 +1,89 @@
+package edu.stanford.protege.obo;
+
+import com.google.common.io.CountingInputStream;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLDeclarationAxiom;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+
+public class OboAxiomStreams_TestCase {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Path file;
+
+    private Set<OWLAxiom> expectedAxioms;
+
+    @Before
+    public void setUp() throws IOException {
+        // The Typedef comes first, so the parts of a parallel stream have to read it to translate relationships
+        var sb = new StringBuilder("format-version: 1.2\n\n");
+        sb.append("[Typedef]\n")
+          .append("id: part_of\n")
+          .append("xref: BFO:0000050\n\n");
+        for(int i = 1; i <= 5000; i++) {
+            sb.append("[Term]\n")
+              .append(String.format("id: GO:%07d\n", i))
+              .append("name: term ").append(i).append("\n")
+              .append("is_a: GO:0048311 ! mitochondrion distribution\n")
+              .append("relationship: part_of GO:0005739 ! mitochondrion\n\n");
+        }
+        file = temporaryFolder.newFile().toPath();
+        Files.write(file, sb.toString().getBytes(StandardCharsets.UTF_8));
+        expectedAxioms = new HashSet<>();
+        new MinimalOboParser(expectedAxioms::add).parse(Files.newInputStream(file));
+    }
+
+    @Test
+    public void shouldStreamAllAxiomsOfFile() throws IOException {
+        try (var axioms = OboAxiomStreams.axioms(file)) {
+            assertEquals(expectedAxioms, axioms.collect(Collectors.toSet()));
+        }
+    }
+
+    @Test
+    public void shouldStreamAllAxiomsOfFileInParallel() throws IOException {
+        try (var axioms = OboAxiomStreams.axioms(file)) {
+            assertEquals(expectedAxioms, axioms.parallel().collect(Collectors.toSet()));
+        }
+    }
+
+    @Test
+    public void shouldUseDeclarationTrackingOfParser() throws IOException {
+        var parser = new MinimalOboParser(axiom -> {});
+        parser.setDeclarationTracking(DeclarationTracking.exact());
+        parser.setStringInterning(StringInterning.frequencySampled(1024));
+        try (var axioms = OboAxiomStreams.axioms(file, parser)) {
+            var streamedAxioms = axioms.parallel().collect(Collectors.toList());
+            var declarations = streamedAxioms.stream()
+                    .filter(ax -> ax instanceof OWLDeclarationAxiom)
+                    .collect(Collectors.toList());
+            assertThat(declarations.size(), is(new HashSet<>(declarations).size()));
+            assertEquals(expectedAxioms, new HashSet<>(streamedAxioms));
+        }
+    }
+
+    @Test
+    public void shouldOnlyReadAsMuchAsIsConsumed() throws IOException {
+        var in = new CountingInputStream(Files.newInputStream(file));
+        try (var axioms = OboAxiomStreams.axioms(in)) {
+            assertThat(axioms.limit(10).count(), is(10L));
+        }
+        assertThat(in.getCount() < Files.size(file), is(true));
+    }
+}
@@ -0,0 +1,176 @@
+package edu.stanford.protege.obo;
+
+import org.junit.Test;
+import org.obolibrary.oboformat.model.Frame;
+import org.obolibrary.oboformat.model.OBODoc;
+import org.obolibrary.oboformat.parser.OBOFormatParser;
+import org.obolibrary.oboformat.parser.OBOFormatParserException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+public class OboFrameBuilder_TestCase {
+
+    private static final String INPUT = "format-version: 1.2\n"
+            + "ontology: go\n"
+            + "\n"
+            + "[Term]\n"
+            + "id: GO:0000001\n"
+            + "name: mitochondrion inheritance  \n"
+            + "namespace: biological_process\n"
+            + "alt_id: GO:0000002\n"
+            + "def: \"The distribution of \\\"mitochondria\\\",\\nincluding the genome.\" [GOC:mcc, PMID:10873824 \"a paper\"] {source=\"x\"}\n"
+            + "comment: some comment ! not a comment\n"
+            + "synonym: \"mitochondrial inheritance\" EXACT []\n"
+            + "synonym: \"mito inh\" RELATED systematic_synonym [GOC:x] {comment=\"c\"}\n"
+            + "xref: Wikipedia:Mitochondrion \"wiki desc\"\n"
+            + "is_a: GO:0048308 ! organelle inheritance\n"
+            + "is_a: GO:0048311 {source=\"GOC:x\", comment=\"y\"} ! mitochondrion distribution\n"
+            + "  ! an indented comment\n"
+            + "intersection_of: GO:0008150\n"
+            + "intersection_of: part_of GO:0005739\n"
+            + "relationship: part_of GO:0005739 ! mitochondrion\n"
+            + "disjoint_from: GO:0000003\n"
+            + "union_of: GO:0000004\n"
+            + "subset: goslim_generic\n"
+            + "created_by: jl\n"
+            + "creation_date: 2009-04-13T01:32:36Z\n"
+            + "is_obsolete: false\n"
+            + "property_value: IAO:0000589 \"cell and encapsulating structures\" xsd:string\n"
+            + "property_value: seeAlso GO:0000099\n"
+            + "equivalent_to: GO:0000006\n"
+            + "consider: GO:0000007\n"
+            + "replaced_by: GO:0000008\n"
+            + "my_custom_tag: some value\n"
+            + "\n"
+            + "[Term]\n"
+            + "id: GO:0000010\n"
+            + "exact_synonym: \"deprecated synonym tag\" []\n"
+            + "is_a: GO:0000001 {source=unquoted}\n"
+            + "\r\n"
+            + "[Typedef]\n"
+            + "id: part_of\n"
+            + "name: part of\n"
+            + "xref: BFO:0000050\n"
+            + "is_transitive: true\n"
+            + "is_a: overlaps\n"
+            + "domain: GO:0005575\n"
+            + "range: GO:0005575\n"
+            + "inverse_of: has_part\n"
+            + "transitive_over: part_of\n"
+            + "holds_over_chain: part_of part_of\n"
+            + "expand_expression_to: \"BFO_0000051 some ?Y\" []\n"
+            + "is_metadata_tag: false\n";
+
+    @Test
+    public void shouldBuildSameFramesAsOboFormatParser() throws IOException {
+        assertBuildsSameFramesAsOboFormatParser(new OboFrameBuilder());
+    }
+
+    @Test
+    public void shouldBuildSameFramesWithBoundedLruInterning() throws IOException {
+        assertBuildsSameFramesAsOboFormatParser(new OboFrameBuilder(new BoundedLruStringInterner(4)));
+    }
+
+    @Test
+    public void shouldBuildSameFramesWithFrequencySampledInterning() throws IOException {
+        assertBuildsSameFramesAsOboFormatParser(new OboFrameBuilder(new FrequencySampledStringInterner(4)));
+    }
+
+    private static void assertBuildsSameFramesAsOboFormatParser(OboFrameBuilder builder) throws IOException {
+        var expected = parseWithOboFormatParser(INPUT);
+        var frames = new ArrayList<Frame>();
+        var lexer = new OboStanzaLexer(new StringReader(INPUT));
+        var stanza = new OboStanza();
+        while (lexer.next(stanza)) {
+            if (stanza.getType() != OboStanza.Type.HEADER) {
+                frames.add(builder.build(stanza));
+            }
+        }
+        assertThat(frames.size(), is(expected.size()));
+        for (int i = 0; i < frames.size(); i++) {
+            // Frame does not override equals
+            assertThat(frames.get(i).getType(), is(expected.get(i).getType()));
+            assertThat(frames.get(i).getId(), is(expected.get(i).getId()));
+            assertEquals(new ArrayList<>(expected.get(i).getClauses()), new ArrayList<>(frames.get(i).getClauses()));
+            assertEquals(expected.get(i).toString(), frames.get(i).toString());
+        }
+        assertThat(builder.getFallbackCount(), is(1L));
+    }
+
+    @Test
+    public void shouldReportLineNumberOfMalformedClause() throws IOException {
+        var input = "[Term]\n"
+                + "id: GO:0000001\n"
+                + "\n"
+                + "[Term]\n"
+                + "id: GO:0000002\n"
+                + "def: an unquoted definition\n";
+        var lexer = new OboStanzaLexer(new StringReader(input));
+        var stanza = new OboStanza();
+        var builder = new OboFrameBuilder();
+        assertThat(lexer.next(stanza), is(true));
+        assertNotNull(builder.build(stanza));
+        assertThat(lexer.next(stanza), is(true));
+        try {
+            builder.build(stanza);
+            fail("Expected an OBOFormatParserException");
+        } catch (OBOFormatParserException e) {
+            assertThat(e.getLineNo(), is(6));
+        }
+    }
+
+    @Test
+    public void shouldReportSameErrorAsOboFormatParser() throws IOException {
+        var input = "format-version: 1.2\n"
+                + "\n"
+                + "[Term]\n"
+                + "id: GO:0000001\n"
+                + "name: first\n"
+                + "\n"
+                + "[Term]\n"
+                + "id: GO:0000002\n"
+                + "def: an unquoted definition\n";
+        OBOFormatParserException expected = null;
+        try {
+            parseWithOboFormatParser(input);
+        } catch (OBOFormatParserException e) {
+            expected = e;
+        }
+        assertNotNull(expected);
+        var lexer = new OboStanzaLexer(new StringReader(input));
+        var stanza = new OboStanza();
+        var builder = new OboFrameBuilder();
+        try {
+            while (lexer.next(stanza)) {
+                if (stanza.getType() != OboStanza.Type.HEADER) {
+                    builder.build(stanza);
+                }
+            }
+            fail("Expected an OBOFormatParserException");
+        } catch (OBOFormatParserException e) {
+            assertThat(e.getLineNo(), is(expected.getLineNo()));
+            assertThat(e.getLine(), is(expected.getLine()));
+            assertThat(e.getMessage(), is(expected.getMessage()));
+        }
+    }
+
+    private static List<Frame> parseWithOboFormatParser(String input) {
+        var parser = new OBOFormatParser();
+        parser.setReader(new BufferedReader(new StringReader(input)));
+        var frames = new ArrayList<Frame>();
+        parser.parseOBODoc(new OBODoc() {
+            @Override
+            public void addFrame(Frame f) {
+                frames.add(f);
+            }
+        });
+        return frames;
+    }
+}
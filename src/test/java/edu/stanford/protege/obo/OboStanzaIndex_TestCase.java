@@ -0,0 +1,88 @@
+package edu.stanford.protege.obo;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLAxiom;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.semanticweb.owlapi.apibinding.OWLFunctionalSyntaxFactory.Class;
+import static org.semanticweb.owlapi.apibinding.OWLFunctionalSyntaxFactory.SubClassOf;
+
+public class OboStanzaIndex_TestCase {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Path oboFile;
+
+    private Path indexFile;
+
+    @Before
+    public void setUp() throws IOException {
+        // The Typedef comes first, so that the relationships of requested terms need it to be read too
+        var sb = new StringBuilder("format-version: 1.2\n\n");
+        sb.append("[Typedef]\n")
+          .append("id: part_of\n")
+          .append("xref: BFO:0000050\n\n");
+        // Out of id order, so that the index has to sort
+        for (int i = 1000; i >= 1; i--) {
+            sb.append("[Term]\n")
+              .append(String.format("id: GO:%07d\n", i))
+              .append("is_a: GO:0048311 ! mitochondrion distribution\n")
+              .append("relationship: part_of GO:0005739 ! mitochondrion\n\n");
+        }
+        oboFile = temporaryFolder.newFile().toPath();
+        Files.write(oboFile, sb.toString().getBytes(StandardCharsets.UTF_8));
+        indexFile = temporaryFolder.newFile().toPath();
+        OboStanzaIndex.build(oboFile, indexFile);
+    }
+
+    @Test
+    public void shouldIndexTermAndTypedefStanzas() throws IOException {
+        var index = OboStanzaIndex.open(indexFile);
+        assertThat(index.size(), is(1001));
+        assertThat(index.contains("GO:0000001"), is(true));
+        assertThat(index.contains("GO:0001000"), is(true));
+        assertThat(index.contains("part_of"), is(true));
+        assertThat(index.contains("GO:0001001"), is(false));
+    }
+
+    @Test
+    public void shouldParseRequestedStanzasOnly() throws IOException {
+        var index = OboStanzaIndex.open(indexFile);
+        var axioms = new HashSet<OWLAxiom>();
+        new MinimalOboParser(axioms::add).parse(oboFile, index, List.of("GO:0000500", "GO:0000007", "GO:9999999"));
+
+        var allAxioms = new HashSet<OWLAxiom>();
+        new MinimalOboParser(allAxioms::add).parse(oboFile);
+
+        assertThat(allAxioms.containsAll(axioms), is(true));
+        assertThat(axioms.contains(subClassOfParent("GO_0000500")), is(true));
+        assertThat(axioms.contains(subClassOfParent("GO_0000007")), is(true));
+        assertThat(axioms.contains(subClassOfParent("GO_0000008")), is(false));
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldRejectIndexOfChangedFile() throws IOException {
+        var index = OboStanzaIndex.open(indexFile);
+        Files.setLastModifiedTime(oboFile, FileTime.fromMillis(Files.getLastModifiedTime(oboFile).toMillis() + 10_000));
+        new MinimalOboParser(axiom -> {}).parse(oboFile, index, List.of("GO:0000001"));
+    }
+
+    private static OWLAxiom subClassOfParent(String localName) {
+        return SubClassOf(Class(IRI.create("http://purl.obolibrary.org/obo/" + localName)),
+                          Class(IRI.create("http://purl.obolibrary.org/obo/GO_0048311")));
+    }
+}
@@ -0,0 +1,88 @@
+package edu.stanford.protege.obo;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class OboStanzaLexer_TestCase {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private static final String LONG_NAME = "x".repeat(200_000);
+
+    private static final String INPUT = "format-version: 1.2\r\n"
+            + "\r\n"
+            + "[Term]\r\n"
+            + "id: GO:0000001\n"
+            + "name: Schr\u00f6dinger\u2019s caf\u00e9 \ud835\udd38\r"
+            + "def: \"\u00dcn\u00efc\u00f6d\u00e9\" []\n"
+            + "\n"
+            + "[Term]\n"
+            + "id: GO:0000002\n"
+            + "name: " + LONG_NAME + "\n"
+            + "[Typedef]\n"
+            + "id: part_of";
+
+    @Test
+    public void shouldLexSameStanzasFromBytesAndChars() throws IOException {
+        var fromChars = lex(new OboStanzaLexer(new StringReader(INPUT)));
+        var fromBytes = lex(new OboStanzaLexer(new ByteArrayInputStream(INPUT.getBytes(StandardCharsets.UTF_8))));
+        assertThat(fromBytes, is(fromChars));
+        assertThat(fromBytes.size(), is(4));
+        assertThat(fromBytes.get(1), is("TERM 3 [Term]\nid: GO:0000001\nname: Schr\u00f6dinger\u2019s caf\u00e9 \ud835\udd38\ndef: \"\u00dcn\u00efc\u00f6d\u00e9\" []\n\n"));
+    }
+
+    @Test
+    public void shouldLexSameStanzasFromMappedFileWindows() throws IOException {
+        var file = temporaryFolder.newFile().toPath();
+        Files.write(file, INPUT.getBytes(StandardCharsets.UTF_8));
+        var fromChars = lex(new OboStanzaLexer(new StringReader(INPUT)));
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // Windows much smaller than lines, and not aligned with UTF-8 sequences
+            var lineSource = new MappedFileLineSource(channel, 0, channel.size(), 7);
+            var fromMappedFile = lex(new OboStanzaLexer(lineSource));
+            assertThat(fromMappedFile, is(fromChars));
+            assertThat(lineSource.getBytesRead(), is(channel.size()));
+        }
+    }
+
+    @Test
+    public void shouldRecordStanzaByteOffsets() throws IOException {
+        var bytes = INPUT.getBytes(StandardCharsets.UTF_8);
+        var lexer = new OboStanzaLexer(new ByteArrayInputStream(bytes));
+        var stanza = new OboStanza();
+        var offsets = new ArrayList<Long>();
+        while (lexer.next(stanza)) {
+            offsets.add(stanza.getStartByteOffset());
+        }
+        var text = new String(bytes, StandardCharsets.ISO_8859_1);
+        assertThat(offsets, is(List.of(0L,
+                                       (long) text.indexOf("[Term]"),
+                                       (long) text.lastIndexOf("[Term]"),
+                                       (long) text.indexOf("[Typedef]"))));
+    }
+
+    private static List<String> lex(OboStanzaLexer lexer) throws IOException {
+        var stanzas = new ArrayList<String>();
+        var stanza = new OboStanza();
+        while (lexer.next(stanza)) {
+            stanzas.add(stanza.getType() + " " + stanza.getStartLineNumber() + " "
+                                + new String(stanza.getText(), 0, stanza.getLength()));
+        }
+        return stanzas;
+    }
+}
@@ -0,0 +1,80 @@
+package edu.stanford.protege.obo;
+
+import org.junit.Test;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLDeclarationAxiom;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.semanticweb.owlapi.apibinding.OWLFunctionalSyntaxFactory.Class;
+import static org.semanticweb.owlapi.apibinding.OWLFunctionalSyntaxFactory.Declaration;
+
+public class ProbabilisticDeclarationFilter_TestCase {
+
+    @Test
+    public void shouldSuppressDuplicatesWithinCapacity() {
+        var filter = new ProbabilisticDeclarationFilter(10_000, 0.0001);
+        var delivered = 0;
+        for (int i = 0; i < 10_000; i++) {
+            delivered += filter.add(declaration(i)) ? 1 : 0;
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(filter.add(declaration(i)), is(false));
+        }
+        // A few new entities may be mistaken for declared ones
+        assertThat(delivered > 9_990, is(true));
+        assertThat(filter.getEvictedCount(), is(0L));
+        assertThat(filter.getDeliveredDuplicateCount(), is(0L));
+    }
+
+    @Test
+    public void shouldReportDuplicatesDeliveredWhenOverCapacity() {
+        var filter = new ProbabilisticDeclarationFilter(1_000, 0.001);
+        var memoryBytes = filter.getMemoryBytes();
+        for (int i = 0; i < 50_000; i++) {
+            filter.add(declaration(i));
+        }
+        var deliveredDuplicates = 0;
+        for (int i = 0; i < 50_000; i++) {
+            deliveredDuplicates += filter.add(declaration(i)) ? 1 : 0;
+        }
+        assertThat(filter.getEvictedCount() > 0, is(true));
+        assertThat(deliveredDuplicates > 0, is(true));
+        assertThat(filter.getDeliveredDuplicateCount() > 0, is(true));
+        assertThat(filter.getMemoryBytes(), is(memoryBytes));
+    }
+
+    @Test
+    public void shouldRestoreWrittenState() throws IOException {
+        var filter = new ProbabilisticDeclarationFilter(10_000, 0.0001);
+        for (int i = 0; i < 5_000; i++) {
+            filter.add(declaration(i));
+        }
+        var bytes = new ByteArrayOutputStream();
+        filter.writeState(new DataOutputStream(bytes));
+
+        var restoredFilter = new ProbabilisticDeclarationFilter(10_000, 0.0001);
+        restoredFilter.readState(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        for (int i = 0; i < 5_000; i++) {
+            assertThat(restoredFilter.add(declaration(i)), is(false));
+        }
+        assertThat(restoredFilter.getSuppressedCount(), is(filter.getSuppressedCount() + 5_000));
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldNotRestoreStateOfDifferentlySizedFilter() throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        new ProbabilisticDeclarationFilter(10_000, 0.0001).writeState(new DataOutputStream(bytes));
+        new ProbabilisticDeclarationFilter(100_000, 0.0001).readState(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    }
+
+    private static OWLDeclarationAxiom declaration(int i) {
+        return Declaration(Class(IRI.create("http://purl.obolibrary.org/obo/GO_" + i)));
+    }
+}
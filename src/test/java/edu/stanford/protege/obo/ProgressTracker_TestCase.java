@@ -0,0 +1,142 @@
+package edu.stanford.protege.obo;
+
+import org.junit.Test;
+import org.obolibrary.oboformat.model.Frame;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLAxiom;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.semanticweb.owlapi.apibinding.OWLFunctionalSyntaxFactory.Class;
+import static org.semanticweb.owlapi.apibinding.OWLFunctionalSyntaxFactory.Declaration;
+import static org.semanticweb.owlapi.apibinding.OWLFunctionalSyntaxFactory.SubClassOf;
+
+public class ProgressTracker_TestCase {
+
+    private static final OWLAxiom DECLARATION = Declaration(Class(IRI.create("http://example.org/A")));
+
+    private static final OWLAxiom SUB_CLASS_OF = SubClassOf(Class(IRI.create("http://example.org/A")),
+                                                             Class(IRI.create("http://example.org/B")));
+
+    @Test
+    public void shouldReportEachAxiomInterval() {
+        var reports = new ArrayList<ParseProgress>();
+        var tracker = new ProgressTracker(reports::add, ProgressInterval.everyAxioms(100), false);
+        tracker.addInput(() -> 30, 40);
+        tracker.addInput(() -> 5, 60);
+        for (int i = 0; i < 50; i++) {
+            tracker.frameAdded(Frame.FrameType.TERM);
+            tracker.delivered(axioms(7));
+        }
+        // 350 axioms, so reports at 105, 203 and 301
+        assertThat(reports.size(), is(3));
+        assertThat(reports.get(0).getAxiomsCount(), is(105L));
+        assertThat(reports.get(0).getFramesCount(), is(15L));
+        assertThat(reports.get(2).getAxiomsCount(), is(301L));
+        assertThat(reports.get(0).getBytesRead(), is(35L));
+        assertThat(reports.get(0).getTotalBytes(), is(100L));
+    }
+
+    @Test
+    public void shouldReportUnknownTotalBytes() {
+        var reports = new ArrayList<ParseProgress>();
+        var tracker = new ProgressTracker(reports::add, ProgressInterval.everyAxioms(1), false);
+        tracker.addInput(() -> 30, 40);
+        tracker.addInput(() -> 5, -1);
+        tracker.delivered(axioms(1));
+        assertThat(reports.get(0).getTotalBytes(), is(-1L));
+    }
+
+    @Test
+    public void shouldReportOnceTimeIntervalHasPassed() throws InterruptedException {
+        var reports = new ArrayList<ParseProgress>();
+        var tracker = new ProgressTracker(reports::add, ProgressInterval.every(20, TimeUnit.MILLISECONDS), false);
+        tracker.delivered(axioms(1));
+        assertThat(reports.size(), is(0));
+        Thread.sleep(40);
+        tracker.delivered(axioms(1));
+        tracker.delivered(axioms(1));
+        assertThat(reports.size(), is(1));
+        assertThat(reports.get(0).getAxiomsCount(), is(2L));
+    }
+
+    @Test
+    public void shouldNotTrackWithoutListener() {
+        var tracker = new ProgressTracker(ProgressListener.none(), ProgressInterval.everyAxioms(1), false);
+        tracker.addInput(() -> {
+            throw new AssertionError("Input should not be read");
+        }, 10);
+        tracker.frameAdded(Frame.FrameType.TERM);
+        tracker.delivered(axioms(1));
+        assertThat(tracker.getAxiomsCount(), is(0L));
+        assertThat(tracker.getFramesCount(), is(0L));
+    }
+
+    @Test
+    public void shouldCountAxiomsAndFramesByType() {
+        var tracker = new ProgressTracker(ProgressListener.none(), ProgressInterval.everyAxioms(1), true);
+        tracker.frameAdded(Frame.FrameType.TERM);
+        tracker.frameAdded(Frame.FrameType.TERM);
+        tracker.frameAdded(Frame.FrameType.TYPEDEF);
+        tracker.delivered(List.of(DECLARATION, SUB_CLASS_OF, SUB_CLASS_OF));
+        assertThat(tracker.getAxiomsCountByType(), is(Map.of("Declaration", 1L, "SubClassOf", 2L)));
+        assertThat(tracker.getFramesCountByType(), is(Map.of("TERM", 2L, "TYPEDEF", 1L)));
+        assertThat(tracker.getFramesCount(), is(3L));
+    }
+
+    @Test
+    public void shouldAddClauseCountsAndResetThem() {
+        var tracker = new ProgressTracker(ProgressListener.none(), ProgressInterval.everyAxioms(1), true);
+        var counts = new HashMap<String, long[]>();
+        counts.put("is_a", new long[]{3});
+        counts.put("xref", new long[]{5});
+        tracker.addClauseCounts(counts);
+        tracker.addClauseCounts(counts);
+        counts.get("is_a")[0] = 4;
+        tracker.addClauseCounts(counts);
+        assertThat(counts.get("is_a")[0], is(0L));
+        assertThat(List.copyOf(tracker.getClausesCountByTag().entrySet()),
+                   is(List.of(Map.entry("is_a", 7L), Map.entry("xref", 5L))));
+    }
+
+    @Test
+    public void shouldReportFinalStatisticsToListener() {
+        var reports = new ArrayList<ParseStatisticsReport>();
+        var tracker = new ProgressTracker(new ProgressListener() {
+            @Override
+            public void onProgress(@Nonnull ParseProgress progress) {
+            }
+
+            @Override
+            public void onFinished(@Nonnull ParseStatisticsReport report) {
+                reports.add(report);
+            }
+        }, ProgressInterval.everyAxioms(100), true);
+        tracker.frameAdded(Frame.FrameType.TERM);
+        tracker.delivered(List.of(DECLARATION, SUB_CLASS_OF));
+        tracker.addParseNanos(5);
+        tracker.addTranslationNanos(7, 11);
+        tracker.addTranslationNanos(1, 2);
+        tracker.finish();
+        assertThat(reports.size(), is(1));
+        var report = reports.get(0);
+        assertThat(report.getAxiomsCount(), is(2L));
+        assertThat(report.getFramesCount(), is(1L));
+        assertThat(report.getParseNanos(), is(5L));
+        assertThat(report.getTranslationNanos(), is(8L));
+        assertThat(report.getConsumerNanos(), is(13L));
+        assertThat(report.getAxiomsCountByType(), is(Map.of("Declaration", 1L, "SubClassOf", 1L)));
+    }
+
+    private static List<OWLAxiom> axioms(int count) {
+        return Collections.nCopies(count, DECLARATION);
+    }
+}
@@ -0,0 +1,150 @@
+package edu.stanford.protege.obo;
+
+import com.google.common.io.ByteStreams;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.annotation.Nonnull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class StanzaAlignedGzipWriter_TestCase {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Path source;
+
+    private Path target;
+
+    private byte[] text;
+
+    @Before
+    public void setUp() throws IOException {
+        var sb = new StringBuilder("format-version: 1.2\n\n");
+        for (int i = 1; i <= 2000; i++) {
+            sb.append("[Term]\n")
+              .append(String.format("id: GO:%07d\n", i))
+              .append("is_a: GO:0048311 ! mitochondrion distribution\n\n");
+        }
+        text = sb.toString().getBytes(StandardCharsets.UTF_8);
+        source = temporaryFolder.newFile().toPath();
+        Files.write(source, text);
+        target = temporaryFolder.newFile().toPath();
+        StanzaAlignedGzipWriter.compress(source, target, 4096);
+    }
+
+    @Test
+    public void shouldWriteStandardGzip() throws IOException {
+        try (var in = new GZIPInputStream(Files.newInputStream(target))) {
+            assertArrayEquals(text, ByteStreams.toByteArray(in));
+        }
+    }
+
+    @Test
+    public void shouldWriteMembersThatStartOnStanzaBoundaries() throws IOException {
+        assertThat(Compression.isStanzaAlignedGzip(target), is(true));
+        try (var channel = FileChannel.open(target, StandardOpenOption.READ)) {
+            var ranges = GzipMembers.split(channel, 8);
+            assertThat(ranges.size(), is(8));
+            for (int i = 1; i < ranges.size(); i++) {
+                var member = Arrays.copyOfRange(Files.readAllBytes(target),
+                                                (int) ranges.get(i).getStart(),
+                                                (int) ranges.get(i).getEnd());
+                try (var in = new GZIPInputStream(new ByteArrayInputStream(member))) {
+                    var decompressed = ByteStreams.toByteArray(in);
+                    assertThat(OboStanzaBoundaries.startsWithStanzaHeader(decompressed, 0, decompressed.length), is(true));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void shouldDecompressMembersInParallel() throws IOException {
+        try (var in = Compression.decompressing(Files.newInputStream(target), 4)) {
+            assertThat(in instanceof ParallelGzipInputStream, is(true));
+            assertArrayEquals(text, ByteStreams.toByteArray(in));
+        }
+    }
+
+    @Test(timeout = 10_000, expected = IllegalStateException.class)
+    public void shouldFailWhenMembersCannotBeRead() throws IOException {
+        // The first read, which detects compression, happens on the calling thread
+        var source = new FilterInputStream(Files.newInputStream(target)) {
+
+            private boolean detected = false;
+
+            @Override
+            public int read(@Nonnull byte[] b, int off, int len) throws IOException {
+                if (detected) {
+                    throw new IllegalStateException("Unreadable input");
+                }
+                detected = true;
+                return super.read(b, off, len);
+            }
+        };
+        try (var in = Compression.decompressing(source, 4)) {
+            ByteStreams.toByteArray(in);
+        }
+    }
+
+    @Test
+    public void shouldRejectMemberWithImpossibleSize() throws IOException {
+        var member = gzip(text);
+        // ISIZE of 2^32 - 1, which is negative as an int
+        Arrays.fill(member, member.length - 4, member.length, (byte) 0xff);
+        assertInflateFailsWithZipException(member);
+        // ISIZE of 1GB, which the compressed data cannot expand to
+        member[member.length - 1] = 0x40;
+        Arrays.fill(member, member.length - 4, member.length - 1, (byte) 0);
+        assertInflateFailsWithZipException(member);
+    }
+
+    @Test
+    public void shouldInflateMember() throws IOException {
+        assertArrayEquals(text, GzipMembers.inflate(gzip(text), 0));
+    }
+
+    @Test
+    public void shouldReadBgzfBlockSize() {
+        var header = new byte[]{0x1f, (byte) 0x8b, 8, 4, 0, 0, 0, 0, 0, (byte) 0xff, 6, 0, 'B', 'C', 2, 0, 0x1b, 0};
+        assertThat(GzipMembers.getMemberSize(header, header.length), is(28L));
+        assertThat(GzipMembers.isStanzaAligned(header, header.length), is(false));
+    }
+
+    private static void assertInflateFailsWithZipException(byte[] member) throws IOException {
+        try {
+            GzipMembers.inflate(member, 0);
+            fail("Expected a ZipException");
+        } catch (ZipException e) {
+            // Expected
+        }
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        var out = new ByteArrayOutputStream();
+        try (var gzipOut = new GZIPOutputStream(out)) {
+            gzipOut.write(bytes);
+        }
+        return out.toByteArray();
+    }
+}
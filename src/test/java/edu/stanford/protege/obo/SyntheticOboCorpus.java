@@ -0,0 +1,403 @@
+package edu.stanford.protege.obo;
+
+import javax.annotation.Nonnull;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Generates OBO files of any size that look like large real ontologies, for benchmarks and for scale and
+ * soak tests.  The output is determined by the seed and the target size alone, so a file can be regenerated
+ * rather than shipped.
+ *
+ * Most stanzas are terms, with names, definitions, synonyms, xrefs, is_a, relationship, intersection_of and
+ * disjoint_from clauses, trailing qualifiers and comments, and some non-ASCII text, including chars outside
+ * the Basic Multilingual Plane.  Typedefs are mostly declared after the header but a few are scattered
+ * through the file, and there is the odd instance.  Terms only refer to terms that come before them.
+ *
+ * Files can be generated from the command line with
+ * {@code java edu.stanford.protege.obo.SyntheticOboCorpus <file> <size, such as 10GB> [seed]}.
+ */
+final class SyntheticOboCorpus {
+
+    private static final String[] WORDS = {
+            "mitochondrion", "membrane", "transport", "protein", "binding", "complex", "regulation", "process",
+            "cellular", "nuclear", "receptor", "activity", "kinase", "signaling", "pathway", "cytoplasm",
+            "organelle", "assembly", "development", "division", "chromatin", "DNA", "RNA", "metabolic",
+            "biosynthetic", "catabolic", "response", "stimulus", "lipid", "vesicle", "Golgi", "synaptic",
+            "neuron", "axon", "dendrite", "ribosome", "transcription", "translation", "apoptotic", "immune"
+    };
+
+    private static final String[] UNICODE_WORDS = {
+            "\u03B1-synuclein", "\u03B2-catenin", "caf\u00E9", "M\u00FCller", "Schr\u00F6dinger", "\u00E5lesund",
+            "\u814E\u81D3", "\u795E\u7D4C", "\u0434\u043D\u043A", "\uD835\uDEFC-helix", "\uD83E\uDDEC"
+    };
+
+    private static final String[] TYPEDEF_IDS = {
+            "part_of", "has_part", "regulates", "negatively_regulates", "positively_regulates", "occurs_in",
+            "capable_of", "derives_from", "develops_from", "located_in"
+    };
+
+    private static final String[] NAMESPACES = {"biological_process", "molecular_function", "cellular_component"};
+
+    private static final String[] SYNONYM_SCOPES = {"EXACT", "BROAD", "NARROW", "RELATED"};
+
+    private static final String[] XREF_PREFIXES = {"Reactome", "EC", "Wikipedia", "MetaCyc", "KEGG", "UniProtKB"};
+
+    private static final String[] CURATORS = {"GOC:mah", "GOC:jl", "GOC:tb", "GOC:dph", "GOC:pr"};
+
+    private final long seed;
+
+    private SyntheticOboCorpus(long seed) {
+        this.seed = seed;
+    }
+
+    @Nonnull
+    static SyntheticOboCorpus withSeed(long seed) {
+        return new SyntheticOboCorpus(seed);
+    }
+
+    /**
+     * Writes stanzas to a file until it holds at least the target number of bytes.
+     */
+    @Nonnull
+    Summary write(@Nonnull Path file, long targetBytes) throws IOException {
+        try (var out = Files.newOutputStream(file)) {
+            return write(out, targetBytes);
+        }
+    }
+
+    /**
+     * Writes stanzas to a stream until at least the target number of bytes have been written.  The stream is
+     * not closed.
+     */
+    @Nonnull
+    Summary write(@Nonnull OutputStream outputStream, long targetBytes) throws IOException {
+        checkNotNull(outputStream);
+        checkArgument(targetBytes >= 0, "targetBytes must not be negative");
+        var generator = new Generator(new SplittableRandom(seed));
+        var out = new BufferedOutputStream(outputStream, 1 << 16);
+        var sb = new StringBuilder(4096);
+        generator.appendHeader(sb);
+        var bytes = flush(sb, out);
+        while (bytes < targetBytes) {
+            generator.appendStanza(sb);
+            bytes += flush(sb, out);
+        }
+        out.flush();
+        return new Summary(bytes, generator.termsCount, generator.typedefsCount, generator.instancesCount);
+    }
+
+    private static long flush(@Nonnull StringBuilder sb, @Nonnull OutputStream out) throws IOException {
+        var encoded = sb.toString().getBytes(StandardCharsets.UTF_8);
+        out.write(encoded);
+        sb.setLength(0);
+        return encoded.length;
+    }
+
+    /**
+     * Parses a size such as 500MB, 10GB or 1048576.
+     */
+    static long parseSize(@Nonnull String size) {
+        var s = size.trim().toUpperCase();
+        var multiplier = 1L;
+        if (s.endsWith("KB")) {
+            multiplier = 1L << 10;
+        }
+        else if (s.endsWith("MB")) {
+            multiplier = 1L << 20;
+        }
+        else if (s.endsWith("GB")) {
+            multiplier = 1L << 30;
+        }
+        if (multiplier != 1) {
+            s = s.substring(0, s.length() - 2).trim();
+        }
+        return Long.parseLong(s) * multiplier;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2 || args.length > 3) {
+            System.err.println("Usage: SyntheticOboCorpus <file> <size, such as 10GB> [seed]");
+            System.exit(1);
+        }
+        var seed = args.length == 3 ? Long.parseLong(args[2]) : 0;
+        var summary = withSeed(seed).write(Paths.get(args[0]), parseSize(args[1]));
+        System.out.println(summary);
+    }
+
+    /**
+     * What was written.
+     */
+    static final class Summary {
+
+        private final long bytes;
+
+        private final long termsCount;
+
+        private final long typedefsCount;
+
+        private final long instancesCount;
+
+        private Summary(long bytes, long termsCount, long typedefsCount, long instancesCount) {
+            this.bytes = bytes;
+            this.termsCount = termsCount;
+            this.typedefsCount = typedefsCount;
+            this.instancesCount = instancesCount;
+        }
+
+        long getBytes() {
+            return bytes;
+        }
+
+        long getTermsCount() {
+            return termsCount;
+        }
+
+        long getTypedefsCount() {
+            return typedefsCount;
+        }
+
+        long getInstancesCount() {
+            return instancesCount;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Summary(bytes: %,d  terms: %,d  typedefs: %,d  instances: %,d)",
+                                 bytes, termsCount, typedefsCount, instancesCount);
+        }
+    }
+
+    private static final class Generator {
+
+        private final SplittableRandom random;
+
+        private long termsCount = 0;
+
+        private long typedefsCount = 0;
+
+        private long instancesCount = 0;
+
+        Generator(@Nonnull SplittableRandom random) {
+            this.random = random;
+        }
+
+        void appendHeader(@Nonnull StringBuilder sb) {
+            sb.append("format-version: 1.2\n")
+              .append("data-version: synthetic/2026-10-18\n")
+              .append("ontology: synthetic\n")
+              .append("default-namespace: synthetic\n")
+              .append("subsetdef: slim_generic \"Generic slim\"\n")
+              .append("synonymtypedef: systematic_synonym \"Systematic synonym\" EXACT\n")
+              .append("remark: Generated by SyntheticOboCorpus\n\n");
+            for (var typedefId : TYPEDEF_IDS) {
+                appendTypedef(sb, typedefId);
+            }
+        }
+
+        void appendStanza(@Nonnull StringBuilder sb) {
+            var kind = random.nextInt(10_000);
+            if (kind < 2) {
+                appendTypedef(sb, "synthetic_relation_" + (typedefsCount + 1));
+            }
+            else if (kind < 100) {
+                appendInstance(sb);
+            }
+            else {
+                appendTerm(sb);
+            }
+        }
+
+        private void appendTerm(@Nonnull StringBuilder sb) {
+            var number = ++termsCount;
+            sb.append("[Term]\n");
+            sb.append("id: ");
+            appendTermId(sb, number);
+            sb.append('\n');
+            sb.append("name: ");
+            appendName(sb, number);
+            sb.append('\n');
+            sb.append("namespace: ").append(NAMESPACES[random.nextInt(NAMESPACES.length)]).append('\n');
+            if (random.nextInt(20) == 0) {
+                sb.append("alt_id: SYNALT:").append(number).append('\n');
+            }
+            sb.append("def: \"The ").append(word()).append(" of ");
+            appendPhrase(sb, 2 + random.nextInt(6));
+            if (random.nextInt(50) == 0) {
+                sb.append(", also called \\\"").append(word()).append("\\\"");
+            }
+            sb.append(".\" [");
+            appendCitations(sb);
+            sb.append("]\n");
+            if (random.nextInt(5) == 0) {
+                sb.append("comment: Consider using ");
+                appendPhrase(sb, 2);
+                sb.append(" instead.\n");
+            }
+            if (random.nextInt(8) == 0) {
+                sb.append("subset: slim_generic\n");
+            }
+            for (int i = random.nextInt(4); i > 0; i--) {
+                sb.append("synonym: \"");
+                appendPhrase(sb, 1 + random.nextInt(3));
+                sb.append("\" ").append(SYNONYM_SCOPES[random.nextInt(SYNONYM_SCOPES.length)]);
+                if (random.nextInt(10) == 0) {
+                    sb.append(" systematic_synonym");
+                }
+                sb.append(" [");
+                if (random.nextBoolean()) {
+                    appendCitations(sb);
+                }
+                sb.append("]\n");
+            }
+            for (int i = random.nextInt(3); i > 0; i--) {
+                sb.append("xref: ").append(XREF_PREFIXES[random.nextInt(XREF_PREFIXES.length)]).append(':')
+                  .append(random.nextInt(1_000_000));
+                if (random.nextInt(4) == 0) {
+                    sb.append(" \"");
+                    appendPhrase(sb, 2);
+                    sb.append('"');
+                }
+                sb.append('\n');
+            }
+            if (number > 1) {
+                for (int i = 1 + random.nextInt(2); i > 0; i--) {
+                    sb.append("is_a: ");
+                    appendTermReference(sb, number);
+                    if (random.nextInt(10) == 0) {
+                        sb.append(" {source=\"").append(CURATORS[random.nextInt(CURATORS.length)]).append("\"}");
+                    }
+                    sb.append('\n');
+                }
+                if (number > 10 && random.nextInt(10) == 0) {
+                    sb.append("intersection_of: ");
+                    appendTermReference(sb, number);
+                    sb.append("\nintersection_of: ").append(typedefId()).append(' ');
+                    appendTermReference(sb, number);
+                    sb.append('\n');
+                }
+                for (int i = random.nextInt(3); i > 0; i--) {
+                    sb.append("relationship: ").append(typedefId()).append(' ');
+                    appendTermReference(sb, number);
+                    if (random.nextInt(20) == 0) {
+                        sb.append(" {cardinality=\"1\"}");
+                    }
+                    sb.append('\n');
+                }
+                if (random.nextInt(50) == 0) {
+                    sb.append("disjoint_from: ");
+                    appendTermReference(sb, number);
+                    sb.append('\n');
+                }
+            }
+            if (random.nextInt(100) == 0) {
+                sb.append("is_obsolete: true\n");
+                if (number > 1) {
+                    sb.append("replaced_by: ");
+                    appendTermId(sb, 1 + random.nextLong(number - 1));
+                    sb.append('\n');
+                }
+            }
+            sb.append('\n');
+        }
+
+        private void appendTypedef(@Nonnull StringBuilder sb, @Nonnull String typedefId) {
+            typedefsCount++;
+            sb.append("[Typedef]\n")
+              .append("id: ").append(typedefId).append('\n')
+              .append("name: ").append(typedefId.replace('_', ' ')).append('\n')
+              .append("def: \"A relation that is used by synthetic terms.\" [").append(CURATORS[random.nextInt(CURATORS.length)]).append("]\n")
+              .append("xref: RO:").append(1_000_000 + typedefsCount).append('\n');
+            if (random.nextBoolean()) {
+                sb.append("is_transitive: true\n");
+            }
+            sb.append('\n');
+        }
+
+        private void appendInstance(@Nonnull StringBuilder sb) {
+            instancesCount++;
+            sb.append("[Instance]\n")
+              .append("id: SYNI:").append(instancesCount).append('\n')
+              .append("name: ");
+            appendPhrase(sb, 2);
+            sb.append('\n');
+            if (termsCount > 0) {
+                sb.append("instance_of: ");
+                appendTermReference(sb, termsCount + 1);
+                sb.append('\n');
+            }
+            sb.append("property_value: ").append(typedefId()).append(" \"").append(random.nextInt(1000)).append("\" xsd:integer\n\n");
+        }
+
+        /**
+         * Appends a reference to an earlier term, with a trailing comment, favouring recent terms as real
+         * ontologies do.
+         */
+        private void appendTermReference(@Nonnull StringBuilder sb, long number) {
+            var referenced = random.nextInt(4) == 0 ? 1 + random.nextLong(number - 1)
+                    : Math.max(1, number - 1 - random.nextInt(1000));
+            appendTermId(sb, referenced);
+            sb.append(" ! ");
+            appendName(sb, referenced);
+        }
+
+        /**
+         * Appends a name that is derived from the term number, so references can repeat it.
+         */
+        private static void appendName(@Nonnull StringBuilder sb, long number) {
+            var n = number * 0x9E3779B97F4A7C15L;
+            sb.append(WORDS[(int) ((n >>> 40) % WORDS.length)]).append(' ')
+              .append(WORDS[(int) ((n >>> 20) % WORDS.length)]);
+            if (((n >>> 8) & 0x1F) == 0) {
+                sb.append(' ').append(UNICODE_WORDS[(int) ((n >>> 13) % UNICODE_WORDS.length)]);
+            }
+            sb.append(' ').append(number);
+        }
+
+        private static void appendTermId(@Nonnull StringBuilder sb, long number) {
+            sb.append("SYN:");
+            for (long scale = 1_000_000; scale > 1 && number < scale; scale /= 10) {
+                sb.append('0');
+            }
+            sb.append(number);
+        }
+
+        private void appendPhrase(@Nonnull StringBuilder sb, int wordsCount) {
+            for (int i = 0; i < wordsCount; i++) {
+                if (i > 0) {
+                    sb.append(' ');
+                }
+                sb.append(word());
+            }
+        }
+
+        private void appendCitations(@Nonnull StringBuilder sb) {
+            sb.append("PMID:").append(10_000 + random.nextInt(40_000_000));
+            if (random.nextBoolean()) {
+                sb.append(", ").append(CURATORS[random.nextInt(CURATORS.length)]);
+            }
+        }
+
+        @Nonnull
+        private String word() {
+            if (random.nextInt(40) == 0) {
+                return UNICODE_WORDS[random.nextInt(UNICODE_WORDS.length)];
+            }
+            return WORDS[random.nextInt(WORDS.length)];
+        }
+
+        @Nonnull
+        private String typedefId() {
+            return TYPEDEF_IDS[random.nextInt(TYPEDEF_IDS.length)];
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package edu.stanford.protege.obo;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.obolibrary.oboformat.model.Frame;
+import org.obolibrary.oboformat.model.OBODoc;
+import org.obolibrary.oboformat.parser.OBOFormatParser;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+
+public class SyntheticOboCorpus_TestCase {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void shouldWriteSameBytesForSameSeed() throws IOException {
+        var first = generate(7, 256 * 1024);
+        var second = generate(7, 256 * 1024);
+        var other = generate(8, 256 * 1024);
+        assertThat(Arrays.equals(first, second), is(true));
+        assertThat(Arrays.equals(first, other), is(false));
+    }
+
+    @Test
+    public void shouldWriteAtLeastTargetBytes() throws IOException {
+        var file = temporaryFolder.newFile().toPath();
+        var summary = SyntheticOboCorpus.withSeed(1).write(file, 3 * 1024 * 1024);
+        assertThat(summary.getBytes(), is(Files.size(file)));
+        assertThat(summary.getBytes() >= 3 * 1024 * 1024, is(true));
+        assertThat(summary.getBytes() < 3 * 1024 * 1024 + 8 * 1024, is(true));
+        assertThat(summary.getTermsCount() > 5000, is(true));
+        assertThat(summary.getTypedefsCount() > 10, is(true));
+        assertThat(summary.getInstancesCount() > 50, is(true));
+    }
+
+    @Test
+    public void shouldBuildSameFramesAsOboFormatParser() throws IOException {
+        var input = new String(generate(3, 512 * 1024), StandardCharsets.UTF_8);
+        // OBOFormatParser stops at the first Instance stanza, whereas the frame builder skips them
+        var expected = parseWithOboFormatParser(input.replaceAll("\\[Instance]\n(.+\n)+\n", ""));
+        var builder = new OboFrameBuilder();
+        var frames = new ArrayList<Frame>();
+        var lexer = new OboStanzaLexer(new StringReader(input));
+        var stanza = new OboStanza();
+        while (lexer.next(stanza)) {
+            var frame = builder.build(stanza);
+            if (frame != null) {
+                frames.add(frame);
+            }
+        }
+        assertThat(frames.size(), is(expected.size()));
+        for (int i = 0; i < frames.size(); i++) {
+            assertThat(frames.get(i).getId(), is(expected.get(i).getId()));
+            assertEquals(new ArrayList<>(expected.get(i).getClauses()), new ArrayList<>(frames.get(i).getClauses()));
+        }
+        assertThat(builder.getFallbackCount(), is(0L));
+    }
+
+    @Test
+    public void shouldParseWithPipelinedTranslation() throws IOException {
+        var file = temporaryFolder.newFile().toPath();
+        var summary = SyntheticOboCorpus.withSeed(5).write(file, 1024 * 1024);
+        var axiomsCount = new LongAdder();
+        var parser = new MinimalOboParser(axioms -> axiomsCount.add(axioms.size()), 100);
+        parser.setPipelineTranslatorThreads(2);
+        parser.setProgressListener(ProgressListener.none());
+        parser.parse(file);
+        assertThat(axiomsCount.sum() > 5 * summary.getTermsCount(), is(true));
+    }
+
+    @Test
+    public void shouldParseSizes() {
+        assertThat(SyntheticOboCorpus.parseSize("1048576"), is(1048576L));
+        assertThat(SyntheticOboCorpus.parseSize("500MB"), is(500L << 20));
+        assertThat(SyntheticOboCorpus.parseSize("10gb"), is(10L << 30));
+    }
+
+    private static byte[] generate(long seed, long targetBytes) throws IOException {
+        var out = new ByteArrayOutputStream();
+        SyntheticOboCorpus.withSeed(seed).write(out, targetBytes);
+        return out.toByteArray();
+    }
+
+    private static List<Frame> parseWithOboFormatParser(String input) {
+        var parser = new OBOFormatParser();
+        parser.setReader(new BufferedReader(new StringReader(input)));
+        var frames = new ArrayList<Frame>();
+        parser.parseOBODoc(new OBODoc() {
+            @Override
+            public void addFrame(Frame f) {
+                frames.add(f);
+            }
+        });
+        return frames;
+    }
+}